@@ -0,0 +1,346 @@
+package library.collision;
+
+import library.dynamics.Body;
+import library.dynamics.Settings;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform grid over the world space AABBs of a set of bodies, built once and queried many times. Intended for bodies
+ * that rarely move, such as static level geometry.
+ * <p>
+ * The grid copies each body's bounds when built, so moving an indexed body requires a rebuild. Cells are stored in a
+ * compact array of body indices per cell. Bodies spanning too many cells are kept in a separate list tested on every
+ * query instead. Queries are read only, so several threads can query the same grid, each with its own
+ * {@link IndexList}. Results are sorted so they come back in the order the bodies were supplied to {@link #build}.
+ */
+public class BodyGrid {
+    private static final int MAX_CELLS_PER_BODY = 64;
+
+    private Body[] bodies = new Body[0];
+    private int count;
+    private double[] minX = new double[0];
+    private double[] minY = new double[0];
+    private double[] maxX = new double[0];
+    private double[] maxY = new double[0];
+    private int[] cellMinX = new int[0];
+    private int[] cellMinY = new int[0];
+
+    private double originX;
+    private double originY;
+    private double cellSize = 1;
+    private double inverseCellSize = 1;
+    private int columns;
+    private int rows;
+    private int[] cellStart = new int[1];
+    private int[] cellItems = new int[0];
+    private int[] large = new int[0];
+    private int largeCount;
+
+    /**
+     * Rebuilds the grid over a list of bodies.
+     *
+     * @param list Bodies to index, their position in the list is the index returned by queries.
+     */
+    public void build(List<Body> list) {
+        count = list.size();
+        if (bodies.length < count) {
+            int capacity = Math.max(count, bodies.length * 2);
+            bodies = new Body[capacity];
+            minX = new double[capacity];
+            minY = new double[capacity];
+            maxX = new double[capacity];
+            maxY = new double[capacity];
+            cellMinX = new int[capacity];
+            cellMinY = new int[capacity];
+        }
+        Arrays.fill(bodies, count, bodies.length, null);
+        columns = 0;
+        rows = 0;
+        largeCount = 0;
+        if (count == 0) {
+            return;
+        }
+
+        double boundsMinX = Double.MAX_VALUE, boundsMinY = Double.MAX_VALUE;
+        double boundsMaxX = -Double.MAX_VALUE, boundsMaxY = -Double.MAX_VALUE;
+        double extent = 0;
+        for (int i = 0; i < count; i++) {
+            Body b = list.get(i);
+            bodies[i] = b;
+            minX[i] = b.position.x + b.aabb.getMin().x;
+            minY[i] = b.position.y + b.aabb.getMin().y;
+            maxX[i] = b.position.x + b.aabb.getMax().x;
+            maxY[i] = b.position.y + b.aabb.getMax().y;
+            boundsMinX = Math.min(boundsMinX, minX[i]);
+            boundsMinY = Math.min(boundsMinY, minY[i]);
+            boundsMaxX = Math.max(boundsMaxX, maxX[i]);
+            boundsMaxY = Math.max(boundsMaxY, maxY[i]);
+            extent += Math.max(maxX[i] - minX[i], maxY[i] - minY[i]);
+        }
+
+        originX = boundsMinX;
+        originY = boundsMinY;
+        cellSize = Math.max(extent / count, Settings.EPSILON);
+        long maxCells = 4L * count + 64;
+        while (true) {
+            columns = (int) Math.min(Integer.MAX_VALUE, (long) ((boundsMaxX - boundsMinX) / cellSize) + 1);
+            rows = (int) Math.min(Integer.MAX_VALUE, (long) ((boundsMaxY - boundsMinY) / cellSize) + 1);
+            if ((long) columns * rows <= maxCells) {
+                break;
+            }
+            cellSize *= Math.max(1.1, Math.sqrt((double) columns * rows / maxCells));
+        }
+        inverseCellSize = 1 / cellSize;
+
+        int cells = columns * rows;
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        } else {
+            Arrays.fill(cellStart, 0, cells + 1, 0);
+        }
+        if (large.length < count) {
+            large = new int[count];
+        }
+
+        int items = 0;
+        for (int i = 0; i < count; i++) {
+            int x0 = column(minX[i]), x1 = column(maxX[i]);
+            int y0 = row(minY[i]), y1 = row(maxY[i]);
+            cellMinX[i] = x0;
+            cellMinY[i] = y0;
+            if ((x1 - x0 + 1) * (y1 - y0 + 1) > MAX_CELLS_PER_BODY) {
+                large[largeCount++] = i;
+                continue;
+            }
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    cellStart[y * columns + x + 1]++;
+                    items++;
+                }
+            }
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        if (cellItems.length < items) {
+            cellItems = new int[items];
+        }
+        int[] fill = Arrays.copyOf(cellStart, cells);
+        for (int i = 0; i < count; i++) {
+            int x0 = cellMinX[i], x1 = column(maxX[i]);
+            int y0 = cellMinY[i], y1 = row(maxY[i]);
+            if ((x1 - x0 + 1) * (y1 - y0 + 1) > MAX_CELLS_PER_BODY) {
+                continue;
+            }
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    cellItems[fill[y * columns + x]++] = i;
+                }
+            }
+        }
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - originX) * inverseCellSize)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - originY) * inverseCellSize)));
+    }
+
+    /**
+     * Getter for the number of indexed bodies.
+     *
+     * @return Body count.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets an indexed body.
+     *
+     * @param index Index returned by a query.
+     * @return The body.
+     */
+    public Body get(int index) {
+        return bodies[index];
+    }
+
+    /**
+     * Finds every indexed body whose bounds overlap a world space box.
+     *
+     * @param queryMinX Lower x bound of the box.
+     * @param queryMinY Lower y bound of the box.
+     * @param queryMaxX Upper x bound of the box.
+     * @param queryMaxY Upper y bound of the box.
+     * @param result    List cleared and filled with the indices of overlapping bodies in ascending order.
+     */
+    public void query(double queryMinX, double queryMinY, double queryMaxX, double queryMaxY, IndexList result) {
+        result.clear();
+        if (count == 0) {
+            return;
+        }
+        for (int k = 0; k < largeCount; k++) {
+            int i = large[k];
+            if (overlaps(i, queryMinX, queryMinY, queryMaxX, queryMaxY)) {
+                result.add(i);
+            }
+        }
+        int x0 = column(queryMinX), x1 = column(queryMaxX);
+        int y0 = row(queryMinY), y1 = row(queryMaxY);
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                int cell = y * columns + x;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int i = cellItems[k];
+                    //Reports a body only from the first cell it shares with the query so no duplicates are produced
+                    if (Math.max(cellMinX[i], x0) == x && Math.max(cellMinY[i], y0) == y
+                            && overlaps(i, queryMinX, queryMinY, queryMaxX, queryMaxY)) {
+                        result.add(i);
+                    }
+                }
+            }
+        }
+        if (result.size() > 1) {
+            result.sort();
+        }
+    }
+
+    /**
+     * Finds every indexed body whose bounds overlap those of another body.
+     *
+     * @param b      Body to query with.
+     * @param result List cleared and filled with the indices of overlapping bodies in ascending order.
+     */
+    public void query(Body b, IndexList result) {
+        query(b.position.x + b.aabb.getMin().x, b.position.y + b.aabb.getMin().y,
+                b.position.x + b.aabb.getMax().x, b.position.y + b.aabb.getMax().y, result);
+    }
+
+    /**
+     * Receives the bodies a ray passes near during {@link #raycast}.
+     */
+    public interface RayVisitor {
+        /**
+         * Tests a candidate body.
+         *
+         * @param index Index of the body in the grid.
+         * @param maxT  Parameter of the nearest hit found so far, or the end of the ray.
+         * @return The nearest hit parameter after testing this body.
+         */
+        double visit(int index, double maxT);
+    }
+
+    /**
+     * Walks the cells a ray segment passes through in order from its start, handing each body whose bounds the
+     * segment touches to the visitor. The walk stops once the nearest hit reported by the visitor lies inside the
+     * cells already visited, so only bodies that could be the nearest hit are tested exactly. A body spanning several
+     * cells may be visited more than once.
+     *
+     * @param startX  Start x of the segment.
+     * @param startY  Start y of the segment.
+     * @param endX    x component of the segment's end vector, points on it are start + t * end.
+     * @param endY    y component of the segment's end vector.
+     * @param maxT    Parameter the segment ends at.
+     * @param visitor Visitor testing candidate bodies.
+     * @return The nearest hit parameter reported by the visitor, or maxT if nothing was hit.
+     */
+    public double raycast(double startX, double startY, double endX, double endY, double maxT, RayVisitor visitor) {
+        if (count == 0) {
+            return maxT;
+        }
+        for (int k = 0; k < largeCount; k++) {
+            int i = large[k];
+            if (rayOverlaps(i, startX, startY, endX, endY, maxT)) {
+                maxT = visitor.visit(i, maxT);
+            }
+        }
+
+        //Clips the segment to the grid bounds
+        double gridMaxX = originX + columns * cellSize;
+        double gridMaxY = originY + rows * cellSize;
+        double near = 0;
+        double far = maxT;
+        if (endX != 0) {
+            double t0 = (originX - startX) / endX;
+            double t1 = (gridMaxX - startX) / endX;
+            near = Math.max(near, Math.min(t0, t1));
+            far = Math.min(far, Math.max(t0, t1));
+        } else if (startX < originX || startX > gridMaxX) {
+            return maxT;
+        }
+        if (endY != 0) {
+            double t0 = (originY - startY) / endY;
+            double t1 = (gridMaxY - startY) / endY;
+            near = Math.max(near, Math.min(t0, t1));
+            far = Math.min(far, Math.max(t0, t1));
+        } else if (startY < originY || startY > gridMaxY) {
+            return maxT;
+        }
+        if (near > far) {
+            return maxT;
+        }
+
+        int x = column(startX + endX * near);
+        int y = row(startY + endY * near);
+        int stepX = endX > 0 ? 1 : -1;
+        int stepY = endY > 0 ? 1 : -1;
+        double deltaX = endX == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(endX);
+        double deltaY = endY == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(endY);
+        double nextX = endX == 0 ? Double.POSITIVE_INFINITY
+                : (originX + (x + (endX > 0 ? 1 : 0)) * cellSize - startX) / endX;
+        double nextY = endY == 0 ? Double.POSITIVE_INFINITY
+                : (originY + (y + (endY > 0 ? 1 : 0)) * cellSize - startY) / endY;
+        while (true) {
+            int cell = y * columns + x;
+            for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                int i = cellItems[k];
+                if (rayOverlaps(i, startX, startY, endX, endY, maxT)) {
+                    maxT = visitor.visit(i, maxT);
+                }
+            }
+            double cellExit = Math.min(nextX, nextY);
+            if (maxT <= cellExit) {
+                return maxT;
+            }
+            if (nextX < nextY) {
+                x += stepX;
+                nextX += deltaX;
+                if (x < 0 || x >= columns) return maxT;
+            } else {
+                y += stepY;
+                nextY += deltaY;
+                if (y < 0 || y >= rows) return maxT;
+            }
+        }
+    }
+
+    private boolean rayOverlaps(int i, double startX, double startY, double endX, double endY, double maxT) {
+        double near = 0;
+        double far = maxT;
+        if (endX == 0) {
+            if (startX < minX[i] || startX > maxX[i]) return false;
+        } else {
+            double t0 = (minX[i] - startX) / endX;
+            double t1 = (maxX[i] - startX) / endX;
+            near = Math.max(near, Math.min(t0, t1));
+            far = Math.min(far, Math.max(t0, t1));
+        }
+        if (endY == 0) {
+            if (startY < minY[i] || startY > maxY[i]) return false;
+        } else {
+            double t0 = (minY[i] - startY) / endY;
+            double t1 = (maxY[i] - startY) / endY;
+            near = Math.max(near, Math.min(t0, t1));
+            far = Math.min(far, Math.max(t0, t1));
+        }
+        return near <= far;
+    }
+
+    private boolean overlaps(int i, double queryMinX, double queryMinY, double queryMaxX, double queryMaxY) {
+        return minX[i] <= queryMaxX && maxX[i] >= queryMinX && minY[i] <= queryMaxY && maxY[i] >= queryMinY;
+    }
+}
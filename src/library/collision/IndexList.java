@@ -0,0 +1,73 @@
+package library.collision;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive int indices, used to return query results without boxing or allocating per query.
+ * Each thread running queries should own its own list.
+ */
+public class IndexList {
+    private int[] indices;
+    private int size;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity Initial capacity.
+     */
+    public IndexList(int capacity) {
+        indices = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Default constructor.
+     */
+    public IndexList() {
+        this(16);
+    }
+
+    /**
+     * Appends an index.
+     *
+     * @param index Index to append.
+     */
+    public void add(int index) {
+        if (size == indices.length) {
+            indices = Arrays.copyOf(indices, size * 2);
+        }
+        indices[size++] = index;
+    }
+
+    /**
+     * Gets the index at a position in the list.
+     *
+     * @param i Position in the list.
+     * @return The index stored at that position.
+     */
+    public int get(int i) {
+        return indices[i];
+    }
+
+    /**
+     * Getter for the number of indices in the list.
+     *
+     * @return List size.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all indices, keeping the capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the indices in ascending order.
+     */
+    public void sort() {
+        Arrays.sort(indices, 0, size);
+    }
+}
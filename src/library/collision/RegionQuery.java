@@ -0,0 +1,102 @@
+package library.collision;
+
+import library.dynamics.Body;
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.math.Matrix2D;
+import library.math.Vectors2D;
+
+/**
+ * Allocation free overlap tests between bodies and circular regions, used by region queries such as
+ * {@link library.dynamics.World#queryCircle}. Distances are compared squared so no square roots are taken. All methods
+ * are stateless and safe to call from several threads.
+ */
+public final class RegionQuery {
+    private RegionQuery() {
+    }
+
+    /**
+     * Checks whether a circle overlaps a body's world space AABB.
+     *
+     * @param b      Body to test.
+     * @param x      x position of the circle's centre.
+     * @param y      y position of the circle's centre.
+     * @param radius Radius of the circle.
+     * @return Whether the circle touches the body's AABB.
+     */
+    public static boolean overlapsAABB(Body b, double x, double y, double radius) {
+        return boxDistanceSquared(x, y, b.position.x + b.aabb.getMin().x, b.position.y + b.aabb.getMin().y,
+                b.position.x + b.aabb.getMax().x, b.position.y + b.aabb.getMax().y) <= radius * radius;
+    }
+
+    /**
+     * Squared distance from a point to an axis aligned box, zero if the point is inside.
+     *
+     * @param x    x position of the point.
+     * @param y    y position of the point.
+     * @param minX Lower x bound of the box.
+     * @param minY Lower y bound of the box.
+     * @param maxX Upper x bound of the box.
+     * @param maxY Upper y bound of the box.
+     * @return Squared distance.
+     */
+    public static double boxDistanceSquared(double x, double y, double minX, double minY, double maxX, double maxY) {
+        double dx = x < minX ? minX - x : x > maxX ? x - maxX : 0;
+        double dy = y < minY ? minY - y : y > maxY ? y - maxY : 0;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Checks whether a circle overlaps a body's shape. The AABB is tested first.
+     *
+     * @param b      Body to test.
+     * @param x      x position of the circle's centre.
+     * @param y      y position of the circle's centre.
+     * @param radius Radius of the circle.
+     * @return Whether the circle touches the body's shape.
+     */
+    public static boolean overlapsCircle(Body b, double x, double y, double radius) {
+        if (!overlapsAABB(b, x, y, radius)) {
+            return false;
+        }
+        double dx = x - b.position.x;
+        double dy = y - b.position.y;
+        if (b.shape instanceof Circle) {
+            double reach = radius + ((Circle) b.shape).radius;
+            return dx * dx + dy * dy <= reach * reach;
+        } else if (b.shape instanceof Polygon) {
+            Polygon poly = (Polygon) b.shape;
+            Matrix2D u = poly.orient;
+            //Moves the centre into the polygon's space rather than moving every vertex into world space
+            double px = u.row1.x * dx + u.row2.x * dy;
+            double py = u.row1.y * dx + u.row2.y * dy;
+            return polygonDistanceSquared(poly.vertices, px, py) <= radius * radius;
+        }
+        return true;
+    }
+
+    /**
+     * Squared distance from a point to an anticlockwise convex polygon, zero if the point is inside.
+     */
+    private static double polygonDistanceSquared(Vectors2D[] vertices, double px, double py) {
+        boolean inside = true;
+        double min = Double.MAX_VALUE;
+        Vectors2D a = vertices[vertices.length - 1];
+        for (Vectors2D b : vertices) {
+            double ex = b.x - a.x;
+            double ey = b.y - a.y;
+            double wx = px - a.x;
+            double wy = py - a.y;
+            if (ex * wy - ey * wx < 0) {
+                inside = false;
+            }
+            double lengthSquared = ex * ex + ey * ey;
+            double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (wx * ex + wy * ey) / lengthSquared));
+            double cx = wx - ex * t;
+            double cy = wy - ey * t;
+            min = Math.min(min, cx * cx + cy * cy);
+            a = b;
+        }
+        return inside ? 0 : min;
+    }
+}
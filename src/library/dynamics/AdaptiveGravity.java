@@ -0,0 +1,70 @@
+package library.dynamics;
+
+import java.util.List;
+
+/**
+ * Picks between exact {@link DirectGravity} and approximate {@link BarnesHutGravity} each call based on the number of
+ * bodies. Direct summation is exact and cheaper below a few thousand bodies; above that the tree's O(n log n) cost
+ * wins. This is the default solver of a {@link World}.
+ */
+public class AdaptiveGravity implements GravitySolver {
+    private final DirectGravity direct;
+    private final BarnesHutGravity tree;
+    private int crossover;
+
+    /**
+     * Constructor.
+     *
+     * @param direct    Solver used below the crossover.
+     * @param tree      Solver used at or above the crossover.
+     * @param crossover Body count from which the tree solver is used.
+     */
+    public AdaptiveGravity(DirectGravity direct, BarnesHutGravity tree, int crossover) {
+        this.direct = direct;
+        this.tree = tree;
+        setCrossover(crossover);
+    }
+
+    /**
+     * Default constructor switching to a parallel tree with an opening angle of 0.5 from 3072 bodies.
+     */
+    public AdaptiveGravity() {
+        this(new DirectGravity(), new BarnesHutGravity(0.5, true), 3072);
+    }
+
+    /**
+     * Sets the body count from which the tree solver is used.
+     *
+     * @param crossover Body count, zero to always use the tree.
+     */
+    public void setCrossover(int crossover) {
+        if (crossover < 0) {
+            throw new IllegalArgumentException("Crossover must not be negative: " + crossover);
+        }
+        this.crossover = crossover;
+    }
+
+    /**
+     * Getter for the crossover body count.
+     *
+     * @return Body count from which the tree solver is used.
+     */
+    public int getCrossover() {
+        return crossover;
+    }
+
+    /**
+     * Gets the solver that would be used for a number of bodies.
+     *
+     * @param bodyCount Number of bodies.
+     * @return The direct or tree solver.
+     */
+    public GravitySolver select(int bodyCount) {
+        return bodyCount < crossover ? direct : tree;
+    }
+
+    @Override
+    public void applyGravity(List<Body> bodies) {
+        select(bodies.size()).applyGravity(bodies);
+    }
+}
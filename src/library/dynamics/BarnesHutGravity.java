@@ -0,0 +1,320 @@
+package library.dynamics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Barnes-Hut approximation of mutual gravity in O(n log n).
+ * <p>
+ * Bodies are inserted into a quadtree whose nodes store their total mass and centre of mass. When computing the force
+ * on a body, a node of width s at distance d from the body is treated as a single mass if s / d is below the opening
+ * angle theta, otherwise its children are visited. A theta of zero degenerates to exact direct summation.
+ * <p>
+ * The tree is stored in flat primitive arrays that are reused between calls, so steady state use does not allocate.
+ * Traversal can optionally run across threads. Each body's force is summed by a single thread in a fixed order and
+ * forces are applied in body order afterwards, so results do not depend on the number of threads.
+ */
+public class BarnesHutGravity implements GravitySolver {
+    private static final int MAX_DEPTH = 48;
+    private static final int PARALLEL_CHUNK = 256;
+    private static final double SOFTENING = Settings.EPSILON * Settings.EPSILON;
+
+    private double theta;
+    private boolean parallel;
+
+    private int bodyCount;
+    private Body[] bodies = new Body[0];
+    private double[] px = new double[0];
+    private double[] py = new double[0];
+    private double[] mass = new double[0];
+    private double[] fx = new double[0];
+    private double[] fy = new double[0];
+    private int[] nextBody = new int[0];
+
+    private int nodeCount;
+    private double[] nodeX = new double[0];
+    private double[] nodeY = new double[0];
+    private double[] nodeHalf = new double[0];
+    private double[] nodeMass = new double[0];
+    private double[] nodeComX = new double[0];
+    private double[] nodeComY = new double[0];
+    private int[] firstChild = new int[0];
+    private int[] firstBody = new int[0];
+
+    /**
+     * Constructor.
+     *
+     * @param theta    Opening angle, 0.5 is a common balance of speed and accuracy.
+     * @param parallel Whether to traverse the tree across threads.
+     */
+    public BarnesHutGravity(double theta, boolean parallel) {
+        setTheta(theta);
+        this.parallel = parallel;
+    }
+
+    /**
+     * Default constructor using an opening angle of 0.5 and a single thread.
+     */
+    public BarnesHutGravity() {
+        this(0.5, false);
+    }
+
+    /**
+     * Sets the opening angle. Smaller values are more accurate and slower.
+     *
+     * @param theta Opening angle, zero or greater.
+     */
+    public void setTheta(double theta) {
+        if (!(theta >= 0)) {
+            throw new IllegalArgumentException("Opening angle must not be negative: " + theta);
+        }
+        this.theta = theta;
+    }
+
+    /**
+     * Getter for the opening angle.
+     *
+     * @return Opening angle.
+     */
+    public double getTheta() {
+        return theta;
+    }
+
+    /**
+     * Sets whether the tree is traversed across threads of the common fork join pool.
+     *
+     * @param parallel Whether to traverse in parallel.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Getter for parallel traversal.
+     *
+     * @return Whether the tree is traversed in parallel.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    @Override
+    public void applyGravity(List<Body> bodies) {
+        gather(bodies);
+        if (bodyCount < 2) {
+            return;
+        }
+        build();
+        if (parallel && bodyCount > PARALLEL_CHUNK) {
+            int chunks = (bodyCount + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int[] stack = new int[3 * MAX_DEPTH + 4];
+                int end = Math.min(bodyCount, (c + 1) * PARALLEL_CHUNK);
+                for (int i = c * PARALLEL_CHUNK; i < end; i++) {
+                    computeForce(i, stack);
+                }
+            });
+        } else {
+            int[] stack = new int[3 * MAX_DEPTH + 4];
+            for (int i = 0; i < bodyCount; i++) {
+                computeForce(i, stack);
+            }
+        }
+        for (int i = 0; i < bodyCount; i++) {
+            Body b = this.bodies[i];
+            b.force.x += fx[i];
+            b.force.y += fy[i];
+            this.bodies[i] = null;
+        }
+    }
+
+    /**
+     * Copies the position and mass of every body with mass into the primitive arrays.
+     *
+     * @param list Bodies in the world.
+     */
+    private void gather(List<Body> list) {
+        if (bodies.length < list.size()) {
+            int capacity = Math.max(list.size(), bodies.length * 2);
+            bodies = new Body[capacity];
+            px = new double[capacity];
+            py = new double[capacity];
+            mass = new double[capacity];
+            fx = new double[capacity];
+            fy = new double[capacity];
+            nextBody = new int[capacity];
+        }
+        bodyCount = 0;
+        for (Body b : list) {
+            if (b.mass == 0) {
+                continue;
+            }
+            bodies[bodyCount] = b;
+            px[bodyCount] = b.position.x;
+            py[bodyCount] = b.position.y;
+            mass[bodyCount] = b.mass;
+            bodyCount++;
+        }
+        if (bodyCount < 2) {
+            Arrays.fill(bodies, 0, bodyCount, null);
+        }
+    }
+
+    /**
+     * Builds the quadtree over the gathered bodies and finalises each node's centre of mass.
+     */
+    private void build() {
+        double minX = px[0], maxX = px[0], minY = py[0], maxY = py[0];
+        for (int i = 1; i < bodyCount; i++) {
+            minX = Math.min(minX, px[i]);
+            maxX = Math.max(maxX, px[i]);
+            minY = Math.min(minY, py[i]);
+            maxY = Math.max(maxY, py[i]);
+        }
+        double half = Math.max(maxX - minX, maxY - minY) * 0.5 + Settings.EPSILON;
+        nodeCount = 0;
+        newNode((minX + maxX) * 0.5, (minY + maxY) * 0.5, half * (1 + 1e-9));
+        for (int i = 0; i < bodyCount; i++) {
+            insert(i);
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            if (nodeMass[n] > 0) {
+                nodeComX[n] /= nodeMass[n];
+                nodeComY[n] /= nodeMass[n];
+            }
+        }
+    }
+
+    /**
+     * Inserts a body into the tree. Leaves hold a single body, except at the maximum depth where coincident bodies
+     * share a leaf.
+     *
+     * @param i Index of the body.
+     */
+    private void insert(int i) {
+        int node = 0;
+        int depth = 0;
+        while (true) {
+            accumulate(node, i);
+            if (firstChild[node] >= 0) {
+                node = firstChild[node] + quadrant(node, i);
+                depth++;
+            } else if (firstBody[node] < 0 || depth >= MAX_DEPTH) {
+                nextBody[i] = firstBody[node];
+                firstBody[node] = i;
+                return;
+            } else {
+                int existing = firstBody[node];
+                firstBody[node] = -1;
+                subdivide(node);
+                int child = firstChild[node] + quadrant(node, existing);
+                accumulate(child, existing);
+                nextBody[existing] = -1;
+                firstBody[child] = existing;
+                node = firstChild[node] + quadrant(node, i);
+                depth++;
+            }
+        }
+    }
+
+    private void accumulate(int node, int i) {
+        nodeMass[node] += mass[i];
+        nodeComX[node] += mass[i] * px[i];
+        nodeComY[node] += mass[i] * py[i];
+    }
+
+    private int quadrant(int node, int i) {
+        return (px[i] >= nodeX[node] ? 1 : 0) + (py[i] >= nodeY[node] ? 2 : 0);
+    }
+
+    private void subdivide(int node) {
+        double half = nodeHalf[node] * 0.5;
+        double x = nodeX[node];
+        double y = nodeY[node];
+        firstChild[node] = nodeCount;
+        newNode(x - half, y - half, half);
+        newNode(x + half, y - half, half);
+        newNode(x - half, y + half, half);
+        newNode(x + half, y + half, half);
+    }
+
+    private void newNode(double x, double y, double half) {
+        if (nodeCount == nodeX.length) {
+            int capacity = Math.max(64, nodeCount * 2);
+            nodeX = Arrays.copyOf(nodeX, capacity);
+            nodeY = Arrays.copyOf(nodeY, capacity);
+            nodeHalf = Arrays.copyOf(nodeHalf, capacity);
+            nodeMass = Arrays.copyOf(nodeMass, capacity);
+            nodeComX = Arrays.copyOf(nodeComX, capacity);
+            nodeComY = Arrays.copyOf(nodeComY, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            firstBody = Arrays.copyOf(firstBody, capacity);
+        }
+        nodeX[nodeCount] = x;
+        nodeY[nodeCount] = y;
+        nodeHalf[nodeCount] = half;
+        nodeMass[nodeCount] = 0;
+        nodeComX[nodeCount] = 0;
+        nodeComY[nodeCount] = 0;
+        firstChild[nodeCount] = -1;
+        firstBody[nodeCount] = -1;
+        nodeCount++;
+    }
+
+    /**
+     * Sums the force on a body by walking the tree. Nodes containing the body are always opened so a body never
+     * attracts itself. Pairs are softened the same way as in {@link DirectGravity}, so bodies sharing a leaf at the
+     * maximum depth add zero rather than NaN.
+     *
+     * @param i     Index of the body.
+     * @param stack Scratch stack owned by the calling thread.
+     */
+    private void computeForce(int i, int[] stack) {
+        double x = px[i];
+        double y = py[i];
+        double thetaSq = theta * theta;
+        double sumX = 0;
+        double sumY = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodeMass[node] == 0) {
+                continue;
+            }
+            if (firstChild[node] < 0) {
+                for (int j = firstBody[node]; j >= 0; j = nextBody[j]) {
+                    if (j == i) {
+                        continue;
+                    }
+                    double dx = px[j] - x;
+                    double dy = py[j] - y;
+                    double f = mass[j] / (dx * dx + dy * dy + SOFTENING);
+                    sumX += dx * f;
+                    sumY += dy * f;
+                }
+                continue;
+            }
+            double dx = nodeComX[node] - x;
+            double dy = nodeComY[node] - y;
+            double distanceSq = dx * dx + dy * dy;
+            double half = nodeHalf[node];
+            boolean contains = Math.abs(x - nodeX[node]) <= half && Math.abs(y - nodeY[node]) <= half;
+            if (!contains && 4 * half * half < thetaSq * distanceSq) {
+                double f = nodeMass[node] / distanceSq;
+                sumX += dx * f;
+                sumY += dy * f;
+            } else {
+                int child = firstChild[node];
+                stack[top++] = child + 3;
+                stack[top++] = child + 2;
+                stack[top++] = child + 1;
+                stack[top++] = child;
+            }
+        }
+        double scale = Settings.GRAVITATIONAL_CONSTANT * mass[i];
+        fx[i] = sumX * scale;
+        fy[i] = sumY * scale;
+    }
+}
@@ -34,6 +34,26 @@ public class Body {
     public boolean affectedByGravity;
     public boolean particle;
 
+    /**
+     * Collision filtering. A pair is only tested if each body's category shares a bit with the other's mask. Bodies
+     * with the same non zero group always collide if the group is positive and never collide if it is negative,
+     * regardless of category and mask.
+     */
+    public int collisionCategory;
+    public int collisionMask;
+    public int collisionGroup;
+
+    /**
+     * World the body was added to, told when the body switches between static and dynamic.
+     */
+    /*@ nullable @*/ World world;
+
+    /**
+     * Handle given by the world, and the body's position in the world's static or dynamic partition.
+     */
+    long handle = HandleTable.NULL_HANDLE;
+    int partitionIndex;
+
     /*@ public initially shape != null; @*/
     /*@ public initially aabb != null; @*/
     /*@ public initially angularVelocity == 0; @*/
@@ -49,6 +69,9 @@ public class Body {
     /*@ public initially invI >= 0.0; @*/
     /*@ public initially particle == false; @*/
     /*@ public initially affectedByGravity == true; @*/
+    /*@ public initially collisionCategory == 1; @*/
+    /*@ public initially collisionMask == -1; @*/
+    /*@ public initially collisionGroup == 0; @*/
     /*@ public initially this.shape.body == this; @*/
     /*@ public initially velocity.isZero(); @*/
     /*@ public initially force.isZero(); @*/
@@ -88,8 +111,98 @@ public class Body {
       @   ensures aabb!=null;
       @   ensures !particle;
       @   ensures affectedByGravity;
+      @   ensures collisionCategory == 1;
+      @   ensures collisionMask == -1;
+      @   ensures collisionGroup == 0;
       @*/
     public Body(Shapes shape, double x, double y) {
+        initialise(shape, x, y);
+        this.shape.calcMass(1.0);
+        this.shape.createAABB();
+    }
+
+    /**
+     * Constructor for a body whose shape is already centred on its centre of mass and whose mass properties are
+     * known, so they are not worked out again from the shape.
+     *
+     * @param shape Shape to bind to body, with its vertices relative to its centre of mass.
+     * @param x     Position x in world space.
+     * @param y     Position y in world space.
+     * @param mass  Mass of the body, 0 for a static body.
+     * @param I     Moment of inertia about the centre of mass.
+     */
+    Body(Shapes shape, double x, double y, double mass, double I) {
+        initialise(shape, x, y);
+        this.mass = mass;
+        this.invMass = mass != 0.0 ? 1.0 / mass : 0.0;
+        this.I = I;
+        this.invI = I != 0.0 ? 1.0 / I : 0.0;
+        this.shape.createAABB();
+    }
+
+    /**
+     * Constructor copying a prototype body to a new position. Mass properties, orientation and bounds are taken from
+     * the prototype rather than worked out again from the shape.
+     *
+     * @param prototype Body to copy.
+     * @param shape     Shape of the copy, with the same geometry as the prototype's.
+     * @param x         Position x in world space.
+     * @param y         Position y in world space.
+     */
+    //@skipesc
+    Body(Body prototype, Shapes shape, double x, double y) {
+        this.shape = shape;
+        this.shape.body = this;
+
+        position = new Vectors2D(x, y);
+        velocity = new Vectors2D(0, 0);
+        force = new Vectors2D(0, 0);
+        torque = 0;
+        copyMotionAndMaterial(prototype, 0, 0);
+
+        orientation = prototype.orientation;
+        shape.orient.set(prototype.shape.orient);
+
+        mass = prototype.mass;
+        invMass = prototype.invMass;
+        I = prototype.I;
+        invI = prototype.invI;
+        aabb = prototype.aabb.copy();
+
+        particle = prototype.particle;
+    }
+
+    /**
+     * Copies another body's motion, material and collision filter onto this one, for bodies split from or copied from
+     * it. The velocity is that of the point of the other body at an offset from its centre of mass, so pieces keep
+     * moving with the body they came from.
+     *
+     * @param from Body to copy.
+     * @param rx   x offset of this body's centre of mass from the other's, in world space.
+     * @param ry   y offset of this body's centre of mass from the other's, in world space.
+     */
+    //@skipesc
+    public void copyMotionAndMaterial(Body from, double rx, double ry) {
+        velocity.set(from.velocity.x - from.angularVelocity * ry, from.velocity.y + from.angularVelocity * rx);
+        angularVelocity = from.angularVelocity;
+
+        restitution = from.restitution;
+
+        staticFriction = from.staticFriction;
+        dynamicFriction = from.dynamicFriction;
+
+        linearDampening = from.linearDampening;
+        angularDampening = from.angularDampening;
+
+        affectedByGravity = from.affectedByGravity;
+
+        collisionCategory = from.collisionCategory;
+        collisionMask = from.collisionMask;
+        collisionGroup = from.collisionGroup;
+    }
+
+    //@skipesc
+    private void initialise(Shapes shape, double x, double y) {
         this.shape = shape;
         this.shape.body = this;
 
@@ -113,11 +226,44 @@ public class Body {
         //@ assume !Double.isNaN(orientation);
         shape.orient.set(orientation);
 
-        this.shape.calcMass(1.0);
-        this.shape.createAABB();
-
         particle = false;
         affectedByGravity = true;
+
+        collisionCategory = 1;
+        collisionMask = -1;
+        collisionGroup = 0;
+    }
+
+    /**
+     * Gets the handle the body was given when added to a world. The handle stays valid until the body is removed,
+     * even as other bodies are removed and the world's body list is reordered.
+     *
+     * @return Handle of the body or {@link HandleTable#NULL_HANDLE} if it is not in a world.
+     */
+    /*@ public normal_behavior
+      @   pure
+      @*/
+    public long getHandle() {
+        return handle;
+    }
+
+    /**
+     * Checks the collision filters of two bodies.
+     *
+     * @param a First body.
+     * @param b Second body.
+     * @return Whether the pair passes the group, category and mask filters.
+     */
+    /*@ public normal_behavior
+      @   requires a != null && b != null;
+      @   ensures a.collisionGroup != 0 && a.collisionGroup == b.collisionGroup ==> \result == (a.collisionGroup > 0);
+      @   pure
+      @*/
+    public static boolean shouldCollide(Body a, Body b) {
+        if (a.collisionGroup != 0 && a.collisionGroup == b.collisionGroup) {
+            return a.collisionGroup > 0;
+        }
+        return (a.collisionCategory & b.collisionMask) != 0 && (b.collisionCategory & a.collisionMask) != 0;
     }
 
     /**
@@ -215,7 +361,8 @@ public class Body {
     }
 
     /**
-     * Sets the orientation of the body's shape associated with it and recalculates AABB.
+     * Sets the orientation of the body's shape associated with it and recalculates AABB. Bodies in a deterministic
+     * world are rotated with {@link StrictMath}.
      *
      * @param delta Angle of orientation.
      */
@@ -228,8 +375,31 @@ public class Body {
       @   ensures this.shape.orient.row1 != this.shape.orient.row2;
       @*/
     public void setOrientation(double delta) {
+        setOrientation(delta, world != null && world.isDeterministic());
+    }
+
+    /**
+     * Sets the orientation of the body's shape associated with it and recalculates AABB.
+     *
+     * @param delta  Angle of orientation.
+     * @param strict Whether to use {@link StrictMath}, as a deterministic world does, for example for a body that is
+     *               about to be added to one.
+     */
+    /*@ public normal_behavior
+      @   requires shape.body == this;
+      @   requires !Double.isInfinite(delta);
+      @   requires !Double.isNaN(delta);
+      @   requires this.shape.orient.row1 != this.shape.orient.row2;
+      @   ensures orientation == delta;
+      @   ensures this.shape.orient.row1 != this.shape.orient.row2;
+      @*/
+    public void setOrientation(double delta, boolean strict) {
         orientation = delta;
-        shape.orient.set(orientation);
+        if (strict) {
+            shape.orient.setStrict(orientation);
+        } else {
+            shape.orient.set(orientation);
+        }
         shape.createAABB();
     }
 
@@ -264,6 +434,9 @@ public class Body {
         } else {
             setStatic();
         }
+        if (world != null) {
+            world.bodyTypeChanged(this);
+        }
     }
 
     /**
@@ -0,0 +1,196 @@
+package library.dynamics;
+
+import library.joints.Joint;
+
+import java.util.Arrays;
+
+/**
+ * Queue of world mutations that are applied together at the start of the next {@link World#step(double)}.
+ * <p>
+ * Queuing is safe from any thread and from code running inside a step, such as explosion updates or slicing, where
+ * changing the world's lists directly would disturb the loops iterating them. Commands are applied in the order they
+ * were queued, with the body and joint lists grown once for the whole batch and the static index rebuilt at most once.
+ */
+public class CommandBuffer {
+    private static final byte ADD_BODY = 1;
+    private static final byte REMOVE_BODY = 2;
+    private static final byte REMOVE_BODY_HANDLE = 3;
+    private static final byte SET_TRANSFORM = 4;
+    private static final byte ADD_JOINT = 5;
+    private static final byte REMOVE_JOINT = 6;
+
+    private Batch pending = new Batch();
+    private Batch applying = new Batch();
+
+    /**
+     * Queues a body to be added to the world.
+     *
+     * @param b Body to add.
+     */
+    public synchronized void addBody(Body b) {
+        pending.add(ADD_BODY, b, 0, 0, 0);
+    }
+
+    /**
+     * Queues a body to be removed from the world.
+     *
+     * @param b Body to remove.
+     */
+    public synchronized void removeBody(Body b) {
+        pending.add(REMOVE_BODY, b, 0, 0, 0);
+    }
+
+    /**
+     * Queues a body to be removed from the world by its handle.
+     *
+     * @param handle Handle of the body to remove.
+     */
+    public synchronized void removeBody(long handle) {
+        pending.add(REMOVE_BODY_HANDLE, handle);
+    }
+
+    /**
+     * Queues a body to be moved and rotated.
+     *
+     * @param b           Body to move.
+     * @param x           New x position.
+     * @param y           New y position.
+     * @param orientation New orientation.
+     */
+    public synchronized void setTransform(Body b, double x, double y, double orientation) {
+        pending.add(SET_TRANSFORM, b, x, y, orientation);
+    }
+
+    /**
+     * Queues a joint to be added to the world.
+     *
+     * @param j Joint to add.
+     */
+    public synchronized void addJoint(Joint j) {
+        pending.add(ADD_JOINT, j, 0, 0, 0);
+    }
+
+    /**
+     * Queues a joint to be removed from the world.
+     *
+     * @param j Joint to remove.
+     */
+    public synchronized void removeJoint(Joint j) {
+        pending.add(REMOVE_JOINT, j, 0, 0, 0);
+    }
+
+    /**
+     * Getter for the number of queued commands.
+     *
+     * @return Command count.
+     */
+    public synchronized int size() {
+        return pending.size;
+    }
+
+    /**
+     * Takes the queued commands, leaving the queue empty for commands queued while the batch is applied.
+     *
+     * @return Batch of commands to apply.
+     */
+    private synchronized Batch take() {
+        Batch batch = pending;
+        pending = applying;
+        applying = batch;
+        return batch;
+    }
+
+    /**
+     * Applies every queued command to a world.
+     *
+     * @param world World to apply the commands to.
+     * @return Number of commands applied.
+     */
+    int flush(World world) {
+        Batch batch = take();
+        int count = batch.size;
+        if (count == 0) {
+            return 0;
+        }
+        int dynamicAdded = 0;
+        int staticAdded = 0;
+        int jointsAdded = 0;
+        for (int i = 0; i < count; i++) {
+            if (batch.types[i] == ADD_BODY) {
+                if (((Body) batch.targets[i]).invMass == 0) {
+                    staticAdded++;
+                } else {
+                    dynamicAdded++;
+                }
+            } else if (batch.types[i] == ADD_JOINT) {
+                jointsAdded++;
+            }
+        }
+        world.ensureCapacity(dynamicAdded, staticAdded, jointsAdded);
+
+        for (int i = 0; i < count; i++) {
+            Object target = batch.targets[i];
+            int v = i * 3;
+            switch (batch.types[i]) {
+                case ADD_BODY:
+                    world.addBody((Body) target);
+                    break;
+                case REMOVE_BODY:
+                    world.removeBody((Body) target);
+                    break;
+                case REMOVE_BODY_HANDLE:
+                    world.removeBody(batch.handles[i]);
+                    break;
+                case SET_TRANSFORM:
+                    world.setTransform((Body) target, batch.values[v], batch.values[v + 1], batch.values[v + 2]);
+                    break;
+                case ADD_JOINT:
+                    world.addJoint((Joint) target);
+                    break;
+                case REMOVE_JOINT:
+                    world.removeJoint((Joint) target);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown command type: " + batch.types[i]);
+            }
+        }
+        batch.clear();
+        return count;
+    }
+
+    /**
+     * Commands stored in parallel arrays, three doubles and a handle per command.
+     */
+    private static class Batch {
+        private byte[] types = new byte[16];
+        private Object[] targets = new Object[16];
+        private long[] handles = new long[16];
+        private double[] values = new double[48];
+        private int size;
+
+        void add(byte type, long handle) {
+            add(type, null, 0, 0, 0);
+            handles[size - 1] = handle;
+        }
+
+        void add(byte type, Object target, double a, double b, double c) {
+            if (size == types.length) {
+                types = Arrays.copyOf(types, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+                handles = Arrays.copyOf(handles, size * 2);
+                values = Arrays.copyOf(values, size * 6);
+            }
+            types[size] = type;
+            targets[size] = target;
+            values[size * 3] = a;
+            values[size * 3 + 1] = b;
+            values[size * 3 + 2] = c;
+            size++;
+        }
+
+        void clear() {
+            Arrays.fill(targets, 0, size, null);
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package library.dynamics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Exact direct summation of mutual gravity, suited to scenes too small for a tree to pay off.
+ * <p>
+ * Positions and masses are copied into primitive arrays and split into tiles that fit in cache. Every pair of tiles
+ * is summed once, applying equal and opposite forces, by a tight branch free loop the JIT can vectorise. Tile pairs
+ * are dealt round robin to a fixed number of partitions which run as fork join tasks, each with its own force
+ * accumulators. The accumulators are merged in partition order, so results depend only on the body count and never on
+ * how many threads ran the tasks.
+ */
+public class DirectGravity implements GravitySolver {
+    private static final int TILE = 128;
+    private static final double SOFTENING = Settings.EPSILON * Settings.EPSILON;
+
+    private final int partitions;
+    private boolean parallel;
+
+    private int bodyCount;
+    private Body[] bodies = new Body[0];
+    private double[] px = new double[0];
+    private double[] py = new double[0];
+    private double[] mass = new double[0];
+    private double[][] accX = new double[0][];
+    private double[][] accY = new double[0][];
+    private final List<Partition> tasks = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param partitions Number of partitions the tile pairs are split between, the most threads that can be used.
+     * @param parallel   Whether to run the partitions across threads of the common fork join pool.
+     */
+    public DirectGravity(int partitions, boolean parallel) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Partition count must be positive: " + partitions);
+        }
+        this.partitions = partitions;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Default constructor using 16 partitions run in parallel.
+     */
+    public DirectGravity() {
+        this(16, true);
+    }
+
+    /**
+     * Sets whether the partitions run across threads of the common fork join pool. Results are identical either way.
+     *
+     * @param parallel Whether to run in parallel.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Getter for parallel summation.
+     *
+     * @return Whether the partitions run in parallel.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    @Override
+    public void applyGravity(List<Body> list) {
+        gather(list);
+        if (bodyCount >= 2) {
+            int tiles = (bodyCount + TILE - 1) / TILE;
+            int tilePairs = tiles * (tiles + 1) / 2;
+            int used = Math.min(partitions, tilePairs);
+            ensureAccumulators(used);
+            while (tasks.size() < used) {
+                tasks.add(new Partition(tasks.size()));
+            }
+            for (int p = 0; p < used; p++) {
+                tasks.get(p).prepare(tiles, used);
+            }
+            if (parallel && used > 1) {
+                ForkJoinTask.invokeAll(tasks.subList(0, used));
+            } else {
+                for (int p = 0; p < used; p++) {
+                    tasks.get(p).compute();
+                }
+            }
+            for (int i = 0; i < bodyCount; i++) {
+                double sumX = 0;
+                double sumY = 0;
+                for (int p = 0; p < used; p++) {
+                    sumX += accX[p][i];
+                    sumY += accY[p][i];
+                }
+                double scale = Settings.GRAVITATIONAL_CONSTANT * mass[i];
+                bodies[i].force.x += sumX * scale;
+                bodies[i].force.y += sumY * scale;
+            }
+        }
+        Arrays.fill(bodies, 0, bodyCount, null);
+    }
+
+    /**
+     * Copies the position and mass of every body with mass into the primitive arrays.
+     *
+     * @param list Bodies in the world.
+     */
+    private void gather(List<Body> list) {
+        if (bodies.length < list.size()) {
+            int capacity = Math.max(list.size(), bodies.length * 2);
+            bodies = new Body[capacity];
+            px = new double[capacity];
+            py = new double[capacity];
+            mass = new double[capacity];
+        }
+        bodyCount = 0;
+        for (Body b : list) {
+            if (b.mass == 0) {
+                continue;
+            }
+            bodies[bodyCount] = b;
+            px[bodyCount] = b.position.x;
+            py[bodyCount] = b.position.y;
+            mass[bodyCount] = b.mass;
+            bodyCount++;
+        }
+    }
+
+    private void ensureAccumulators(int used) {
+        if (accX.length < used || (used > 0 && accX[0].length < bodyCount)) {
+            int capacity = Math.max(bodyCount, accX.length > 0 ? accX[0].length : 0);
+            accX = new double[Math.max(used, accX.length)][capacity];
+            accY = new double[accX.length][capacity];
+        }
+    }
+
+    /**
+     * Sums the pairs between two tiles. Accumulated values are missing the gravitational constant and the mass of the
+     * body they belong to, both are applied once when the partitions are merged. The squared distance is softened by
+     * epsilon squared, so coincident bodies add zero rather than NaN without a branch in the loop.
+     */
+    private void sumTiles(int tileA, int tileB, double[] ax, double[] ay) {
+        int startA = tileA * TILE;
+        int endA = Math.min(bodyCount, startA + TILE);
+        int startB = tileB * TILE;
+        int endB = Math.min(bodyCount, startB + TILE);
+        for (int i = startA; i < endA; i++) {
+            double x = px[i];
+            double y = py[i];
+            double m = mass[i];
+            double sumX = 0;
+            double sumY = 0;
+            for (int j = tileA == tileB ? i + 1 : startB; j < endB; j++) {
+                double dx = px[j] - x;
+                double dy = py[j] - y;
+                double inverse = 1 / (dx * dx + dy * dy + SOFTENING);
+                double mj = mass[j] * inverse;
+                double mi = m * inverse;
+                sumX += dx * mj;
+                sumY += dy * mj;
+                ax[j] -= dx * mi;
+                ay[j] -= dy * mi;
+            }
+            ax[i] += sumX;
+            ay[i] += sumY;
+        }
+    }
+
+    /**
+     * Fork join task summing every tile pair dealt to one partition into the partition's own accumulators.
+     */
+    @SuppressWarnings("serial")
+    private class Partition extends RecursiveAction {
+        private final int index;
+        private int tiles;
+        private int stride;
+
+        Partition(int index) {
+            this.index = index;
+        }
+
+        void prepare(int tiles, int stride) {
+            this.tiles = tiles;
+            this.stride = stride;
+            reinitialize();
+        }
+
+        @Override
+        protected void compute() {
+            double[] ax = accX[index];
+            double[] ay = accY[index];
+            Arrays.fill(ax, 0, bodyCount, 0);
+            Arrays.fill(ay, 0, bodyCount, 0);
+            int pair = 0;
+            for (int a = 0; a < tiles; a++) {
+                for (int b = a; b < tiles; b++, pair++) {
+                    if (pair % stride == index) {
+                        sumTiles(a, b, ax, ay);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package library.dynamics;
+
+import library.geometry.Polygon;
+import library.geometry.PolygonGeometry;
+import library.geometry.VertexKey;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Shatters polygon bodies using precomputed {@link FractureTemplate}s.
+ * <p>
+ * Templates are cached by the shape's local geometry, so every body built from the same polygon, such as the bricks
+ * of a wall, shares one template and only the first shatter of each shape pays for the Voronoi construction. Polygons
+ * with shared {@link PolygonGeometry} are looked up by it directly, others by their vertex coordinates.
+ */
+public class Fracture {
+    private final int fragments;
+    private final long seed;
+    private final HashMap<Object, FractureTemplate> templates = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param fragments Number of fragments each shape is shattered into.
+     * @param seed      Seed of the fragment patterns.
+     */
+    public Fracture(int fragments, long seed) {
+        if (fragments <= 0) {
+            throw new IllegalArgumentException("Fragment count must be positive: " + fragments);
+        }
+        this.fragments = fragments;
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the template for a polygon, building it the first time the polygon's geometry is seen.
+     *
+     * @param prototype Polygon to shatter.
+     * @return Shared template for the polygon's geometry.
+     */
+    public FractureTemplate getTemplate(Polygon prototype) {
+        PolygonGeometry geometry = prototype.getGeometry();
+        Object key = geometry != null ? geometry : VertexKey.of(prototype.vertices);
+        return templates.computeIfAbsent(key, k -> new FractureTemplate(prototype, fragments, seed));
+    }
+
+    /**
+     * Builds the template for a polygon ahead of time, so the first shatter of the shape is as cheap as the rest.
+     *
+     * @param prototype Polygon to prepare.
+     */
+    public void prepare(Polygon prototype) {
+        getTemplate(prototype);
+    }
+
+    /**
+     * Shatters a polygon body, replacing it in the world with its fragments.
+     *
+     * @param b     Body to shatter.
+     * @param world World the body is in.
+     * @return The fragments, or an empty list if the body is not a polygon and was left as it is.
+     */
+    public List<Body> shatter(Body b, World world) {
+        if (!(b.shape instanceof Polygon)) {
+            return List.of();
+        }
+        return getTemplate((Polygon) b.shape).shatter(b, world);
+    }
+
+    /**
+     * Getter for the number of shapes with a cached template.
+     *
+     * @return Cached template count.
+     */
+    public int getTemplateCount() {
+        return templates.size();
+    }
+
+    /**
+     * Drops every cached template.
+     */
+    public void clear() {
+        templates.clear();
+    }
+}
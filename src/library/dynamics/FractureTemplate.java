@@ -0,0 +1,271 @@
+package library.dynamics;
+
+import library.geometry.Polygon;
+import library.geometry.PolygonGeometry;
+import library.math.Vectors2D;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A precomputed shatter pattern for one polygon shape.
+ * <p>
+ * The polygon is split into the Voronoi cells of a set of sites scattered inside it, each cell clipped to the polygon.
+ * Everything about the fragments is worked out once, in the polygon's local space: the shared geometry of each, with its
+ * area and moment of inertia per unit density, and where its centre of mass lies in the polygon. Shattering a body with
+ * the template then only transforms the fragments to the body and inserts them, and every fragment shares its
+ * geometry with the same fragment of other shatters.
+ * Templates are immutable and can be shared by every body with the same shape, see {@link Fracture}.
+ */
+public class FractureTemplate {
+    private final PolygonGeometry[] geometries;
+    private final double[] offsetX;
+    private final double[] offsetY;
+    private final double totalArea;
+
+    /**
+     * Builds a template from sites scattered randomly inside the polygon.
+     *
+     * @param prototype Polygon to shatter, its vertices in local space.
+     * @param fragments Number of sites, cells too small to keep are dropped so there may be fewer fragments.
+     * @param seed      Seed of the random site placement, equal seeds give equal templates.
+     */
+    public FractureTemplate(Polygon prototype, int fragments, long seed) {
+        this(prototype, scatterSites(prototype.vertices, fragments, seed));
+    }
+
+    /**
+     * Builds a template from given sites.
+     *
+     * @param prototype Polygon to shatter, its vertices in local space.
+     * @param sites     Voronoi sites in the polygon's local space.
+     */
+    public FractureTemplate(Polygon prototype, Vectors2D[] sites) {
+        if (sites.length == 0) {
+            throw new IllegalArgumentException("A fracture needs at least one site");
+        }
+        Vectors2D[] outline = prototype.vertices;
+        List<double[]> cellsX = new ArrayList<>();
+        List<double[]> cellsY = new ArrayList<>();
+        double[] scratchX = new double[outline.length + sites.length];
+        double[] scratchY = new double[outline.length + sites.length];
+        double[] clippedX = new double[scratchX.length];
+        double[] clippedY = new double[scratchY.length];
+        for (int i = 0; i < sites.length; i++) {
+            int n = outline.length;
+            for (int k = 0; k < n; k++) {
+                scratchX[k] = outline[k].x;
+                scratchY[k] = outline[k].y;
+            }
+            //Keeps the side of each bisector nearest this site
+            for (int j = 0; j < sites.length && n > 2; j++) {
+                if (j == i) {
+                    continue;
+                }
+                double nx = sites[j].x - sites[i].x;
+                double ny = sites[j].y - sites[i].y;
+                if (nx == 0 && ny == 0) {
+                    //Coincident sites, the later one gets no cell
+                    n = j < i ? 0 : n;
+                    continue;
+                }
+                double c = nx * (sites[i].x + sites[j].x) * 0.5 + ny * (sites[i].y + sites[j].y) * 0.5;
+                n = clip(scratchX, scratchY, n, nx, ny, c, clippedX, clippedY);
+                double[] swap = scratchX;
+                scratchX = clippedX;
+                clippedX = swap;
+                swap = scratchY;
+                scratchY = clippedY;
+                clippedY = swap;
+            }
+            if (n > 2 && signedArea(scratchX, scratchY, n) > Settings.EPSILON) {
+                double[] x = new double[n];
+                double[] y = new double[n];
+                System.arraycopy(scratchX, 0, x, 0, n);
+                System.arraycopy(scratchY, 0, y, 0, n);
+                cellsX.add(x);
+                cellsY.add(y);
+            }
+        }
+
+        int count = cellsX.size();
+        geometries = new PolygonGeometry[count];
+        offsetX = new double[count];
+        offsetY = new double[count];
+        double total = 0;
+        for (int f = 0; f < count; f++) {
+            double[] x = cellsX.get(f);
+            double[] y = cellsY.get(f);
+            int n = x.length;
+            double cellArea = signedArea(x, y, n);
+            double cx = 0;
+            double cy = 0;
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                double cross = x[j] * y[i] - x[i] * y[j];
+                cx += (x[j] + x[i]) * cross;
+                cy += (y[j] + y[i]) * cross;
+            }
+            cx /= 6 * cellArea;
+            cy /= 6 * cellArea;
+            Vectors2D[] vertices = new Vectors2D[n];
+            for (int i = 0; i < n; i++) {
+                vertices[i] = new Vectors2D(x[i] - cx, y[i] - cy);
+            }
+            geometries[f] = new PolygonGeometry(vertices);
+            offsetX[f] = cx;
+            offsetY[f] = cy;
+            total += geometries[f].getArea();
+        }
+        totalArea = total;
+    }
+
+    /**
+     * Clips a convex polygon to the half plane nx * x + ny * y &lt;= c.
+     *
+     * @return Number of vertices written to the output arrays.
+     */
+    private static int clip(double[] x, double[] y, int n, double nx, double ny, double c, double[] outX, double[] outY) {
+        int count = 0;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double dj = nx * x[j] + ny * y[j] - c;
+            double di = nx * x[i] + ny * y[i] - c;
+            if ((dj <= 0) != (di <= 0)) {
+                double t = dj / (dj - di);
+                outX[count] = x[j] + (x[i] - x[j]) * t;
+                outY[count] = y[j] + (y[i] - y[j]) * t;
+                count++;
+            }
+            if (di <= 0) {
+                outX[count] = x[i];
+                outY[count] = y[i];
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static double signedArea(double[] x, double[] y, int n) {
+        double sum = 0;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            sum += x[j] * y[i] - x[i] * y[j];
+        }
+        return sum * 0.5;
+    }
+
+    /**
+     * Scatters sites uniformly inside a convex polygon, picking a triangle of its fan by area and a point within it.
+     */
+    private static Vectors2D[] scatterSites(Vectors2D[] vertices, int count, long seed) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Fragment count must be positive: " + count);
+        }
+        int triangles = vertices.length - 2;
+        double[] cumulative = new double[triangles];
+        double sum = 0;
+        for (int t = 0; t < triangles; t++) {
+            Vectors2D b = vertices[t + 1];
+            Vectors2D c = vertices[t + 2];
+            sum += Math.abs((b.x - vertices[0].x) * (c.y - vertices[0].y) - (c.x - vertices[0].x) * (b.y - vertices[0].y));
+            cumulative[t] = sum;
+        }
+        Random random = new Random(seed);
+        Vectors2D[] sites = new Vectors2D[count];
+        for (int i = 0; i < count; i++) {
+            double pick = random.nextDouble() * sum;
+            int t = 0;
+            while (t < triangles - 1 && cumulative[t] < pick) {
+                t++;
+            }
+            double u = random.nextDouble();
+            double v = random.nextDouble();
+            if (u + v > 1) {
+                u = 1 - u;
+                v = 1 - v;
+            }
+            Vectors2D a = vertices[0];
+            Vectors2D b = vertices[t + 1];
+            Vectors2D c = vertices[t + 2];
+            sites[i] = new Vectors2D(a.x + (b.x - a.x) * u + (c.x - a.x) * v, a.y + (b.y - a.y) * u + (c.y - a.y) * v);
+        }
+        return sites;
+    }
+
+    /**
+     * Replaces a body with the fragments of this template. The fragments take the body's position, orientation,
+     * motion, material and collision filter, and share its density, so their masses add up to the body's. The body is
+     * removed and the fragments are added to the world in one batch.
+     *
+     * @param b     Body to shatter, its shape should be the polygon the template was built from.
+     * @param world World the body is in.
+     * @return The fragments.
+     */
+    public List<Body> shatter(Body b, World world) {
+        List<Body> fragments = instantiate(b);
+        world.removeBody(b);
+        world.addBodies(fragments);
+        return fragments;
+    }
+
+    /**
+     * Creates the fragments a body would shatter into without changing any world.
+     *
+     * @param b Body to shatter.
+     * @return The fragments.
+     */
+    public List<Body> instantiate(Body b) {
+        double density = b.invMass == 0.0 ? 0.0 : b.mass / totalArea;
+        double cos = b.shape.orient.row1.x;
+        double sin = b.shape.orient.row2.x;
+        ArrayList<Body> fragments = new ArrayList<>(geometries.length);
+        for (int f = 0; f < geometries.length; f++) {
+            PolygonGeometry geometry = geometries[f];
+            double rx = cos * offsetX[f] - sin * offsetY[f];
+            double ry = sin * offsetX[f] + cos * offsetY[f];
+            Body fragment = new Body(new Polygon(geometry), b.position.x + rx, b.position.y + ry,
+                    density * geometry.getArea(), density * geometry.getInertia());
+            fragment.setOrientation(b.orientation, b.world != null && b.world.isDeterministic());
+            fragment.copyMotionAndMaterial(b, rx, ry);
+            fragments.add(fragment);
+        }
+        return fragments;
+    }
+
+    /**
+     * Getter for the number of fragments.
+     *
+     * @return Fragment count.
+     */
+    public int getFragmentCount() {
+        return geometries.length;
+    }
+
+    /**
+     * Gets where a fragment's centre of mass lies in the shattered polygon's local space.
+     *
+     * @param fragment Fragment index.
+     * @return Offset from the polygon's centre of mass.
+     */
+    public Vectors2D getOffset(int fragment) {
+        return new Vectors2D(offsetX[fragment], offsetY[fragment]);
+    }
+
+    /**
+     * Getter for the area of a fragment.
+     *
+     * @param fragment Fragment index.
+     * @return Area of the fragment.
+     */
+    public double getArea(int fragment) {
+        return geometries[fragment].getArea();
+    }
+
+    /**
+     * Getter for the area of all fragments together, the area of the shattered polygon.
+     *
+     * @return Total area.
+     */
+    public double getTotalArea() {
+        return totalArea;
+    }
+}
@@ -0,0 +1,20 @@
+package library.dynamics;
+
+import java.util.List;
+
+/**
+ * Strategy used by {@link World#gravityBetweenObj()} to apply mutual gravitational forces between bodies.
+ * <p>
+ * Implementations follow the same force law as the world: each pair of bodies attracts with a force of
+ * {@code G * mA * mB / d^2} along the unnormalised vector between their positions, applied to the centre of each body.
+ * Bodies with zero mass neither attract nor are attracted. The squared distance is softened by epsilon squared, so
+ * bodies at the same position exert no force on each other instead of an infinite one.
+ */
+public interface GravitySolver {
+    /**
+     * Adds the gravitational force acting on every body to its force accumulator.
+     *
+     * @param bodies Bodies to apply gravity between.
+     */
+    void applyGravity(List<Body> bodies);
+}
@@ -0,0 +1,283 @@
+package library.dynamics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Hands out stable 64 bit handles for items kept in a dense list and removes items in constant time.
+ * <p>
+ * Removal swaps the last item into the hole, so the dense list stays packed but its order changes. Handles stay valid
+ * across those moves. A handle is a slot number combined with the slot's generation, which is bumped every time the
+ * slot is freed, so handles to removed items are detected as stale even after their slot is reused. Generations are 31
+ * bits wide and freed slots are reused oldest first, so a slot has to be freed two billion times before a stale handle
+ * to it could match again.
+ *
+ * @param <T> Type of item stored.
+ */
+public class HandleTable<T> {
+    /**
+     * Handle value that never refers to an item.
+     */
+    public static final long NULL_HANDLE = -1;
+
+    private static final int SLOT_BITS = 32;
+    private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+    private static final int GENERATION_MASK = Integer.MAX_VALUE;
+
+    private final ArrayList<T> dense;
+    private final ToLongFunction<T> handleOf;
+    private final ObjLongConsumer<T> setHandle;
+    private int[] denseSlot = new int[16];
+    private int[] slotIndex = new int[16];
+    private int[] slotGeneration = new int[16];
+    private int[] freeSlots = new int[16];
+    private int freeHead;
+    private int freeCount;
+    private int slotCount;
+    private int count;
+
+    /**
+     * Constructor.
+     *
+     * @param dense     List the items are stored in.
+     * @param handleOf  Reads the handle stored on an item.
+     * @param setHandle Stores a handle on an item.
+     */
+    public HandleTable(ArrayList<T> dense, ToLongFunction<T> handleOf, ObjLongConsumer<T> setHandle) {
+        this.dense = dense;
+        this.handleOf = handleOf;
+        this.setHandle = setHandle;
+    }
+
+    /**
+     * Appends an item to the dense list and gives it a handle.
+     *
+     * @param item Item to add.
+     * @return Handle of the item.
+     */
+    public long add(T item) {
+        int index = dense.size();
+        dense.add(item);
+        count++;
+        return assign(item, index);
+    }
+
+    /**
+     * Grows the table so that it holds at least the given number of items without reallocating.
+     *
+     * @param capacity Number of items to make room for.
+     */
+    public void ensureCapacity(int capacity) {
+        dense.ensureCapacity(capacity);
+        if (denseSlot.length < capacity) {
+            denseSlot = Arrays.copyOf(denseSlot, capacity);
+        }
+        //Free slots are already counted in slotCount, new slots are only taken once they run out
+        int slots = Math.max(slotCount, capacity);
+        if (slotIndex.length < slots) {
+            slotIndex = Arrays.copyOf(slotIndex, slots);
+            slotGeneration = Arrays.copyOf(slotGeneration, slots);
+        }
+    }
+
+    /**
+     * Gives the item at a position in the dense list a new slot and stores the handle on the item.
+     */
+    private long assign(T item, int index) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[freeHead];
+            freeHead = freeHead + 1 == freeSlots.length ? 0 : freeHead + 1;
+            freeCount--;
+        } else {
+            if (slotCount == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Handle table is full");
+            }
+            slot = slotCount++;
+            if (slot == slotIndex.length) {
+                slotIndex = Arrays.copyOf(slotIndex, slot * 2);
+                slotGeneration = Arrays.copyOf(slotGeneration, slot * 2);
+            }
+        }
+        if (index >= denseSlot.length) {
+            denseSlot = Arrays.copyOf(denseSlot, Math.max(index + 1, denseSlot.length * 2));
+        }
+        denseSlot[index] = slot;
+        slotIndex[slot] = index;
+        long handle = handle(slot);
+        setHandle.accept(item, handle);
+        return handle;
+    }
+
+    private long handle(int slot) {
+        return ((long) slotGeneration[slot] << SLOT_BITS) | slot;
+    }
+
+    /**
+     * Returns a slot to the back of the free queue, invalidating every handle that refers to it. Slots are reused in
+     * the order they were freed, so a slot's generation advances as slowly as possible.
+     */
+    private void release(int slot) {
+        slotIndex[slot] = -1;
+        slotGeneration[slot] = (slotGeneration[slot] + 1) & GENERATION_MASK;
+        if (freeCount == freeSlots.length) {
+            int[] grown = new int[freeCount * 2];
+            int tail = freeSlots.length - freeHead;
+            System.arraycopy(freeSlots, freeHead, grown, 0, tail);
+            System.arraycopy(freeSlots, 0, grown, tail, freeHead);
+            freeSlots = grown;
+            freeHead = 0;
+        }
+        int end = freeHead + freeCount;
+        freeSlots[end < freeSlots.length ? end : end - freeSlots.length] = slot;
+        freeCount++;
+    }
+
+    /**
+     * Gets the position of an item in the dense list.
+     *
+     * @param handle Handle of the item.
+     * @return Index into the dense list, or -1 if the handle is stale.
+     */
+    public int indexOf(long handle) {
+        if (handle < 0 || (handle & SLOT_MASK) >= slotCount) {
+            return -1;
+        }
+        int slot = (int) (handle & SLOT_MASK);
+        if (slotGeneration[slot] != (int) (handle >>> SLOT_BITS)) {
+            return -1;
+        }
+        int index = slotIndex[slot];
+        return index >= 0 && index < dense.size() && denseSlot[index] == slot ? index : -1;
+    }
+
+    /**
+     * Gets the item a handle refers to.
+     *
+     * @param handle Handle of the item.
+     * @return The item, or null if the handle is stale.
+     */
+    public T get(long handle) {
+        int index = indexOf(handle);
+        return index < 0 ? null : dense.get(index);
+    }
+
+    /**
+     * Checks whether a handle refers to an item still in the table.
+     *
+     * @param handle Handle to check.
+     * @return Whether the handle is valid.
+     */
+    public boolean isValid(long handle) {
+        return indexOf(handle) >= 0;
+    }
+
+    /**
+     * Removes the item a handle refers to by moving the last item into its place.
+     *
+     * @param handle Handle of the item.
+     * @return The removed item, or null if the handle was stale.
+     */
+    public T remove(long handle) {
+        int index = indexOf(handle);
+        if (index < 0) {
+            return null;
+        }
+        int slot = denseSlot[index];
+        int last = dense.size() - 1;
+        T item = dense.get(index);
+        if (index != last) {
+            T moved = dense.get(last);
+            int movedSlot = denseSlot[last];
+            dense.set(index, moved);
+            denseSlot[index] = movedSlot;
+            slotIndex[movedSlot] = index;
+        }
+        dense.remove(last);
+        count--;
+        release(slot);
+        setHandle.accept(item, NULL_HANDLE);
+        return item;
+    }
+
+    /**
+     * Removes an item using the handle stored on it.
+     *
+     * @param item Item to remove.
+     * @return Whether the item was in the table.
+     */
+    public boolean remove(T item) {
+        long handle = handleOf.applyAsLong(item);
+        int index = indexOf(handle);
+        if (index < 0 || dense.get(index) != item) {
+            return false;
+        }
+        remove(handle);
+        return true;
+    }
+
+    /**
+     * Replaces the item at a position in the dense list, moving the old item's handle to the new one.
+     *
+     * @param index Index into the dense list.
+     * @param item  Replacement item.
+     * @return The replaced item.
+     */
+    public T set(int index, T item) {
+        T old = dense.set(index, item);
+        setHandle.accept(item, handleOf.applyAsLong(old));
+        setHandle.accept(old, NULL_HANDLE);
+        return old;
+    }
+
+    /**
+     * Removes every item and invalidates all handles given out so far.
+     */
+    public void clear() {
+        for (T item : dense) {
+            setHandle.accept(item, NULL_HANDLE);
+        }
+        dense.clear();
+        count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotIndex[slot] >= 0) {
+                release(slot);
+            }
+        }
+    }
+
+    /**
+     * Repairs the table after items were added to or removed from the dense list directly. Does nothing if the list
+     * size matches, use {@link #syncAll()} when items may have been replaced in place.
+     */
+    public void sync() {
+        if (dense.size() != count) {
+            syncAll();
+        }
+    }
+
+    /**
+     * Repairs the table after the dense list was edited directly instead of through this table, checking every slot
+     * even if the list size is unchanged. Items still where the table expects them keep their handles, any others are
+     * given new ones.
+     */
+    public void syncAll() {
+        int size = dense.size();
+        for (int slot = 0; slot < slotCount; slot++) {
+            int index = slotIndex[slot];
+            if (index >= 0 && (index >= size || denseSlot[index] != slot
+                    || handleOf.applyAsLong(dense.get(index)) != handle(slot))) {
+                release(slot);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            T item = dense.get(i);
+            if (indexOf(handleOf.applyAsLong(item)) != i) {
+                assign(item, i);
+            }
+        }
+        count = size;
+    }
+}
@@ -0,0 +1,263 @@
+package library.dynamics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Removes bodies from a world once their lifetime runs out, such as particles and debris.
+ * <p>
+ * Deadlines are kept in a hierarchical timing wheel: four levels of 64 slots, where each level's slots span 64 times as
+ * many ticks as the level below. A body is filed in the slot its deadline falls in at the lowest level whose span
+ * reaches it, and slots of the higher levels are redistributed to the lower ones as time reaches them. Scheduling and
+ * cancelling are constant time, and advancing only touches the slots time passes through and the bodies in them, so
+ * expiring N bodies costs O(N) no matter how many others are waiting. Expired bodies are removed from the world
+ * together at the end of {@link #advance}. Tickets carry a 31 bit generation and freed entries are reused oldest first,
+ * so a stale ticket never cancels a later body's lifetime in practice.
+ */
+public class LifetimeManager {
+    /**
+     * Ticket value that never refers to a scheduled body.
+     */
+    public static final long NULL_TICKET = -1;
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final int ENTRY_BITS = 32;
+    private static final long ENTRY_MASK = (1L << ENTRY_BITS) - 1;
+    private static final int GENERATION_MASK = Integer.MAX_VALUE;
+
+    private final double tickLength;
+    private double time;
+    private long now;
+
+    private final int[] slotHead = new int[LEVELS * SLOTS];
+    private Body[] bodies = new Body[64];
+    private long[] deadline = new long[64];
+    private int[] next = new int[64];
+    private int[] previous = new int[64];
+    private int[] slotOf = new int[64];
+    private int[] generation = new int[64];
+    private int[] freeEntries = new int[64];
+    private int freeHead;
+    private int freeCount;
+    private int entryCount;
+    private int size;
+
+    private final ArrayList<Body> expired = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param tickLength Resolution of lifetimes in seconds, lifetimes are rounded up to whole ticks.
+     */
+    public LifetimeManager(double tickLength) {
+        if (!(tickLength > 0)) {
+            throw new IllegalArgumentException("Tick length must be positive: " + tickLength);
+        }
+        this.tickLength = tickLength;
+        Arrays.fill(slotHead, -1);
+    }
+
+    /**
+     * Constructor with one tick per step of the default timestep.
+     */
+    public LifetimeManager() {
+        this(1.0 / Settings.HERTZ);
+    }
+
+    /**
+     * Schedules a body to be removed once a lifetime has passed.
+     *
+     * @param b        Body to remove.
+     * @param lifetime Time in seconds from now, at least one tick is used.
+     * @return Ticket that can cancel the removal.
+     */
+    public long schedule(Body b, double lifetime) {
+        long ticks = Math.max(1, (long) Math.ceil((time + lifetime) / tickLength) - now);
+        int entry;
+        if (freeCount > 0) {
+            entry = freeEntries[freeHead];
+            freeHead = freeHead + 1 == freeEntries.length ? 0 : freeHead + 1;
+            freeCount--;
+        } else {
+            if (entryCount == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many scheduled lifetimes");
+            }
+            entry = entryCount++;
+            if (entry == bodies.length) {
+                grow(entry * 2);
+            }
+        }
+        bodies[entry] = b;
+        deadline[entry] = now + ticks;
+        file(entry);
+        size++;
+        return ((long) generation[entry] << ENTRY_BITS) | entry;
+    }
+
+    /**
+     * Cancels a scheduled removal.
+     *
+     * @param ticket Ticket returned by {@link #schedule}.
+     * @return Whether the removal was still pending.
+     */
+    public boolean cancel(long ticket) {
+        if (ticket < 0 || (ticket & ENTRY_MASK) >= entryCount) {
+            return false;
+        }
+        int entry = (int) (ticket & ENTRY_MASK);
+        if (generation[entry] != (int) (ticket >>> ENTRY_BITS) || bodies[entry] == null) {
+            return false;
+        }
+        unlink(entry);
+        release(entry);
+        return true;
+    }
+
+    /**
+     * Advances time, removing every body whose lifetime has run out from the world.
+     *
+     * @param dt    Time passed in seconds.
+     * @param world World to remove expired bodies from.
+     * @return The bodies removed, valid until the next call.
+     */
+    public List<Body> advance(double dt, World world) {
+        expired.clear();
+        time += dt;
+        long target = (long) Math.floor(time / tickLength);
+        while (now < target) {
+            now++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((now & ((1L << (level * SLOT_BITS)) - 1)) == 0) {
+                    cascade(level * SLOTS + (int) ((now >>> (level * SLOT_BITS)) & SLOT_MASK));
+                }
+            }
+            int slot = (int) (now & SLOT_MASK);
+            int entry = slotHead[slot];
+            slotHead[slot] = -1;
+            while (entry >= 0) {
+                int following = next[entry];
+                expired.add(bodies[entry]);
+                release(entry);
+                entry = following;
+            }
+        }
+        if (!expired.isEmpty()) {
+            world.removeBodies(expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Refiles every entry of a higher level slot now that time has reached it.
+     */
+    private void cascade(int slot) {
+        int entry = slotHead[slot];
+        slotHead[slot] = -1;
+        while (entry >= 0) {
+            int following = next[entry];
+            file(entry);
+            entry = following;
+        }
+    }
+
+    /**
+     * Links an entry into the slot of the lowest level whose span reaches its deadline. Deadlines beyond the top level
+     * go in its furthest slot and are refiled when that slot is reached.
+     */
+    private void file(int entry) {
+        long due = deadline[entry];
+        int slot = -1;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = level * SLOT_BITS;
+            if ((due >>> shift) - (now >>> shift) < SLOTS) {
+                slot = level * SLOTS + (int) ((due >>> shift) & SLOT_MASK);
+                break;
+            }
+        }
+        if (slot < 0) {
+            slot = (LEVELS - 1) * SLOTS + (int) (((now >>> ((LEVELS - 1) * SLOT_BITS)) - 1) & SLOT_MASK);
+        }
+        int head = slotHead[slot];
+        next[entry] = head;
+        previous[entry] = -1;
+        if (head >= 0) {
+            previous[head] = entry;
+        }
+        slotHead[slot] = entry;
+        slotOf[entry] = slot;
+    }
+
+    private void unlink(int entry) {
+        if (previous[entry] >= 0) {
+            next[previous[entry]] = next[entry];
+        } else {
+            slotHead[slotOf[entry]] = next[entry];
+        }
+        if (next[entry] >= 0) {
+            previous[next[entry]] = previous[entry];
+        }
+    }
+
+    /**
+     * Frees an entry to the back of the free queue, so entries are reused in the order they were freed.
+     */
+    private void release(int entry) {
+        bodies[entry] = null;
+        generation[entry] = (generation[entry] + 1) & GENERATION_MASK;
+        if (freeCount == freeEntries.length) {
+            int[] grown = new int[freeCount * 2];
+            int tail = freeEntries.length - freeHead;
+            System.arraycopy(freeEntries, freeHead, grown, 0, tail);
+            System.arraycopy(freeEntries, 0, grown, tail, freeHead);
+            freeEntries = grown;
+            freeHead = 0;
+        }
+        int end = freeHead + freeCount;
+        freeEntries[end < freeEntries.length ? end : end - freeEntries.length] = entry;
+        freeCount++;
+        size--;
+    }
+
+    private void grow(int capacity) {
+        bodies = Arrays.copyOf(bodies, capacity);
+        deadline = Arrays.copyOf(deadline, capacity);
+        next = Arrays.copyOf(next, capacity);
+        previous = Arrays.copyOf(previous, capacity);
+        slotOf = Arrays.copyOf(slotOf, capacity);
+        generation = Arrays.copyOf(generation, capacity);
+    }
+
+    /**
+     * Cancels every scheduled removal.
+     */
+    public void clear() {
+        Arrays.fill(slotHead, -1);
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (bodies[entry] != null) {
+                release(entry);
+            }
+        }
+    }
+
+    /**
+     * Getter for the number of bodies waiting to expire.
+     *
+     * @return Scheduled body count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter for the time passed through {@link #advance}.
+     *
+     * @return Time in seconds.
+     */
+    public double getTime() {
+        return time;
+    }
+}
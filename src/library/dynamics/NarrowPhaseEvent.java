@@ -0,0 +1,27 @@
+package library.dynamics;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder event for a single narrow phase pair test that exceeded the configured threshold.
+ * Disabled by default, enable it in the recording settings to find expensive shape pairs.
+ */
+@Name("library.dynamics.SlowNarrowPhase")
+@Label("Slow Narrow Phase Pair")
+@Category({"JPhysics", "Dynamics"})
+@Description("Narrow phase test of a body pair that took longer than the threshold")
+@Enabled(false)
+@Threshold("20 us")
+@StackTrace(false)
+class NarrowPhaseEvent extends Event {
+    static final EventType TYPE = EventType.getEventType(NarrowPhaseEvent.class);
+
+    @Label("Shape A")
+    Class<?> shapeA;
+
+    @Label("Shape B")
+    Class<?> shapeB;
+
+    @Label("Contact Count")
+    int contactCount;
+}
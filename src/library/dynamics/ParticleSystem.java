@@ -0,0 +1,403 @@
+package library.dynamics;
+
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.math.Matrix2D;
+import library.math.Vectors2D;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lightweight particles stored in primitive arrays, for effects with far more particles than bodies the world could
+ * simulate.
+ * <p>
+ * Particles are circles that move ballistically and bounce off the bodies of a world, but never push bodies or each
+ * other. Each step the particles are binned into a uniform grid and every body only tests the particles in the cells
+ * its bounds cover, so the collision cost grows with the particles near bodies rather than particles times bodies.
+ * Particles whose lifetime has run out are removed in one compacting pass at the end of the step, which keeps the
+ * survivors in the order they were emitted.
+ */
+public class ParticleSystem {
+    private static final int PARTICLES_PER_CELL = 4;
+
+    private double[] x = new double[64];
+    private double[] y = new double[64];
+    private double[] velocityX = new double[64];
+    private double[] velocityY = new double[64];
+    private double[] radius = new double[64];
+    private double[] life = new double[64];
+    private int count;
+
+    /**
+     * Bounciness of particle collisions, 1 keeps all normal speed and 0 removes it.
+     */
+    public double restitution = 1;
+
+    /**
+     * Fraction of the world's gravity applied to particles.
+     */
+    public double gravityScale = 0;
+
+    /**
+     * Collision category of every particle, see {@link Body#collisionCategory}.
+     */
+    public int collisionCategory = 1;
+
+    /**
+     * Categories of bodies the particles collide with, see {@link Body#collisionMask}.
+     */
+    public int collisionMask = -1;
+
+    private double gridMinX;
+    private double gridMinY;
+    private double inverseCellSize;
+    private int columns;
+    private int rows;
+    private double maxRadius;
+    private int[] cellStart = new int[1];
+    private int[] cellItems = new int[0];
+
+    /**
+     * Adds a particle.
+     *
+     * @param px       x position.
+     * @param py       y position.
+     * @param vx       x velocity.
+     * @param vy       y velocity.
+     * @param size     Radius of the particle.
+     * @param lifetime Time in seconds before the particle expires.
+     */
+    public void emit(double px, double py, double vx, double vy, double size, double lifetime) {
+        if (count == x.length) {
+            ensureCapacity(count * 2);
+        }
+        x[count] = px;
+        y[count] = py;
+        velocityX[count] = vx;
+        velocityY[count] = vy;
+        radius[count] = size;
+        life[count] = lifetime;
+        count++;
+    }
+
+    /**
+     * Grows the particle arrays so a burst of particles can be emitted without further copying.
+     *
+     * @param capacity Number of particles to hold.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= x.length) {
+            return;
+        }
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        life = Arrays.copyOf(life, capacity);
+    }
+
+    /**
+     * Moves all particles, bounces them off the world's bodies and removes expired ones.
+     *
+     * @param dt    Timestep.
+     * @param world World whose bodies the particles collide with.
+     */
+    public void step(double dt, World world) {
+        Vectors2D gravity = world.getGravity();
+        double gx = gravity.x * gravityScale * dt;
+        double gy = gravity.y * gravityScale * dt;
+        for (int i = 0; i < count; i++) {
+            velocityX[i] += gx;
+            velocityY[i] += gy;
+            x[i] += velocityX[i] * dt;
+            y[i] += velocityY[i] * dt;
+        }
+        if (count > 0 && binParticles()) {
+            collide(world.getDynamicBodies());
+            collide(world.getStaticBodies());
+        }
+        expire(dt);
+    }
+
+    /**
+     * Sorts the particle indices into grid cells sized from the particle count and spread.
+     *
+     * @return False if the particles have no finite bounds.
+     */
+    private boolean binParticles() {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        maxRadius = 0;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+            maxRadius = Math.max(maxRadius, radius[i]);
+        }
+        if (!Double.isFinite(maxX - minX) || !Double.isFinite(maxY - minY)) {
+            return false;
+        }
+        double width = maxX - minX;
+        double height = maxY - minY;
+        double cellSize = Math.max(Math.sqrt(width * height * PARTICLES_PER_CELL / count), 2 * maxRadius);
+        cellSize = Math.max(cellSize, Math.max(width, height) / 1024);
+        if (cellSize <= 0) {
+            cellSize = 1;
+        }
+        inverseCellSize = 1 / cellSize;
+        gridMinX = minX;
+        gridMinY = minY;
+        columns = (int) (width * inverseCellSize) + 1;
+        rows = (int) (height * inverseCellSize) + 1;
+
+        int cells = columns * rows;
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        } else {
+            Arrays.fill(cellStart, 0, cells + 1, 0);
+        }
+        if (cellItems.length < count) {
+            cellItems = new int[Math.max(count, cellItems.length * 2)];
+        }
+        for (int i = 0; i < count; i++) {
+            cellStart[cell(i) + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        //Fills each cell backwards from its end, leaving every cell's start one slot along
+        for (int i = count - 1; i >= 0; i--) {
+            cellItems[--cellStart[cell(i) + 1]] = i;
+        }
+        System.arraycopy(cellStart, 1, cellStart, 0, cells);
+        cellStart[cells] = count;
+        return true;
+    }
+
+    private int cell(int i) {
+        int cx = Math.min((int) ((x[i] - gridMinX) * inverseCellSize), columns - 1);
+        int cy = Math.min((int) ((y[i] - gridMinY) * inverseCellSize), rows - 1);
+        return cy * columns + cx;
+    }
+
+    /**
+     * Tests every body against the particles binned in the cells its bounds cover, widened by the largest particle.
+     */
+    private void collide(List<Body> bodies) {
+        double margin = maxRadius;
+        for (Body b : bodies) {
+            if ((collisionMask & b.collisionCategory) == 0 || (b.collisionMask & collisionCategory) == 0) {
+                continue;
+            }
+            double bMinX = b.position.x + b.aabb.getMin().x - margin;
+            double bMinY = b.position.y + b.aabb.getMin().y - margin;
+            double bMaxX = b.position.x + b.aabb.getMax().x + margin;
+            double bMaxY = b.position.y + b.aabb.getMax().y + margin;
+            int x0 = Math.max(0, (int) Math.floor((bMinX - gridMinX) * inverseCellSize));
+            int y0 = Math.max(0, (int) Math.floor((bMinY - gridMinY) * inverseCellSize));
+            int x1 = Math.min(columns - 1, (int) Math.floor((bMaxX - gridMinX) * inverseCellSize));
+            int y1 = Math.min(rows - 1, (int) Math.floor((bMaxY - gridMinY) * inverseCellSize));
+            if (x0 > x1 || y0 > y1) {
+                continue;
+            }
+            if (b.shape instanceof Circle) {
+                double r = ((Circle) b.shape).radius;
+                for (int cy = y0; cy <= y1; cy++) {
+                    for (int k = cellStart[cy * columns + x0]; k < cellStart[cy * columns + x1 + 1]; k++) {
+                        collideCircle(cellItems[k], b, r);
+                    }
+                }
+            } else if (b.shape instanceof Polygon) {
+                Polygon poly = (Polygon) b.shape;
+                for (int cy = y0; cy <= y1; cy++) {
+                    for (int k = cellStart[cy * columns + x0]; k < cellStart[cy * columns + x1 + 1]; k++) {
+                        collidePolygon(cellItems[k], b, poly);
+                    }
+                }
+            }
+        }
+    }
+
+    private void collideCircle(int i, Body b, double r) {
+        double dx = x[i] - b.position.x;
+        double dy = y[i] - b.position.y;
+        double reach = r + radius[i];
+        double distanceSquared = dx * dx + dy * dy;
+        if (distanceSquared >= reach * reach) {
+            return;
+        }
+        double d = Math.sqrt(distanceSquared);
+        double nx = d == 0 ? 0 : dx / d;
+        double ny = d == 0 ? 1 : dy / d;
+        resolve(i, b, nx, ny, reach - d);
+    }
+
+    private void collidePolygon(int i, Body b, Polygon poly) {
+        Matrix2D u = poly.orient;
+        double dx = x[i] - b.position.x;
+        double dy = y[i] - b.position.y;
+        double px = u.row1.x * dx + u.row2.x * dy;
+        double py = u.row1.y * dx + u.row2.y * dy;
+        double r = radius[i];
+
+        Vectors2D[] vertices = poly.vertices;
+        Vectors2D[] normals = poly.normals;
+        double separation = -Double.MAX_VALUE;
+        int face = 0;
+        for (int f = 0; f < vertices.length; f++) {
+            double s = normals[f].x * (px - vertices[f].x) + normals[f].y * (py - vertices[f].y);
+            if (s > r) {
+                return;
+            }
+            if (s > separation) {
+                separation = s;
+                face = f;
+            }
+        }
+
+        double nx, ny, depth;
+        Vectors2D v1 = vertices[face];
+        Vectors2D v2 = vertices[face + 1 == vertices.length ? 0 : face + 1];
+        double ex = v2.x - v1.x;
+        double ey = v2.y - v1.y;
+        double t = ((px - v1.x) * ex + (py - v1.y) * ey) / (ex * ex + ey * ey);
+        if (separation <= 0 || (t >= 0 && t <= 1)) {
+            //Centre inside or facing the edge, pushed out along the face normal
+            nx = normals[face].x;
+            ny = normals[face].y;
+            depth = r - separation;
+        } else {
+            //Closest feature is a vertex of the reference face
+            Vectors2D v = t < 0 ? v1 : v2;
+            double cx = px - v.x;
+            double cy = py - v.y;
+            double distanceSquared = cx * cx + cy * cy;
+            if (distanceSquared >= r * r) {
+                return;
+            }
+            double d = Math.sqrt(distanceSquared);
+            nx = cx / d;
+            ny = cy / d;
+            depth = r - d;
+        }
+        resolve(i, b, u.row1.x * nx + u.row1.y * ny, u.row2.x * nx + u.row2.y * ny, depth);
+    }
+
+    /**
+     * Pushes a particle out of a body along a world space normal and reflects its velocity relative to the body's
+     * surface velocity.
+     */
+    private void resolve(int i, Body b, double nx, double ny, double depth) {
+        x[i] += nx * depth;
+        y[i] += ny * depth;
+        double rx = x[i] - b.position.x;
+        double ry = y[i] - b.position.y;
+        double relativeX = velocityX[i] - (b.velocity.x - b.angularVelocity * ry);
+        double relativeY = velocityY[i] - (b.velocity.y + b.angularVelocity * rx);
+        double normalSpeed = relativeX * nx + relativeY * ny;
+        if (normalSpeed < 0) {
+            double change = (1 + restitution) * normalSpeed;
+            velocityX[i] -= change * nx;
+            velocityY[i] -= change * ny;
+        }
+    }
+
+    /**
+     * Counts down lifetimes and compacts the surviving particles to the front of the arrays.
+     */
+    private void expire(double dt) {
+        int alive = 0;
+        for (int i = 0; i < count; i++) {
+            double remaining = life[i] - dt;
+            if (remaining > 0) {
+                x[alive] = x[i];
+                y[alive] = y[i];
+                velocityX[alive] = velocityX[i];
+                velocityY[alive] = velocityY[i];
+                radius[alive] = radius[i];
+                life[alive] = remaining;
+                alive++;
+            }
+        }
+        count = alive;
+    }
+
+    /**
+     * Removes every particle.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Getter for the number of live particles.
+     *
+     * @return Particle count.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the x position of a particle.
+     *
+     * @param i Index of the particle, indices shift as particles expire.
+     * @return x position.
+     */
+    public double getX(int i) {
+        return x[i];
+    }
+
+    /**
+     * Gets the y position of a particle.
+     *
+     * @param i Index of the particle.
+     * @return y position.
+     */
+    public double getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * Gets the x velocity of a particle.
+     *
+     * @param i Index of the particle.
+     * @return x velocity.
+     */
+    public double getVelocityX(int i) {
+        return velocityX[i];
+    }
+
+    /**
+     * Gets the y velocity of a particle.
+     *
+     * @param i Index of the particle.
+     * @return y velocity.
+     */
+    public double getVelocityY(int i) {
+        return velocityY[i];
+    }
+
+    /**
+     * Gets the radius of a particle.
+     *
+     * @param i Index of the particle.
+     * @return Radius.
+     */
+    public double getRadius(int i) {
+        return radius[i];
+    }
+
+    /**
+     * Gets the time a particle has left before it expires.
+     *
+     * @param i Index of the particle.
+     * @return Remaining lifetime in seconds.
+     */
+    public double getLife(int i) {
+        return life[i];
+    }
+}
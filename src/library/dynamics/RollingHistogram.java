@@ -0,0 +1,134 @@
+package library.dynamics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size window of the most recent samples. Recording is constant time and allocation free, summaries are
+ * computed on demand over the samples currently in the window.
+ */
+public class RollingHistogram {
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    /**
+     * Constructor.
+     *
+     * @param windowSize Number of most recent samples kept.
+     */
+    public RollingHistogram(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        samples = new long[windowSize];
+    }
+
+    /**
+     * Records a sample, overwriting the oldest one once the window is full.
+     *
+     * @param value Sample to record.
+     */
+    public void record(long value) {
+        samples[next] = value;
+        next = next + 1 == samples.length ? 0 : next + 1;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * Removes all samples.
+     */
+    public void clear() {
+        next = 0;
+        count = 0;
+    }
+
+    /**
+     * Getter for the number of samples in the window.
+     *
+     * @return Sample count.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the most recently recorded sample.
+     *
+     * @return Last sample or zero if none have been recorded.
+     */
+    public long getLast() {
+        if (count == 0) return 0;
+        return samples[next == 0 ? samples.length - 1 : next - 1];
+    }
+
+    /**
+     * Gets the mean of the samples in the window.
+     *
+     * @return Mean value or zero if the window is empty.
+     */
+    public double getMean() {
+        if (count == 0) return 0;
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += samples[i];
+        }
+        return sum / count;
+    }
+
+    /**
+     * Gets the largest sample in the window.
+     *
+     * @return Max value or zero if the window is empty.
+     */
+    public long getMax() {
+        long max = count == 0 ? 0 : Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Gets the smallest sample in the window.
+     *
+     * @return Min value or zero if the window is empty.
+     */
+    public long getMin() {
+        long min = count == 0 ? 0 : Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, samples[i]);
+        }
+        return min;
+    }
+
+    /**
+     * Gets the sample at the given percentile of the window using the nearest rank method.
+     *
+     * @param percentile Percentile between 0 and 100.
+     * @return Sample value or zero if the window is empty.
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+
+    /**
+     * Buckets the samples in the window by powers of two. Bucket i counts the samples in [2^(i-1), 2^i), bucket 0
+     * counts samples that are zero or negative.
+     *
+     * @return Array of 64 bucket counts.
+     */
+    public int[] getBuckets() {
+        int[] buckets = new int[64];
+        for (int i = 0; i < count; i++) {
+            long value = samples[i];
+            buckets[value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value)]++;
+        }
+        return buckets;
+    }
+}
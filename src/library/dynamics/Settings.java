@@ -14,6 +14,7 @@ public class Settings {
     public static double HERTZ = 60.0;
     public static final int ITERATIONS = 100;
     public static final double EPSILON = 1E-12;
+    public static final double GRAVITATIONAL_CONSTANT = StrictMath.pow(6.67, -11);
 
     /**
      * Generates a random number within the desired range.
@@ -0,0 +1,39 @@
+package library.dynamics;
+
+/**
+ * The phases of {@link World#step(double)} that can be timed by a {@link StepProfiler}.
+ */
+public enum StepPhase {
+    /**
+     * Queued commands applied and the partitions and static index brought up to date.
+     */
+    COMMANDS,
+    /**
+     * Pair generation and AABB tests, excluding the narrow phase checks nested inside it.
+     */
+    BROAD_PHASE,
+    /**
+     * Contact manifold generation for pairs whose AABBs overlap.
+     */
+    NARROW_PHASE,
+    /**
+     * Gravity, drag and accumulated forces applied to velocities.
+     */
+    APPLY_FORCES,
+    /**
+     * Joint tension.
+     */
+    JOINTS,
+    /**
+     * Sequential impulse iterations over all contacts.
+     */
+    SOLVER,
+    /**
+     * Position and orientation integration.
+     */
+    INTEGRATION,
+    /**
+     * Positional correction of remaining penetration.
+     */
+    PENETRATION_RESOLUTION
+}
@@ -0,0 +1,126 @@
+package library.dynamics;
+
+/**
+ * Optional per phase instrumentation for {@link World#step(double)}. Attach with {@link World#setProfiler(StepProfiler)}.
+ * When no profiler is attached the world skips all timing calls.
+ */
+public class StepProfiler {
+    private final StepStats current = new StepStats();
+    private final StepStats lastStep = new StepStats();
+    private final RollingHistogram[] phaseHistograms;
+    private final RollingHistogram stepHistogram;
+    private long stepStart;
+    private long phaseStart;
+    private long nestedNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param windowSize Number of most recent steps kept in the rolling histograms.
+     */
+    public StepProfiler(int windowSize) {
+        phaseHistograms = new RollingHistogram[StepPhase.values().length];
+        for (int i = 0; i < phaseHistograms.length; i++) {
+            phaseHistograms[i] = new RollingHistogram(windowSize);
+        }
+        stepHistogram = new RollingHistogram(windowSize);
+    }
+
+    /**
+     * Default constructor keeping roughly five seconds of steps at the default hertz.
+     */
+    public StepProfiler() {
+        this(300);
+    }
+
+    /**
+     * Marks the start of a step.
+     */
+    void beginStep() {
+        current.reset();
+        nestedNanos = 0;
+        stepStart = System.nanoTime();
+        phaseStart = stepStart;
+    }
+
+    /**
+     * Marks the end of a phase and the start of the next one. Time recorded through
+     * {@link #recordNestedPhase(StepPhase, long)} since the last mark is excluded.
+     *
+     * @param phase Phase that just ended.
+     */
+    void endPhase(StepPhase phase) {
+        long now = System.nanoTime();
+        current.addPhaseNanos(phase, now - phaseStart - nestedNanos);
+        nestedNanos = 0;
+        phaseStart = now;
+    }
+
+    /**
+     * Records time spent in a phase that runs inside another one, such as the narrow phase inside the broad phase.
+     *
+     * @param phase Nested phase.
+     * @param nanos Time spent in nanoseconds.
+     */
+    void recordNestedPhase(StepPhase phase, long nanos) {
+        current.addPhaseNanos(phase, nanos);
+        nestedNanos += nanos;
+    }
+
+    /**
+     * Marks the end of a step and publishes its stats.
+     *
+     * @param bodyCount       Number of bodies stepped.
+     * @param pairsTested     Number of pairs that reached the AABB test.
+     * @param contactsCreated Number of contact manifolds created.
+     * @param iterationsRun   Number of solver iterations run.
+     */
+    void endStep(int bodyCount, int pairsTested, int contactsCreated, int iterationsRun) {
+        current.setTotalNanos(System.nanoTime() - stepStart);
+        current.setCounters(bodyCount, pairsTested, contactsCreated, iterationsRun);
+        for (StepPhase phase : StepPhase.values()) {
+            phaseHistograms[phase.ordinal()].record(current.getPhaseNanos(phase));
+        }
+        stepHistogram.record(current.getTotalNanos());
+        lastStep.set(current);
+    }
+
+    /**
+     * Gets the stats of the most recently completed step. The returned object is reused and overwritten every step,
+     * use {@link StepStats#copy()} to keep it.
+     *
+     * @return Stats of the last step.
+     */
+    public StepStats getLastStep() {
+        return lastStep;
+    }
+
+    /**
+     * Gets the rolling histogram of a phase's timings.
+     *
+     * @param phase Phase to query.
+     * @return Histogram of nanosecond timings.
+     */
+    public RollingHistogram getHistogram(StepPhase phase) {
+        return phaseHistograms[phase.ordinal()];
+    }
+
+    /**
+     * Gets the rolling histogram of whole step timings.
+     *
+     * @return Histogram of nanosecond timings.
+     */
+    public RollingHistogram getStepHistogram() {
+        return stepHistogram;
+    }
+
+    /**
+     * Clears all histograms.
+     */
+    public void reset() {
+        for (RollingHistogram h : phaseHistograms) {
+            h.clear();
+        }
+        stepHistogram.clear();
+    }
+}
@@ -0,0 +1,135 @@
+package library.dynamics;
+
+/**
+ * Timings and counters gathered for a single call to {@link World#step(double)}.
+ */
+public class StepStats {
+    private final long[] phaseNanos = new long[StepPhase.values().length];
+    private long totalNanos;
+    private int bodyCount;
+    private int pairsTested;
+    private int contactsCreated;
+    private int iterationsRun;
+
+    /**
+     * Clears all timings and counters.
+     */
+    void reset() {
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = 0;
+        }
+        totalNanos = 0;
+        bodyCount = 0;
+        pairsTested = 0;
+        contactsCreated = 0;
+        iterationsRun = 0;
+    }
+
+    void addPhaseNanos(StepPhase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    void setTotalNanos(long nanos) {
+        totalNanos = nanos;
+    }
+
+    void setCounters(int bodyCount, int pairsTested, int contactsCreated, int iterationsRun) {
+        this.bodyCount = bodyCount;
+        this.pairsTested = pairsTested;
+        this.contactsCreated = contactsCreated;
+        this.iterationsRun = iterationsRun;
+    }
+
+    /**
+     * Copies all values of another stats object into this one.
+     *
+     * @param stats Stats to copy.
+     */
+    public void set(StepStats stats) {
+        System.arraycopy(stats.phaseNanos, 0, phaseNanos, 0, phaseNanos.length);
+        totalNanos = stats.totalNanos;
+        bodyCount = stats.bodyCount;
+        pairsTested = stats.pairsTested;
+        contactsCreated = stats.contactsCreated;
+        iterationsRun = stats.iterationsRun;
+    }
+
+    /**
+     * Copy method to return a new stats object that's the same as the current object.
+     *
+     * @return New StepStats holding the same values.
+     */
+    public StepStats copy() {
+        StepStats stats = new StepStats();
+        stats.set(this);
+        return stats;
+    }
+
+    /**
+     * Gets the time spent in a phase.
+     *
+     * @param phase Phase to query.
+     * @return Time spent in nanoseconds.
+     */
+    public long getPhaseNanos(StepPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Getter for the wall time of the whole step.
+     *
+     * @return Time spent in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Getter for the number of bodies in the world during the step.
+     *
+     * @return Body count.
+     */
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    /**
+     * Getter for the number of body pairs that reached the AABB test.
+     *
+     * @return Pair count.
+     */
+    public int getPairsTested() {
+        return pairsTested;
+    }
+
+    /**
+     * Getter for the number of contact manifolds created by the narrow phase.
+     *
+     * @return Contact count.
+     */
+    public int getContactsCreated() {
+        return contactsCreated;
+    }
+
+    /**
+     * Getter for the number of solver iterations run over the contacts.
+     *
+     * @return Iteration count.
+     */
+    public int getIterationsRun() {
+        return iterationsRun;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("StepStats[total=").append(totalNanos).append("ns");
+        for (StepPhase phase : StepPhase.values()) {
+            sb.append(", ").append(phase).append('=').append(phaseNanos[phase.ordinal()]).append("ns");
+        }
+        return sb.append(", bodies=").append(bodyCount)
+                .append(", pairs=").append(pairsTested)
+                .append(", contacts=").append(contactsCreated)
+                .append(", iterations=").append(iterationsRun)
+                .append(']').toString();
+    }
+}
@@ -0,0 +1,238 @@
+package library.dynamics;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a short history of the position and velocity of many bodies, for drawing trails and querying recent motion.
+ * <p>
+ * Every tracked body gets a ring buffer of a fixed number of samples, stored together in primitive arrays, so recording
+ * a sample is constant time and never allocates. When a minimum distance is set, a sample is only kept once the body
+ * has moved that far from the previous one, which spreads a trail's points evenly along its path instead of bunching
+ * them up while the body is slow.
+ */
+public class TrailStore {
+    private final int capacity;
+    private final double minDistanceSquared;
+
+    private Body[] bodies;
+    private int[] head;
+    private int[] count;
+    private double[] x;
+    private double[] y;
+    private double[] velocityX;
+    private double[] velocityY;
+    private int[] freeTracks;
+    private int freeCount;
+    private int trackCount;
+    private int liveCount;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity    Number of samples kept per body.
+     * @param minDistance Distance a body must move from its last sample before another is kept, 0 keeps every sample.
+     */
+    public TrailStore(int capacity, double minDistance) {
+        this(capacity, minDistance, 16);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity      Number of samples kept per body.
+     * @param minDistance   Distance a body must move from its last sample before another is kept, 0 keeps every sample.
+     * @param initialTracks Number of bodies room is made for up front, the store grows past it as needed.
+     */
+    public TrailStore(int capacity, double minDistance, int initialTracks) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (initialTracks <= 0) {
+            throw new IllegalArgumentException("Initial track count must be positive: " + initialTracks);
+        }
+        this.capacity = capacity;
+        this.minDistanceSquared = minDistance * minDistance;
+        bodies = new Body[initialTracks];
+        head = new int[initialTracks];
+        count = new int[initialTracks];
+        freeTracks = new int[initialTracks];
+        x = new double[initialTracks * capacity];
+        y = new double[initialTracks * capacity];
+        velocityX = new double[initialTracks * capacity];
+        velocityY = new double[initialTracks * capacity];
+    }
+
+    /**
+     * Starts recording a body.
+     *
+     * @param b Body to track.
+     * @return Track index of the body, stable until it is untracked.
+     */
+    public int track(Body b) {
+        int track;
+        if (freeCount > 0) {
+            track = freeTracks[--freeCount];
+        } else {
+            track = trackCount++;
+            if (track == bodies.length) {
+                int tracks = track * 2;
+                bodies = Arrays.copyOf(bodies, tracks);
+                head = Arrays.copyOf(head, tracks);
+                count = Arrays.copyOf(count, tracks);
+                x = Arrays.copyOf(x, tracks * capacity);
+                y = Arrays.copyOf(y, tracks * capacity);
+                velocityX = Arrays.copyOf(velocityX, tracks * capacity);
+                velocityY = Arrays.copyOf(velocityY, tracks * capacity);
+            }
+        }
+        bodies[track] = b;
+        head[track] = 0;
+        count[track] = 0;
+        liveCount++;
+        return track;
+    }
+
+    /**
+     * Stops recording a body and frees its track for reuse.
+     *
+     * @param track Track index returned by {@link #track}.
+     */
+    public void untrack(int track) {
+        if (bodies[track] == null) {
+            return;
+        }
+        bodies[track] = null;
+        if (freeCount == freeTracks.length) {
+            freeTracks = Arrays.copyOf(freeTracks, freeCount * 2);
+        }
+        freeTracks[freeCount++] = track;
+        liveCount--;
+    }
+
+    /**
+     * Records a sample of every tracked body.
+     */
+    public void record() {
+        for (int track = 0; track < trackCount; track++) {
+            if (bodies[track] != null) {
+                record(track);
+            }
+        }
+    }
+
+    /**
+     * Records a sample of one tracked body, unless it has not moved the minimum distance since its last sample.
+     *
+     * @param track Track index of the body.
+     */
+    public void record(int track) {
+        Body b = bodies[track];
+        int base = track * capacity;
+        int n = count[track];
+        if (n > 0 && minDistanceSquared > 0) {
+            int last = base + (head[track] == 0 ? capacity - 1 : head[track] - 1);
+            double dx = b.position.x - x[last];
+            double dy = b.position.y - y[last];
+            if (dx * dx + dy * dy < minDistanceSquared) {
+                return;
+            }
+        }
+        int slot = base + head[track];
+        x[slot] = b.position.x;
+        y[slot] = b.position.y;
+        velocityX[slot] = b.velocity.x;
+        velocityY[slot] = b.velocity.y;
+        head[track] = head[track] + 1 == capacity ? 0 : head[track] + 1;
+        if (n < capacity) {
+            count[track] = n + 1;
+        }
+    }
+
+    private int slot(int track, int i) {
+        int index = head[track] - count[track] + i;
+        return track * capacity + (index < 0 ? index + capacity : index);
+    }
+
+    /**
+     * Gets the number of samples held for a body.
+     *
+     * @param track Track index of the body.
+     * @return Sample count, at most the capacity.
+     */
+    public int size(int track) {
+        return count[track];
+    }
+
+    /**
+     * Gets the x position of a sample.
+     *
+     * @param track Track index of the body.
+     * @param i     Sample index, 0 is the oldest and {@code size(track) - 1} the newest.
+     * @return x position.
+     */
+    public double getX(int track, int i) {
+        return x[slot(track, i)];
+    }
+
+    /**
+     * Gets the y position of a sample.
+     *
+     * @param track Track index of the body.
+     * @param i     Sample index, 0 is the oldest.
+     * @return y position.
+     */
+    public double getY(int track, int i) {
+        return y[slot(track, i)];
+    }
+
+    /**
+     * Gets the x velocity of a sample.
+     *
+     * @param track Track index of the body.
+     * @param i     Sample index, 0 is the oldest.
+     * @return x velocity.
+     */
+    public double getVelocityX(int track, int i) {
+        return velocityX[slot(track, i)];
+    }
+
+    /**
+     * Gets the y velocity of a sample.
+     *
+     * @param track Track index of the body.
+     * @param i     Sample index, 0 is the oldest.
+     * @return y velocity.
+     */
+    public double getVelocityY(int track, int i) {
+        return velocityY[slot(track, i)];
+    }
+
+    /**
+     * Gets the body recorded by a track.
+     *
+     * @param track Track index.
+     * @return The body, or null if the track is free.
+     */
+    public Body getBody(int track) {
+        return bodies[track];
+    }
+
+    /**
+     * Getter for the number of bodies tracked.
+     *
+     * @return Tracked body count.
+     */
+    public int getTrackedCount() {
+        return liveCount;
+    }
+
+    /**
+     * Stops tracking every body.
+     */
+    public void clear() {
+        Arrays.fill(bodies, 0, trackCount, null);
+        trackCount = 0;
+        freeCount = 0;
+        liveCount = 0;
+    }
+}
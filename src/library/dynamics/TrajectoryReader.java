@@ -0,0 +1,200 @@
+package library.dynamics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static library.dynamics.TrajectoryRecorder.*;
+
+/**
+ * Replays a file written by {@link TrajectoryRecorder}. Seeking to any step is constant time as every step has the
+ * same stride, segments of the file are mapped on first access.
+ */
+public class TrajectoryReader implements Closeable {
+    private final FileChannel channel;
+    private final int bodyCount;
+    private final int stepStride;
+    private final long stepCount;
+    private final long stepsPerSegment;
+    private final MappedByteBuffer[] segments;
+    private MappedByteBuffer current;
+    private int stepOffset;
+    private long step = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param path File written by a trajectory recorder.
+     * @throws IOException If the file cannot be opened or is not a trajectory recording.
+     */
+    public TrajectoryReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        if (header.getInt(0) != MAGIC) {
+            unmap(header);
+            channel.close();
+            throw new IOException("File is not a trajectory recording: " + path);
+        }
+        int version = header.getInt(4);
+        if (version != VERSION) {
+            unmap(header);
+            channel.close();
+            throw new IOException("Unsupported trajectory recording version: " + version);
+        }
+        bodyCount = header.getInt(8);
+        stepStride = header.getInt(12);
+        stepCount = header.getLong(16);
+        unmap(header);
+        stepsPerSegment = stepsPerSegment(stepStride);
+        segments = new MappedByteBuffer[(int) ((stepCount + stepsPerSegment - 1) / stepsPerSegment)];
+    }
+
+    /**
+     * Getter for the number of bodies in each step.
+     *
+     * @return Body count.
+     */
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    /**
+     * Getter for the number of steps recorded.
+     *
+     * @return Step count.
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Moves the reader to a step.
+     *
+     * @param step Step index between zero and the step count.
+     * @throws IOException If the segment holding the step cannot be mapped.
+     */
+    public void seek(long step) throws IOException {
+        if (step < 0 || step >= stepCount) {
+            throw new IndexOutOfBoundsException("Step " + step + " outside recording of " + stepCount + " steps");
+        }
+        int index = (int) (step / stepsPerSegment);
+        MappedByteBuffer segment = segments[index];
+        if (segment == null) {
+            long offset = HEADER_BYTES + index * stepsPerSegment * stepStride;
+            long length = Math.min(stepsPerSegment, stepCount - index * stepsPerSegment) * stepStride;
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            segments[index] = segment;
+        }
+        current = segment;
+        stepOffset = (int) ((step % stepsPerSegment) * stepStride);
+        this.step = step;
+    }
+
+    /**
+     * Getter for the step the reader is positioned at.
+     *
+     * @return Current step or -1 before the first seek.
+     */
+    public long getStep() {
+        return step;
+    }
+
+    private double get(int body, int field) {
+        return current.getDouble(stepOffset + body * BODY_STRIDE + field * 8);
+    }
+
+    /**
+     * Gets a body's x position at the current step.
+     *
+     * @param body Index of the body in recording order.
+     * @return double value of the x position.
+     */
+    public double getPositionX(int body) {
+        return get(body, 0);
+    }
+
+    /**
+     * Gets a body's y position at the current step.
+     *
+     * @param body Index of the body in recording order.
+     * @return double value of the y position.
+     */
+    public double getPositionY(int body) {
+        return get(body, 1);
+    }
+
+    /**
+     * Gets a body's orientation at the current step.
+     *
+     * @param body Index of the body in recording order.
+     * @return double value of the orientation.
+     */
+    public double getOrientation(int body) {
+        return get(body, 2);
+    }
+
+    /**
+     * Gets a body's x velocity at the current step.
+     *
+     * @param body Index of the body in recording order.
+     * @return double value of the x velocity.
+     */
+    public double getVelocityX(int body) {
+        return get(body, 3);
+    }
+
+    /**
+     * Gets a body's y velocity at the current step.
+     *
+     * @param body Index of the body in recording order.
+     * @return double value of the y velocity.
+     */
+    public double getVelocityY(int body) {
+        return get(body, 4);
+    }
+
+    /**
+     * Gets a body's angular velocity at the current step.
+     *
+     * @param body Index of the body in recording order.
+     * @return double value of the angular velocity.
+     */
+    public double getAngularVelocity(int body) {
+        return get(body, 5);
+    }
+
+    /**
+     * Writes the current step's state into a list of bodies, for example to scrub a replay of the recorded world.
+     * Bodies in a deterministic world are rotated with StrictMath, as they were when recorded.
+     *
+     * @param bodies Bodies in the same order they were recorded.
+     */
+    public void apply(List<Body> bodies) {
+        for (int i = 0; i < bodyCount; i++) {
+            Body b = bodies.get(i);
+            b.position.set(getPositionX(i), getPositionY(i));
+            b.velocity.set(getVelocityX(i), getVelocityY(i));
+            b.angularVelocity = getAngularVelocity(i);
+            b.setOrientation(getOrientation(i));
+        }
+    }
+
+    /**
+     * Unmaps every segment and closes the file, so it can be deleted straight away.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        current = null;
+        for (int i = 0; i < segments.length; i++) {
+            unmap(segments[i]);
+            segments[i] = null;
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,198 @@
+package library.dynamics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Streams the position, orientation and velocity of every body on every step into a memory mapped file.
+ * <p>
+ * The file starts with a fixed header followed by one fixed stride record per step, each holding
+ * {@link #DOUBLES_PER_BODY} doubles per body in body order. Step n therefore starts at
+ * {@code HEADER_BYTES + n * stepStride} and can be read back in constant time with {@link TrajectoryReader}.
+ * The file is mapped in segments of whole steps so nothing is copied onto the heap while recording. The first segment
+ * holds a few steps and each one after it twice as many, up to {@link #SEGMENT_BYTES}, so short recordings stay small.
+ * Closing the recorder trims the file to the steps recorded.
+ */
+public class TrajectoryRecorder implements Closeable {
+    static final int MAGIC = 0x4A505452;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int DOUBLES_PER_BODY = 6;
+    static final int BODY_STRIDE = DOUBLES_PER_BODY * 8;
+    static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+    static final long FIRST_SEGMENT_BYTES = 64L * 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer header;
+    private final int bodyCount;
+    private final int stepStride;
+    private final long stepsPerSegment;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private long segmentSteps;
+    private long stepCount;
+
+    /**
+     * Constructor. Creates or truncates the file at the supplied path.
+     *
+     * @param path      File to record to.
+     * @param bodyCount Number of bodies recorded every step.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    public TrajectoryRecorder(Path path, int bodyCount) throws IOException {
+        if (bodyCount <= 0) {
+            throw new IllegalArgumentException("Body count must be positive: " + bodyCount);
+        }
+        long stride = (long) bodyCount * BODY_STRIDE;
+        if (stride > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many bodies to record in one step: " + bodyCount);
+        }
+        this.bodyCount = bodyCount;
+        this.stepStride = (int) stride;
+        this.stepsPerSegment = stepsPerSegment(stepStride);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, bodyCount);
+        header.putInt(12, stepStride);
+        header.putLong(16, 0);
+    }
+
+    /**
+     * Number of whole steps mapped per segment.
+     *
+     * @param stepStride Bytes per step.
+     * @return Steps per segment, at least one.
+     */
+    static long stepsPerSegment(int stepStride) {
+        return Math.max(1, SEGMENT_BYTES / stepStride);
+    }
+
+    /**
+     * Appends the current state of the bodies as the next step.
+     *
+     * @param bodies Bodies to record, in the same order every step.
+     * @throws IOException If the next segment of the file cannot be mapped.
+     */
+    public void record(List<Body> bodies) throws IOException {
+        if (header == null) {
+            throw new IllegalStateException("Recorder is closed");
+        }
+        if (bodies.size() != bodyCount) {
+            throw new IllegalStateException("Recorder expects " + bodyCount + " bodies but was given " + bodies.size());
+        }
+        if (stepCount == segmentStart + segmentSteps) {
+            long steps = segment == null ? Math.max(1, Math.min(stepsPerSegment, FIRST_SEGMENT_BYTES / stepStride))
+                    : Math.min(stepsPerSegment, segmentSteps * 2);
+            MappedByteBuffer next = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + stepCount * stepStride, steps * stepStride);
+            if (segment != null) {
+                segment.force();
+                unmap(segment);
+            }
+            segment = next;
+            segmentStart = stepCount;
+            segmentSteps = steps;
+        }
+        int position = (int) ((stepCount - segmentStart) * stepStride);
+        for (int i = 0; i < bodyCount; i++, position += BODY_STRIDE) {
+            Body b = bodies.get(i);
+            segment.putDouble(position, b.position.x);
+            segment.putDouble(position + 8, b.position.y);
+            segment.putDouble(position + 16, b.orientation);
+            segment.putDouble(position + 24, b.velocity.x);
+            segment.putDouble(position + 32, b.velocity.y);
+            segment.putDouble(position + 40, b.angularVelocity);
+        }
+        stepCount++;
+        header.putLong(16, stepCount);
+    }
+
+    /**
+     * Getter for the number of steps recorded so far.
+     *
+     * @return Step count.
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Flushes the recorded steps to disk, unmaps the file and closes it. The file is trimmed to the last recorded step
+     * unless the JDK does not allow the mapping to be released early, in which case it may extend to the end of the
+     * last mapped segment and the step count in the header marks the end of the recording.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (header == null) {
+            return;
+        }
+        if (segment != null) {
+            segment.force();
+        }
+        header.force();
+        boolean unmapped = unmap(segment) & unmap(header);
+        segment = null;
+        header = null;
+        try {
+            if (unmapped) {
+                channel.truncate(HEADER_BYTES + stepCount * stepStride);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            //Mappings are then released when their buffers are garbage collected
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * Releases a mapping straight away instead of when its buffer is garbage collected, so the file can be trimmed or
+     * deleted. The buffer must not be used afterwards.
+     *
+     * @param buffer Mapped buffer or null.
+     * @return Whether the mapping was released, or there was none.
+     */
+    static boolean unmap(MappedByteBuffer buffer) {
+        if (buffer == null) {
+            return true;
+        }
+        if (INVOKE_CLEANER == null) {
+            return false;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+}
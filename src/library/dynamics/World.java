@@ -2,6 +2,13 @@ package library.dynamics;
 
 import library.collision.AABB;
 import library.collision.Arbiter;
+import library.collision.BodyGrid;
+import library.collision.IndexList;
+import library.collision.RegionQuery;
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.geometry.PolygonGeometry;
+import library.geometry.Shapes;
 import library.joints.Joint;
 import library.math.Vectors2D;
 import testbed.ColourSettings;
@@ -10,6 +17,8 @@ import testbed.ColourSettings;
 import java.awt.*;
 import java.awt.geom.Line2D;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Class for creating a world with iterative solver structure.
@@ -42,7 +51,32 @@ public class World {
         this.gravity = gravity;
     }
 
+    /**
+     * Gets gravity.
+     *
+     * @return The strength of gravity in the world.
+     */
+    public Vectors2D getGravity() {
+        return gravity;
+    }
+
     public ArrayList<Body> bodies = new ArrayList<>();
+    private final HandleTable<Body> bodyHandles = new HandleTable<>(bodies, b -> b.handle, (b, handle) -> b.handle = handle);
+
+    /*
+    Static bodies (invMass == 0) are kept apart from dynamic ones so the per step loops only visit dynamic bodies, and
+    are indexed in a grid that dynamic bodies query during the broad phase. The grid is only rebuilt when static bodies
+    are added, removed or change type.
+    */
+    private final ArrayList<Body> dynamicBodies = new ArrayList<>();
+    private final ArrayList<Body> staticBodies = new ArrayList<>();
+    private final List<Body> dynamicBodiesView = Collections.unmodifiableList(dynamicBodies);
+    private final List<Body> staticBodiesView = Collections.unmodifiableList(staticBodies);
+    private final BodyGrid staticIndex = new BodyGrid();
+    private final IndexList staticCandidates = new IndexList();
+    private final IndexList queryCandidates = new IndexList();
+    private boolean partitionsDirty = false;
+    private boolean staticIndexDirty = false;
 
     /**
      * Adds a body to the world
@@ -51,20 +85,327 @@ public class World {
      * @return Returns the newly added body.
      */
     public Body addBody(Body b) {
-        bodies.add(b);
+        bodyHandles.add(b);
+        b.world = this;
+        if (b.invMass == 0) {
+            b.partitionIndex = staticBodies.size();
+            staticBodies.add(b);
+            staticIndexDirty = true;
+        } else {
+            b.partitionIndex = dynamicBodies.size();
+            dynamicBodies.add(b);
+        }
         return b;
     }
 
     /**
-     * Removes a body from the world.
+     * Adds a batch of bodies to the world, growing its lists once for the whole batch.
+     *
+     * @param toAdd Bodies to add.
+     */
+    public void addBodies(List<Body> toAdd) {
+        int staticCount = 0;
+        for (int i = 0; i < toAdd.size(); i++) {
+            if (toAdd.get(i).invMass == 0) {
+                staticCount++;
+            }
+        }
+        ensureCapacity(toAdd.size() - staticCount, staticCount, 0);
+        for (int i = 0; i < toAdd.size(); i++) {
+            addBody(toAdd.get(i));
+        }
+    }
+
+    /**
+     * Grows the body and joint lists, their handle tables and the partitions so that a batch of additions does not
+     * reallocate any of them.
+     *
+     * @param dynamicCount Number of bodies with mass about to be added.
+     * @param staticCount  Number of static bodies about to be added.
+     * @param jointCount   Number of joints about to be added.
+     */
+    void ensureCapacity(int dynamicCount, int staticCount, int jointCount) {
+        bodyHandles.ensureCapacity(bodies.size() + dynamicCount + staticCount);
+        dynamicBodies.ensureCapacity(dynamicBodies.size() + dynamicCount);
+        staticBodies.ensureCapacity(staticBodies.size() + staticCount);
+        jointHandles.ensureCapacity(joints.size() + jointCount);
+    }
+
+    /**
+     * Adds copies of a prototype body at a list of positions. The copies take the prototype's shape, mass, orientation,
+     * motion, material and collision filter, with its mass properties and bounds copied rather than worked out again
+     * for each one. Polygon copies share one geometry. The world's lists are grown once for the whole batch and the
+     * static index, if the prototype is static, is rebuilt once at the next step.
+     *
+     * @param prototype Body to copy, it is not added to the world itself.
+     * @param x         x positions of the copies.
+     * @param y         y positions of the copies.
+     * @param count     Number of copies, read from the start of the position arrays.
+     * @return The added bodies, in the order of their positions.
+     */
+    public List<Body> spawnBodies(Body prototype, double[] x, double[] y, int count) {
+        PolygonGeometry geometry = null;
+        if (prototype.shape instanceof Polygon) {
+            Polygon poly = (Polygon) prototype.shape;
+            geometry = poly.getGeometry() != null ? poly.getGeometry() : new PolygonGeometry(poly.vertices);
+        } else if (!(prototype.shape instanceof Circle)) {
+            throw new IllegalArgumentException("Cannot copy shape " + prototype.shape.getClass().getSimpleName());
+        }
+
+        updatePartitions();
+        if (prototype.invMass == 0) {
+            ensureCapacity(0, count, 0);
+        } else {
+            ensureCapacity(count, 0, 0);
+        }
+        Body source = prototype;
+        if (deterministic) {
+            //Copies take the prototype's rotation matrix, so it is worked out once with StrictMath
+            source = new Body(prototype, copyShape(prototype, geometry), prototype.position.x, prototype.position.y);
+            source.setOrientation(prototype.orientation, true);
+        }
+        ArrayList<Body> spawned = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            spawned.add(addBody(new Body(source, copyShape(prototype, geometry), x[i], y[i])));
+        }
+        return spawned;
+    }
+
+    private static Shapes copyShape(Body prototype, PolygonGeometry geometry) {
+        return geometry != null ? new Polygon(geometry) : new Circle(((Circle) prototype.shape).radius);
+    }
+
+    /**
+     * Removes a body from the world in constant time. The last body in {@link #bodies} takes the removed body's place.
+     * A body added straight to {@link #bodies} has no handle yet, so the handles are brought up to date first.
      *
      * @param b The body to remove from the world.
      */
     public void removeBody(Body b) {
-        bodies.remove(b);
+        if (!bodyHandles.remove(b)) {
+            updatePartitions();
+            if (!bodyHandles.remove(b)) {
+                return;
+            }
+        }
+        b.world = null;
+        int index = b.partitionIndex;
+        if (index < staticBodies.size() && staticBodies.get(index) == b) {
+            removeFromPartition(staticBodies, index);
+            staticIndexDirty = true;
+        } else if (index < dynamicBodies.size() && dynamicBodies.get(index) == b) {
+            removeFromPartition(dynamicBodies, index);
+        } else {
+            partitionsDirty = true;
+        }
+    }
+
+    /**
+     * Removes a body from the world in constant time.
+     *
+     * @param handle Handle of the body to remove.
+     * @return The removed body or null if the handle is stale.
+     */
+    public Body removeBody(long handle) {
+        Body b = bodyHandles.get(handle);
+        if (b != null) {
+            removeBody(b);
+        }
+        return b;
+    }
+
+    /**
+     * Removes a batch of bodies from the world. Each removal is constant time and the static index is rebuilt at most
+     * once, at the next step.
+     *
+     * @param toRemove Bodies to remove, bodies not in the world are ignored.
+     */
+    public void removeBodies(List<Body> toRemove) {
+        for (int i = 0; i < toRemove.size(); i++) {
+            removeBody(toRemove.get(i));
+        }
+    }
+
+    /**
+     * Gets a body by its handle.
+     *
+     * @param handle Handle returned by {@link Body#getHandle()}.
+     * @return The body or null if it has been removed.
+     */
+    public Body getBody(long handle) {
+        return bodyHandles.get(handle);
+    }
+
+    /**
+     * Replaces the body at a position in {@link #bodies}, passing on its handle.
+     *
+     * @param index Position in the body list.
+     * @param b     Replacement body.
+     */
+    void setBody(int index, Body b) {
+        Body old = bodyHandles.set(index, b);
+        old.world = null;
+        b.world = this;
+        partitionsDirty = true;
+    }
+
+    private static void removeFromPartition(ArrayList<Body> partition, int index) {
+        Body last = partition.remove(partition.size() - 1);
+        if (index < partition.size()) {
+            partition.set(index, last);
+            last.partitionIndex = index;
+        }
+    }
+
+    /**
+     * Moves and rotates a body. Moving a static body marks the static index for a rebuild.
+     *
+     * @param b           Body to move.
+     * @param x           New x position.
+     * @param y           New y position.
+     * @param orientation New orientation.
+     */
+    public void setTransform(Body b, double x, double y, double orientation) {
+        b.position.set(x, y);
+        b.setOrientation(orientation, deterministic);
+        if (b.invMass == 0 && b.world == this) {
+            staticIndexDirty = true;
+        }
+    }
+
+    private final CommandBuffer commandBuffer = new CommandBuffer();
+
+    /**
+     * Gets the world's command buffer. Adds, removes and transforms queued on it are applied together at the start of
+     * the next step, so it is safe to use from other threads and from code that runs while the world is iterating its
+     * bodies.
+     *
+     * @return The command buffer.
+     */
+    public CommandBuffer getCommandBuffer() {
+        return commandBuffer;
+    }
+
+    /**
+     * Applies every queued command now rather than waiting for the next step.
+     *
+     * @return Number of commands applied.
+     */
+    public int flushCommands() {
+        return commandBuffer.flush(this);
+    }
+
+    /**
+     * Called by a body in this world when its density switches it between static and dynamic.
+     *
+     * @param b Body that changed.
+     */
+    void bodyTypeChanged(Body b) {
+        partitionsDirty = true;
+    }
+
+    /**
+     * Marks the static and dynamic partitions for a rebuild before the next step. Call this after changing
+     * {@link #bodies} directly, or after moving, rotating or reshaping a static body.
+     */
+    public void invalidatePartitions() {
+        partitionsDirty = true;
+    }
+
+    /**
+     * Brings the partitions and the static index up to date if anything has changed since they were last built.
+     */
+    private void updatePartitions() {
+        if (partitionsDirty || dynamicBodies.size() + staticBodies.size() != bodies.size()) {
+            //A direct edit that kept the list size, such as replacing a body, is only caught by checking every slot
+            if (partitionsDirty) {
+                bodyHandles.syncAll();
+            } else {
+                bodyHandles.sync();
+            }
+            dynamicBodies.clear();
+            staticBodies.clear();
+            for (Body b : bodies) {
+                b.world = this;
+                if (b.invMass == 0) {
+                    b.partitionIndex = staticBodies.size();
+                    staticBodies.add(b);
+                } else {
+                    b.partitionIndex = dynamicBodies.size();
+                    dynamicBodies.add(b);
+                }
+            }
+            partitionsDirty = false;
+            staticIndexDirty = true;
+        }
+        if (staticIndexDirty) {
+            staticIndex.build(staticBodies);
+            staticIndexDirty = false;
+        }
+    }
+
+    /**
+     * Gets the bodies with mass. Removing a body moves the last body of its partition into its place, so the order is
+     * not the order the bodies were added in.
+     *
+     * @return Read only view of the dynamic bodies.
+     */
+    public List<Body> getDynamicBodies() {
+        updatePartitions();
+        return dynamicBodiesView;
+    }
+
+    /**
+     * Gets the static bodies. Removing a body moves the last body of its partition into its place, so the order is not
+     * the order the bodies were added in.
+     *
+     * @return Read only view of the static bodies.
+     */
+    public List<Body> getStaticBodies() {
+        updatePartitions();
+        return staticBodiesView;
+    }
+
+    /**
+     * Gets the spatial index over the static bodies. Indices returned by its queries refer to
+     * {@link #getStaticBodies()}.
+     *
+     * @return Static body index.
+     */
+    public BodyGrid getStaticIndex() {
+        updatePartitions();
+        return staticIndex;
+    }
+
+    /**
+     * Finds every body whose shape overlaps a circle. Static bodies are found through the static index and dynamic
+     * bodies are rejected by their bounds before their shape is tested, with all distances compared squared.
+     *
+     * @param x      x position of the circle's centre.
+     * @param y      y position of the circle's centre.
+     * @param radius Radius of the circle.
+     * @param result List cleared and filled with the overlapping dynamic bodies followed by the static ones, each in
+     *               the order of {@link #getDynamicBodies()} and {@link #getStaticBodies()}.
+     */
+    public void queryCircle(double x, double y, double radius, ArrayList<Body> result) {
+        result.clear();
+        updatePartitions();
+        for (Body b : dynamicBodies) {
+            if (RegionQuery.overlapsCircle(b, x, y, radius)) {
+                result.add(b);
+            }
+        }
+        staticIndex.query(x - radius, y - radius, x + radius, y + radius, queryCandidates);
+        for (int k = 0; k < queryCandidates.size(); k++) {
+            Body b = staticIndex.get(queryCandidates.get(k));
+            if (RegionQuery.overlapsCircle(b, x, y, radius)) {
+                result.add(b);
+            }
+        }
     }
 
     public ArrayList<Joint> joints = new ArrayList<>();
+    private final HandleTable<Joint> jointHandles = new HandleTable<>(joints, Joint::getHandle, Joint::setHandle);
 
     /**
      * Adds a joint to the world.
@@ -73,17 +414,48 @@ public class World {
      * @return Returns the joint added to the world.
      */
     public Joint addJoint(Joint j) {
-        joints.add(j);
+        jointHandles.add(j);
         return j;
     }
 
     /**
-     * Removes a joint from the world.
+     * Removes a joint from the world in constant time. The last joint in {@link #joints} takes the removed joint's
+     * place.
      *
      * @param j The joint to remove from the world.
      */
     public void removeJoint(Joint j) {
-        joints.remove(j);
+        jointHandles.remove(j);
+    }
+
+    /**
+     * Removes a joint from the world in constant time.
+     *
+     * @param handle Handle of the joint to remove.
+     * @return The removed joint or null if the handle is stale.
+     */
+    public Joint removeJoint(long handle) {
+        return jointHandles.remove(handle);
+    }
+
+    /**
+     * Gets a joint by its handle.
+     *
+     * @param handle Handle returned by {@link Joint#getHandle()}.
+     * @return The joint or null if it has been removed.
+     */
+    public Joint getJoint(long handle) {
+        return jointHandles.get(handle);
+    }
+
+    /**
+     * Replaces the joint at a position in {@link #joints}, passing on its handle.
+     *
+     * @param index Position in the joint list.
+     * @param j     Replacement joint.
+     */
+    void setJoint(int index, Joint j) {
+        jointHandles.set(index, j);
     }
 
     public ArrayList<Arbiter> contacts = new ArrayList<>();
@@ -94,9 +466,28 @@ public class World {
      * @param dt Timestep
      */
     public void step(double dt) {
+        WorldStepEvent event = new WorldStepEvent();
+        event.begin();
+        activeProfiler = profiler;
+        if (activeProfiler == null && event.isEnabled()) {
+            if (eventProfiler == null) {
+                eventProfiler = new StepProfiler(1);
+            }
+            activeProfiler = eventProfiler;
+        }
+        timeNarrowPhasePairs = NarrowPhaseEvent.TYPE.isEnabled();
+
+        if (activeProfiler != null) {
+            activeProfiler.beginStep();
+        }
         contacts.clear();
+        commandBuffer.flush(this);
+        jointHandles.sync();
+        updatePartitions();
+        endPhase(StepPhase.COMMANDS);
 
         broadPhaseCheck();
+        endPhase(StepPhase.BROAD_PHASE);
 
         semiImplicit(dt);
 
@@ -104,6 +495,119 @@ public class World {
         for (Arbiter contact : contacts) {
             contact.penetrationResolution();
         }
+        endPhase(StepPhase.PENETRATION_RESOLUTION);
+
+        if (deterministic) {
+            lastStateHash = stateHash();
+        }
+
+        if (activeProfiler != null) {
+            activeProfiler.endStep(bodies.size(), pairsTested, contacts.size(), contacts.isEmpty() ? 0 : Settings.ITERATIONS);
+            if (event.shouldCommit()) {
+                event.set(activeProfiler.getLastStep());
+                event.commit();
+            }
+        }
+    }
+
+    private boolean deterministic = false;
+    private long lastStateHash = 0;
+
+    /**
+     * Switches deterministic lockstep mode on or off. In deterministic mode every step produces bit identical results
+     * given the same starting state and sequence of calls, regardless of platform, JIT state or thread count:
+     * orientations use {@link StrictMath}, including those set through {@link Body#setOrientation(double)} on bodies
+     * in the world, and pairs and contacts are generated and solved in body order. The gravity solvers in this package
+     * merge work split across threads in a fixed order whether or not this mode is on, so their results never depend
+     * on the thread count. A state hash is also recorded after every step.
+     *
+     * @param deterministic Whether to run in deterministic mode.
+     */
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Getter for deterministic mode.
+     *
+     * @return Whether the world runs in deterministic mode.
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Gets the state hash recorded at the end of the last step in deterministic mode. Peers running the same
+     * simulation can compare it to detect desyncs.
+     *
+     * @return Hash of the last step or zero if no deterministic step has run.
+     */
+    public long getLastStateHash() {
+        return lastStateHash;
+    }
+
+    /**
+     * Hashes the position, orientation and velocity bits of every body in body order.
+     *
+     * @return 64 bit hash of the current world state.
+     */
+    public long stateHash() {
+        long hash = 0xcbf29ce484222325L;
+        for (Body b : bodies) {
+            hash = mixHash(hash, b.position.x);
+            hash = mixHash(hash, b.position.y);
+            hash = mixHash(hash, b.orientation);
+            hash = mixHash(hash, b.velocity.x);
+            hash = mixHash(hash, b.velocity.y);
+            hash = mixHash(hash, b.angularVelocity);
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes the bits of a double into a running hash.
+     *
+     * @param hash  Running hash.
+     * @param value Value to mix in.
+     * @return Updated hash.
+     */
+    private static long mixHash(long hash, double value) {
+        long h = (hash ^ Double.doubleToLongBits(value)) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private StepProfiler profiler = null;
+    private StepProfiler eventProfiler = null;
+    private StepProfiler activeProfiler = null;
+    private boolean timeNarrowPhasePairs = false;
+
+    /**
+     * Attaches a profiler that records per phase timings of every step. Pass null to remove it.
+     *
+     * @param profiler Profiler to attach.
+     */
+    public void setProfiler(StepProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Getter for the attached profiler.
+     *
+     * @return The attached profiler or null if profiling is off.
+     */
+    public StepProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Marks the end of a step phase if a profiler is attached or a flight recording is listening for step events.
+     *
+     * @param phase Phase that just ended.
+     */
+    private void endPhase(StepPhase phase) {
+        if (activeProfiler != null) {
+            activeProfiler.endPhase(phase);
+        }
     }
 
     /**
@@ -114,21 +618,23 @@ public class World {
     private void semiImplicit(double dt) {
         //Applies tentative velocities
         applyForces(dt);
+        endPhase(StepPhase.APPLY_FORCES);
 
         solve(dt);
 
         //Integrate positions
-        for (Body b : bodies) {
+        for (Body b : dynamicBodies) {
             if (b.invMass == 0) {
                 continue;
             }
 
             b.position.add(b.velocity.scalar(dt));
-            b.setOrientation(b.orientation + (dt * b.angularVelocity));
+            b.setOrientation(b.orientation + (dt * b.angularVelocity), deterministic);
 
             b.force.set(0, 0);
             b.torque = 0;
         }
+        endPhase(StepPhase.INTEGRATION);
     }
 
     /**
@@ -137,7 +643,7 @@ public class World {
      * @param dt Timestep
      */
     private void applyForces(double dt) {
-        for (Body b : bodies) {
+        for (Body b : dynamicBodies) {
             if (b.invMass == 0) {
                 continue;
             }
@@ -170,6 +676,7 @@ public class World {
                 Joint j : joints) {
             j.applyTension();
         }
+        endPhase(StepPhase.JOINTS);
 
         //Resolve collisions
         for (
@@ -179,6 +686,7 @@ public class World {
                 contact.solve();
             }
         }
+        endPhase(StepPhase.SOLVER);
     }
 
     /**
@@ -193,25 +701,56 @@ public class World {
         b.applyForceToCentre(dragForceVector);
     }
 
+    private int pairsTested = 0;
+
     /**
      * A discrete Broad phase check of collision detection.
      */
     private void broadPhaseCheck() {
-        for (int i = 0; i < bodies.size(); i++) {
-            Body a = bodies.get(i);
+        pairsTested = 0;
+        //Filters of all static bodies together, so bodies no static body can collide with skip the index query
+        int staticCategories = 0;
+        int staticMasks = 0;
+        boolean staticGroups = false;
+        for (int i = 0; i < staticBodies.size(); i++) {
+            Body b = staticBodies.get(i);
+            staticCategories |= b.collisionCategory;
+            staticMasks |= b.collisionMask;
+            staticGroups |= b.collisionGroup > 0;
+        }
+        for (int i = 0; i < dynamicBodies.size(); i++) {
+            Body a = dynamicBodies.get(i);
 
-            for (int x = i + 1; x < bodies.size(); x++) {
-                Body b = bodies.get(x);
+            for (int x = i + 1; x < dynamicBodies.size(); x++) {
+                Body b = dynamicBodies.get(x);
 
-                //Ignores static or particle objects
-                if (a.invMass == 0 && b.invMass == 0 || a.particle && b.particle) {
+                //Ignores static or particle objects and pairs rejected by the collision filters
+                if (a.invMass == 0 && b.invMass == 0 || a.particle && b.particle || !Body.shouldCollide(a, b)) {
                     continue;
                 }
 
+                pairsTested++;
                 if (AABB.AABBOverLap(a, b)) {
                     narrowPhaseCheck(a, b);
                 }
             }
+
+            if (!(staticGroups && a.collisionGroup > 0)
+                    && ((a.collisionCategory & staticMasks) == 0 || (staticCategories & a.collisionMask) == 0)) {
+                continue;
+            }
+
+            //Static bodies come from the index already overlapping and in a fixed order
+            staticIndex.query(a, staticCandidates);
+            for (int k = 0; k < staticCandidates.size(); k++) {
+                Body b = staticIndex.get(staticCandidates.get(k));
+                if (a.particle && b.particle || !Body.shouldCollide(a, b)) {
+                    continue;
+                }
+
+                pairsTested++;
+                narrowPhaseCheck(a, b);
+            }
         }
     }
 
@@ -223,11 +762,29 @@ public class World {
      * @param b
      */
     private void narrowPhaseCheck(Body a, Body b) {
+        long start = activeProfiler != null ? System.nanoTime() : 0;
+        NarrowPhaseEvent event = null;
+        if (timeNarrowPhasePairs) {
+            event = new NarrowPhaseEvent();
+            event.begin();
+        }
         Arbiter contactQuery = new Arbiter(a, b);
         contactQuery.narrowPhase();
         if (contactQuery.contactCount > 0) {
             contacts.add(contactQuery);
         }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.shapeA = a.shape.getClass();
+                event.shapeB = b.shape.getClass();
+                event.contactCount = contactQuery.contactCount;
+                event.commit();
+            }
+        }
+        if (activeProfiler != null) {
+            activeProfiler.recordNestedPhase(StepPhase.NARROW_PHASE, System.nanoTime() - start);
+        }
     }
 
 
@@ -235,28 +792,43 @@ public class World {
      * Clears all objects in the current world
      */
     public void clearWorld() {
-        bodies.clear();
+        for (Body b : bodies) {
+            b.world = null;
+        }
+        bodyHandles.clear();
+        dynamicBodies.clear();
+        staticBodies.clear();
+        staticIndexDirty = true;
         contacts.clear();
-        joints.clear();
+        jointHandles.clear();
+    }
+
+    private GravitySolver gravitySolver = new AdaptiveGravity();
+
+    /**
+     * Sets the solver used by {@link #gravityBetweenObj()}. By default an {@link AdaptiveGravity} picks exact direct
+     * summation or a Barnes-Hut tree based on the number of bodies.
+     *
+     * @param gravitySolver Solver to use.
+     */
+    public void setGravitySolver(GravitySolver gravitySolver) {
+        this.gravitySolver = gravitySolver;
+    }
+
+    /**
+     * Getter for the gravity solver.
+     *
+     * @return The solver used for mutual gravity.
+     */
+    public GravitySolver getGravitySolver() {
+        return gravitySolver;
     }
 
     /**
      * Applies gravitational forces between to objects (force applied to centre of body)
      */
     public void gravityBetweenObj() {
-        for (int a = 0; a < bodies.size(); a++) {
-            Body A = bodies.get(a);
-            for (int b = a + 1; b < bodies.size(); b++) {
-                Body B = bodies.get(b);
-                double distance = A.position.distance(B.position);
-                double force = Math.pow(6.67, -11) * A.mass * B.mass / (distance * distance);
-                Vectors2D direction = new Vectors2D(B.position.x - A.position.x, B.position.y - A.position.y);
-                direction = direction.scalar(force);
-                Vectors2D oppositeDir = new Vectors2D(-direction.x, -direction.y);
-                A.force.addi(direction);
-                B.force.addi(oppositeDir);
-            }
-        }
+        gravitySolver.applyGravity(bodies);
     }
 
     /**
@@ -0,0 +1,441 @@
+package library.dynamics;
+
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.geometry.Shapes;
+import library.joints.Joint;
+import library.joints.JointToBody;
+import library.joints.JointToPoint;
+import library.math.Vectors2D;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * Compact binary snapshots of a world's bodies, shapes, joints and settings.
+ * <p>
+ * A snapshot is written in a single pass into a {@link ByteBuffer}. Restoring into a world that already holds the same
+ * bodies, as is the case when rolling back, overwrites their state in place without allocating. Bodies, shapes and
+ * joints that do not match are rebuilt from the stored vertices and mass data without regenerating hulls.
+ * Contacts are not stored as they are regenerated every step. The step rate the snapshot was written at is stored too,
+ * but is handed back to the caller rather than applied to the global {@link Settings#HERTZ}.
+ */
+public class WorldSnapshot {
+    private static final int MAGIC = 0x4A505753;
+    private static final int VERSION = 2;
+
+    private static final byte CIRCLE = 1;
+    private static final byte POLYGON = 2;
+
+    private static final byte JOINT_TO_BODY = 1;
+    private static final byte JOINT_TO_POINT = 2;
+
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 16 + 4 + 4;
+    private static final int BODY_STATE_BYTES = 22 * 8 + 1 + 3 * 4;
+    private static final int JOINT_BYTES = 1 + 4 + 4 + 16 + 3 * 8 + 1 + 16;
+
+    private static final byte AFFECTED_BY_GRAVITY = 1;
+    private static final byte PARTICLE = 2;
+
+    /**
+     * Calculates the number of bytes a snapshot of the world takes.
+     *
+     * @param world World to measure.
+     * @return Snapshot size in bytes.
+     */
+    public static int sizeOf(World world) {
+        int size = HEADER_BYTES + world.joints.size() * JOINT_BYTES;
+        for (Body b : world.bodies) {
+            size += 1 + BODY_STATE_BYTES;
+            if (b.shape instanceof Circle) {
+                size += 8;
+            } else {
+                size += 4 + ((Polygon) b.shape).vertices.length * 32;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Writes a snapshot of the world into a newly allocated buffer.
+     *
+     * @param world World to snapshot.
+     * @return Flipped buffer holding the snapshot.
+     */
+    public static ByteBuffer write(World world) {
+        ByteBuffer buffer = ByteBuffer.allocate(sizeOf(world));
+        write(world, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Writes a snapshot of the world into the buffer at its current position.
+     *
+     * @param world  World to snapshot.
+     * @param buffer Buffer with at least {@link #sizeOf(World)} bytes remaining.
+     */
+    public static void write(World world, ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putDouble(Settings.HERTZ);
+        buffer.putDouble(world.getGravity().x);
+        buffer.putDouble(world.getGravity().y);
+        buffer.putInt(world.bodies.size());
+        buffer.putInt(world.joints.size());
+
+        for (Body b : world.bodies) {
+            writeShape(b.shape, buffer);
+            writeBodyState(b, buffer);
+        }
+
+        if (world.joints.isEmpty()) {
+            return;
+        }
+        IdentityHashMap<Body, Integer> bodyIndices = new IdentityHashMap<>(world.bodies.size());
+        for (int i = 0; i < world.bodies.size(); i++) {
+            bodyIndices.put(world.bodies.get(i), i);
+        }
+        for (Joint j : world.joints) {
+            writeJoint(j, bodyIndices, buffer);
+        }
+    }
+
+    /**
+     * Reads the step rate stored in a snapshot without moving the buffer's position.
+     *
+     * @param buffer Buffer positioned at the start of a snapshot.
+     * @return Value of {@link Settings#HERTZ} when the snapshot was written.
+     */
+    public static double getHertz(ByteBuffer buffer) {
+        if (buffer.getInt(buffer.position()) != MAGIC) {
+            throw new IllegalArgumentException("Buffer does not hold a world snapshot");
+        }
+        return buffer.getDouble(buffer.position() + 8);
+    }
+
+    /**
+     * Reads a snapshot into a new world. The stored step rate can be read first with {@link #getHertz(ByteBuffer)}.
+     *
+     * @param buffer Buffer positioned at the start of a snapshot.
+     * @return New world holding the snapshot state.
+     */
+    public static World read(ByteBuffer buffer) {
+        World world = new World();
+        restore(buffer, world);
+        return world;
+    }
+
+    /**
+     * Restores a snapshot into an existing world. Bodies are matched by index, bodies whose shape is compatible are
+     * overwritten in place and any others are rebuilt. Surplus bodies are removed. Global settings are left as they
+     * are, it is up to the caller whether to step at the stored rate.
+     *
+     * @param buffer Buffer positioned at the start of a snapshot.
+     * @param world  World to restore into.
+     * @return Value of {@link Settings#HERTZ} when the snapshot was written.
+     */
+    public static double restore(ByteBuffer buffer, World world) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Buffer does not hold a world snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported world snapshot version: " + version);
+        }
+        double hertz = buffer.getDouble();
+        double gravityX = buffer.getDouble();
+        double gravityY = buffer.getDouble();
+        if (world.getGravity().x != gravityX || world.getGravity().y != gravityY) {
+            world.setGravity(new Vectors2D(gravityX, gravityY));
+        }
+        int bodyCount = buffer.getInt();
+        int jointCount = buffer.getInt();
+
+        world.contacts.clear();
+        ArrayList<Body> bodies = world.bodies;
+        bodies.ensureCapacity(bodyCount);
+        for (int i = 0; i < bodyCount; i++) {
+            Body existing = i < bodies.size() ? bodies.get(i) : null;
+            Body b = restoreBody(buffer, existing, world.isDeterministic());
+            if (existing == null) {
+                world.addBody(b);
+            } else if (b != existing) {
+                world.setBody(i, b);
+            }
+        }
+        while (bodies.size() > bodyCount) {
+            world.removeBody(bodies.get(bodies.size() - 1));
+        }
+        world.invalidatePartitions();
+
+        ArrayList<Joint> joints = world.joints;
+        for (int i = 0; i < jointCount; i++) {
+            Joint existing = i < joints.size() ? joints.get(i) : null;
+            Joint j = restoreJoint(buffer, bodies, existing);
+            if (existing == null) {
+                world.addJoint(j);
+            } else if (j != existing) {
+                world.setJoint(i, j);
+            }
+        }
+        while (joints.size() > jointCount) {
+            world.removeJoint(joints.get(joints.size() - 1));
+        }
+        return hertz;
+    }
+
+    private static void writeShape(Shapes shape, ByteBuffer buffer) {
+        if (shape instanceof Circle) {
+            buffer.put(CIRCLE);
+            buffer.putDouble(((Circle) shape).radius);
+        } else {
+            Polygon poly = (Polygon) shape;
+            buffer.put(POLYGON);
+            buffer.putInt(poly.vertices.length);
+            for (Vectors2D v : poly.vertices) {
+                buffer.putDouble(v.x);
+                buffer.putDouble(v.y);
+            }
+            for (Vectors2D n : poly.normals) {
+                buffer.putDouble(n.x);
+                buffer.putDouble(n.y);
+            }
+        }
+    }
+
+    private static void writeBodyState(Body b, ByteBuffer buffer) {
+        buffer.putDouble(b.position.x);
+        buffer.putDouble(b.position.y);
+        buffer.putDouble(b.velocity.x);
+        buffer.putDouble(b.velocity.y);
+        buffer.putDouble(b.force.x);
+        buffer.putDouble(b.force.y);
+        buffer.putDouble(b.angularVelocity);
+        buffer.putDouble(b.torque);
+        buffer.putDouble(b.orientation);
+        buffer.putDouble(b.restitution);
+        buffer.putDouble(b.staticFriction);
+        buffer.putDouble(b.dynamicFriction);
+        buffer.putDouble(b.mass);
+        buffer.putDouble(b.invMass);
+        buffer.putDouble(b.I);
+        buffer.putDouble(b.invI);
+        buffer.putDouble(b.linearDampening);
+        buffer.putDouble(b.angularDampening);
+        buffer.putDouble(b.aabb.getMin().x);
+        buffer.putDouble(b.aabb.getMin().y);
+        buffer.putDouble(b.aabb.getMax().x);
+        buffer.putDouble(b.aabb.getMax().y);
+        byte flags = 0;
+        if (b.affectedByGravity) flags |= AFFECTED_BY_GRAVITY;
+        if (b.particle) flags |= PARTICLE;
+        buffer.put(flags);
+        buffer.putInt(b.collisionCategory);
+        buffer.putInt(b.collisionMask);
+        buffer.putInt(b.collisionGroup);
+    }
+
+    private static void writeJoint(Joint j, IdentityHashMap<Body, Integer> bodyIndices, ByteBuffer buffer) {
+        Vectors2D second;
+        int body2 = -1;
+        if (j instanceof JointToBody) {
+            JointToBody joint = (JointToBody) j;
+            buffer.put(JOINT_TO_BODY);
+            body2 = indexOf(bodyIndices, joint.getBody2());
+            second = joint.getOffset2();
+        } else {
+            buffer.put(JOINT_TO_POINT);
+            second = ((JointToPoint) j).getPointAttachedTo();
+        }
+        buffer.putInt(indexOf(bodyIndices, j.getBody1()));
+        buffer.putInt(body2);
+        buffer.putDouble(second.x);
+        buffer.putDouble(second.y);
+        buffer.putDouble(j.getNaturalLength());
+        buffer.putDouble(j.getSpringConstant());
+        buffer.putDouble(j.getDampeningConstant());
+        buffer.put((byte) (j.canGoSlack() ? 1 : 0));
+        buffer.putDouble(j.getOffset1().x);
+        buffer.putDouble(j.getOffset1().y);
+    }
+
+    private static int indexOf(IdentityHashMap<Body, Integer> bodyIndices, Body b) {
+        Integer index = bodyIndices.get(b);
+        if (index == null) {
+            throw new IllegalStateException("Joint is attached to a body that is not in the world");
+        }
+        return index;
+    }
+
+    /**
+     * Restores a body's shape and state, reusing the existing body and shape where they match.
+     *
+     * @param buffer        Buffer positioned at the body record.
+     * @param existing      Body currently at this index or null.
+     * @param deterministic Whether the world restored into uses StrictMath for orientations.
+     * @return The restored body, either existing or a new one.
+     */
+    private static Body restoreBody(ByteBuffer buffer, Body existing, boolean deterministic) {
+        byte shapeType = buffer.get();
+        Shapes shape;
+        if (shapeType == CIRCLE) {
+            double radius = buffer.getDouble();
+            if (existing != null && existing.shape instanceof Circle) {
+                shape = existing.shape;
+            } else {
+                shape = new Circle(radius);
+            }
+            ((Circle) shape).radius = radius;
+        } else if (shapeType == POLYGON) {
+            int n = buffer.getInt();
+            int vertexStart = buffer.position();
+            if (existing != null && existing.shape instanceof Polygon && ((Polygon) existing.shape).vertices.length == n
+                    && (((Polygon) existing.shape).getGeometry() == null || matchesPolygon(buffer, vertexStart, (Polygon) existing.shape))) {
+                shape = existing.shape;
+            } else {
+                shape = new Polygon(Vectors2D.createArray(n), Vectors2D.createArray(n));
+            }
+            //Shared geometry is never written to, it already holds the stored vertices
+            if (((Polygon) shape).getGeometry() == null) {
+                readPolygon(buffer, vertexStart, (Polygon) shape);
+            }
+            buffer.position(buffer.position() + n * 32);
+        } else {
+            throw new IllegalArgumentException("Unknown shape type in world snapshot: " + shapeType);
+        }
+
+        Body b = existing;
+        if (b == null) {
+            //Mass data and bounds are read below, so none of it is worked out from the shape
+            b = new Body(shape, 0, 0, 0, 0);
+        } else if (b.shape != shape) {
+            b.shape = shape;
+            shape.body = b;
+        }
+
+        b.position.set(buffer.getDouble(), buffer.getDouble());
+        b.velocity.set(buffer.getDouble(), buffer.getDouble());
+        b.force.set(buffer.getDouble(), buffer.getDouble());
+        b.angularVelocity = buffer.getDouble();
+        b.torque = buffer.getDouble();
+        b.orientation = buffer.getDouble();
+        if (deterministic) {
+            shape.orient.setStrict(b.orientation);
+        } else {
+            shape.orient.set(b.orientation);
+        }
+        b.restitution = buffer.getDouble();
+        b.staticFriction = buffer.getDouble();
+        b.dynamicFriction = buffer.getDouble();
+        b.mass = buffer.getDouble();
+        b.invMass = buffer.getDouble();
+        b.I = buffer.getDouble();
+        b.invI = buffer.getDouble();
+        b.linearDampening = buffer.getDouble();
+        b.angularDampening = buffer.getDouble();
+        b.aabb.getMin().set(buffer.getDouble(), buffer.getDouble());
+        b.aabb.getMax().set(buffer.getDouble(), buffer.getDouble());
+        byte flags = buffer.get();
+        b.affectedByGravity = (flags & AFFECTED_BY_GRAVITY) != 0;
+        b.particle = (flags & PARTICLE) != 0;
+        b.collisionCategory = buffer.getInt();
+        b.collisionMask = buffer.getInt();
+        b.collisionGroup = buffer.getInt();
+        return b;
+    }
+
+    /**
+     * Reads polygon vertices and normals with absolute reads so the buffer position is left unchanged.
+     *
+     * @param buffer Buffer holding the polygon data.
+     * @param index  Index of the first vertex.
+     * @param poly   Polygon to write the data to.
+     */
+    private static void readPolygon(ByteBuffer buffer, int index, Polygon poly) {
+        int n = poly.vertices.length;
+        for (int i = 0; i < n; i++, index += 16) {
+            poly.vertices[i].set(buffer.getDouble(index), buffer.getDouble(index + 8));
+        }
+        for (int i = 0; i < n; i++, index += 16) {
+            poly.normals[i].set(buffer.getDouble(index), buffer.getDouble(index + 8));
+        }
+    }
+
+    /**
+     * Checks whether stored polygon data equals a polygon's vertices and normals.
+     *
+     * @param buffer Buffer holding the polygon data.
+     * @param index  Index of the first vertex.
+     * @param poly   Polygon to compare with.
+     * @return Whether every stored coordinate matches.
+     */
+    private static boolean matchesPolygon(ByteBuffer buffer, int index, Polygon poly) {
+        int n = poly.vertices.length;
+        for (int i = 0; i < n; i++, index += 16) {
+            if (poly.vertices[i].x != buffer.getDouble(index) || poly.vertices[i].y != buffer.getDouble(index + 8)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < n; i++, index += 16) {
+            if (poly.normals[i].x != buffer.getDouble(index) || poly.normals[i].y != buffer.getDouble(index + 8)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Restores a joint, keeping the existing joint if it already matches the stored one.
+     *
+     * @param buffer   Buffer positioned at the joint record.
+     * @param bodies   Restored bodies the joint indices refer to.
+     * @param existing Joint currently at this index or null.
+     * @return The restored joint, either existing or a new one.
+     */
+    private static Joint restoreJoint(ByteBuffer buffer, ArrayList<Body> bodies, Joint existing) {
+        byte type = buffer.get();
+        Body body1 = bodies.get(buffer.getInt());
+        int body2Index = buffer.getInt();
+        double secondX = buffer.getDouble();
+        double secondY = buffer.getDouble();
+        double naturalLength = buffer.getDouble();
+        double springConstant = buffer.getDouble();
+        double dampeningConstant = buffer.getDouble();
+        boolean canGoSlack = buffer.get() != 0;
+        double offset1X = buffer.getDouble();
+        double offset1Y = buffer.getDouble();
+
+        boolean matches = existing != null
+                && existing.getBody1() == body1
+                && existing.getNaturalLength() == naturalLength
+                && existing.getSpringConstant() == springConstant
+                && existing.getDampeningConstant() == dampeningConstant
+                && existing.canGoSlack() == canGoSlack
+                && existing.getOffset1().x == offset1X
+                && existing.getOffset1().y == offset1Y;
+
+        if (type == JOINT_TO_BODY) {
+            Body body2 = bodies.get(body2Index);
+            if (matches && existing instanceof JointToBody) {
+                JointToBody joint = (JointToBody) existing;
+                if (joint.getBody2() == body2 && joint.getOffset2().x == secondX && joint.getOffset2().y == secondY) {
+                    return existing;
+                }
+            }
+            return new JointToBody(body1, body2, naturalLength, springConstant, dampeningConstant, canGoSlack,
+                    new Vectors2D(offset1X, offset1Y), new Vectors2D(secondX, secondY));
+        } else if (type == JOINT_TO_POINT) {
+            if (matches && existing instanceof JointToPoint) {
+                Vectors2D point = ((JointToPoint) existing).getPointAttachedTo();
+                if (point.x == secondX && point.y == secondY) {
+                    return existing;
+                }
+            }
+            return new JointToPoint(body1, new Vectors2D(secondX, secondY), naturalLength, springConstant,
+                    dampeningConstant, canGoSlack, new Vectors2D(offset1X, offset1Y));
+        }
+        throw new IllegalArgumentException("Unknown joint type in world snapshot: " + type);
+    }
+}
@@ -0,0 +1,79 @@
+package library.dynamics;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder event committed once per {@link World#step(double)}. Phase timings are only gathered while the
+ * event is enabled in a running recording.
+ */
+@Name("library.dynamics.WorldStep")
+@Label("World Step")
+@Category({"JPhysics", "Dynamics"})
+@Description("One physics time step with body, pair and contact counts and per phase durations")
+@StackTrace(false)
+class WorldStepEvent extends Event {
+    @Label("Body Count")
+    int bodyCount;
+
+    @Label("Pairs Tested")
+    @Description("Body pairs that reached the AABB test")
+    int pairsTested;
+
+    @Label("Contact Count")
+    int contactCount;
+
+    @Label("Solver Iterations")
+    int iterations;
+
+    @Label("Commands")
+    @Timespan(Timespan.NANOSECONDS)
+    long commands;
+
+    @Label("Broad Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    long broadPhase;
+
+    @Label("Narrow Phase")
+    @Timespan(Timespan.NANOSECONDS)
+    long narrowPhase;
+
+    @Label("Apply Forces")
+    @Timespan(Timespan.NANOSECONDS)
+    long applyForces;
+
+    @Label("Joints")
+    @Timespan(Timespan.NANOSECONDS)
+    long joints;
+
+    @Label("Solver")
+    @Timespan(Timespan.NANOSECONDS)
+    long solver;
+
+    @Label("Integration")
+    @Timespan(Timespan.NANOSECONDS)
+    long integration;
+
+    @Label("Penetration Resolution")
+    @Timespan(Timespan.NANOSECONDS)
+    long penetrationResolution;
+
+    /**
+     * Copies the stats of a completed step into the event fields.
+     *
+     * @param stats Stats of the step.
+     */
+    void set(StepStats stats) {
+        bodyCount = stats.getBodyCount();
+        pairsTested = stats.getPairsTested();
+        contactCount = stats.getContactsCreated();
+        iterations = stats.getIterationsRun();
+        commands = stats.getPhaseNanos(StepPhase.COMMANDS);
+        broadPhase = stats.getPhaseNanos(StepPhase.BROAD_PHASE);
+        narrowPhase = stats.getPhaseNanos(StepPhase.NARROW_PHASE);
+        applyForces = stats.getPhaseNanos(StepPhase.APPLY_FORCES);
+        joints = stats.getPhaseNanos(StepPhase.JOINTS);
+        solver = stats.getPhaseNanos(StepPhase.SOLVER);
+        integration = stats.getPhaseNanos(StepPhase.INTEGRATION);
+        penetrationResolution = stats.getPhaseNanos(StepPhase.PENETRATION_RESOLUTION);
+    }
+}
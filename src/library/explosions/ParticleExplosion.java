@@ -1,6 +1,7 @@
 package library.explosions;
 
 import library.dynamics.Body;
+import library.dynamics.ParticleSystem;
 import library.dynamics.World;
 import library.geometry.Circle;
 import library.math.Matrix2D;
@@ -78,4 +79,28 @@ public class ParticleExplosion {
             b.velocity.set(line.scalar(blastPower));
         }
     }
+
+    /**
+     * Emits the explosion into a particle system instead of creating a body per particle. Particles are placed as in
+     * {@link #createParticles} and given the velocity {@link #applyBlastImpulse} would give them.
+     *
+     * @param system     The particle system to emit into.
+     * @param size       The size of the particles.
+     * @param radius     The distance away from the epicenter the particles are placed.
+     * @param blastPower The impulse magnitude.
+     */
+    public void emitParticles(ParticleSystem system, double size, int radius, double blastPower) {
+        system.ensureCapacity(system.size() + noOfParticles);
+        double separationAngle = 6.28319 / noOfParticles;
+        double c = Math.cos(separationAngle);
+        double s = Math.sin(separationAngle);
+        double offsetX = 0;
+        double offsetY = radius;
+        for (int i = 0; i < noOfParticles; i++) {
+            system.emit(epicentre.x + offsetX, epicentre.y + offsetY, offsetX * blastPower, offsetY * blastPower, size, lifespan);
+            double rotatedX = c * offsetX - s * offsetY;
+            offsetY = s * offsetX + c * offsetY;
+            offsetX = rotatedX;
+        }
+    }
 }
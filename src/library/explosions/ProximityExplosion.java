@@ -1,6 +1,8 @@
 package library.explosions;
 
+import library.collision.RegionQuery;
 import library.dynamics.Body;
+import library.dynamics.World;
 import library.math.Vectors2D;
 import testbed.ColourSettings;
 import testbed.Camera;
@@ -41,7 +43,8 @@ public class ProximityExplosion implements Explosion {
     public ArrayList<Body> bodiesEffected = new ArrayList<>();
 
     /**
-     * Updates the arraylist to reevaluate what bodies are effected/within the proximity.
+     * Updates the arraylist to reevaluate what bodies are effected/within the proximity. A body is effected if any
+     * part of its shape is within the proximity.
      *
      * @param bodiesToEvaluate Arraylist of bodies in the world to check.
      */
@@ -49,13 +52,21 @@ public class ProximityExplosion implements Explosion {
     public void update(ArrayList<Body> bodiesToEvaluate) {
         bodiesEffected.clear();
         for (Body b : bodiesToEvaluate) {
-            Vectors2D blastDist = b.position.subtract(epicentre);
-            if (blastDist.length() <= proximity) {
+            if (RegionQuery.overlapsCircle(b, epicentre.x, epicentre.y, proximity)) {
                 bodiesEffected.add(b);
             }
         }
     }
 
+    /**
+     * Updates the effected bodies using the world's spatial index, so only bodies near the epicentre are tested.
+     *
+     * @param world World to query.
+     */
+    public void update(World world) {
+        world.queryCircle(epicentre.x, epicentre.y, proximity, bodiesEffected);
+    }
+
     private final ArrayList<Vectors2D> linesToBodies = new ArrayList<>();
 
     /**
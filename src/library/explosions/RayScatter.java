@@ -2,6 +2,9 @@ package library.explosions;
 
 import library.dynamics.Body;
 import library.rays.Ray;
+import library.rays.RayBatch;
+import library.rays.RayBatchEvent;
+import library.rays.RayHitBuffer;
 import library.math.Matrix2D;
 import library.math.Vectors2D;
 import testbed.Camera;
@@ -9,6 +12,7 @@ import testbed.ColourSettings;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Models rayscatter explosions.
@@ -17,6 +21,11 @@ public class RayScatter {
     private final Ray[] rays;
     private final int noOfRays;
     private Vectors2D epicentre;
+    private int distance;
+    private final double[] directionsX;
+    private final double[] directionsY;
+    private final RayBatch batch = new RayBatch();
+    private final RayHitBuffer hits = new RayHitBuffer();
 
     /**
      * Getter for epicentre variable.
@@ -49,6 +58,8 @@ public class RayScatter {
         rays = new Ray[noOfRays];
         this.epicentre = epicentre;
         this.noOfRays = noOfRays;
+        directionsX = new double[noOfRays];
+        directionsY = new double[noOfRays];
     }
 
     /**
@@ -62,8 +73,11 @@ public class RayScatter {
         Matrix2D u = new Matrix2D(angle);
         for (int i = 0; i < rays.length; i++) {
             rays[i] = new Ray(epicentre, direction, distance);
+            directionsX[i] = rays[i].getDirection().x;
+            directionsY[i] = rays[i].getDirection().y;
             u.mul(direction);
         }
+        this.distance = distance;
     }
 
     /**
@@ -72,9 +86,54 @@ public class RayScatter {
      * @param worldBodies Arraylist of all bodies to update ray projections for.
      */
     public void updateRays(ArrayList<Body> worldBodies) {
+        RayBatchEvent event = new RayBatchEvent();
+        event.begin();
         for (Ray ray : rays) {
             ray.updateProjection(worldBodies);
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = RayScatter.class;
+            event.rayCount = rays.length;
+            event.bodyCount = worldBodies.size();
+            for (Ray ray : rays) {
+                if (ray.getRayInformation() != null) {
+                    event.hitCount++;
+                }
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Casts all rays as one batch. Bodies are culled against the scatter once rather than once per ray, and the
+     * nearest hit of each ray is written to a buffer reused between calls instead of the rays' own information.
+     *
+     * @param worldBodies Bodies to cast the rays against.
+     * @return Buffer holding the nearest hit of each ray, indexed like {@link #getRays()}.
+     */
+    public RayHitBuffer updateHits(List<Body> worldBodies) {
+        RayBatchEvent event = new RayBatchEvent();
+        event.begin();
+        batch.cast(epicentre.x, epicentre.y, directionsX, directionsY, rays.length, distance, worldBodies, hits);
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = RayScatter.class;
+            event.rayCount = rays.length;
+            event.bodyCount = worldBodies.size();
+            event.hitCount = hits.getHitCount();
+            event.commit();
+        }
+        return hits;
+    }
+
+    /**
+     * Getter for the hits of the last batched cast.
+     *
+     * @return Buffer written by {@link #updateHits(List)}.
+     */
+    public RayHitBuffer getHits() {
+        return hits;
     }
 
     /**
@@ -1,8 +1,7 @@
 package library.explosions;
 
 import library.dynamics.Body;
-import library.rays.Ray;
-import library.rays.RayInformation;
+import library.rays.RayHitBuffer;
 import library.math.Vectors2D;
 import testbed.Camera;
 import testbed.ColourSettings;
@@ -40,24 +39,23 @@ public class RaycastExplosion implements Explosion {
         rayScatter.setEpicentre(v);
     }
 
-    public ArrayList<RayInformation> raysInContact = new ArrayList<>();
+    /**
+     * Getter for the rays in contact with bodies after the last update.
+     *
+     * @return Buffer holding the nearest hit of each ray.
+     */
+    public RayHitBuffer getHits() {
+        return rayScatter.getHits();
+    }
 
     /**
-     * Updates the arraylist to reevaluate what objects are effected/within the proximity.
+     * Updates the ray hits to reevaluate what objects are effected/within the proximity.
      *
      * @param bodiesToEvaluate Arraylist of bodies in the world to check.
      */
     @Override
     public void update(ArrayList<Body> bodiesToEvaluate) {
-        raysInContact.clear();
-        rayScatter.updateRays(bodiesToEvaluate);
-        Ray[] rayArray = rayScatter.getRays();
-        for (Ray ray : rayArray) {
-            RayInformation rayInfo = ray.getRayInformation();
-            if (rayInfo != null) {
-                raysInContact.add(rayInfo);
-            }
-        }
+        rayScatter.updateHits(bodiesToEvaluate);
     }
 
     /**
@@ -67,15 +65,21 @@ public class RaycastExplosion implements Explosion {
      */
     @Override
     public void applyBlastImpulse(double blastPower) {
-        for (RayInformation ray : raysInContact) {
-            Vectors2D blastDir = ray.getCoord().subtract(rayScatter.getEpicentre());
+        RayHitBuffer hits = rayScatter.getHits();
+        Vectors2D epicentre = rayScatter.getEpicentre();
+        for (int i = 0; i < hits.size(); i++) {
+            if (!hits.hasHit(i)) {
+                continue;
+            }
+            Vectors2D coord = new Vectors2D(hits.getX(i), hits.getY(i));
+            Vectors2D blastDir = coord.subtract(epicentre);
             double distance = blastDir.length();
             if (distance == 0) return;
 
             double invDistance = 1 / distance;
             Vectors2D impulseMag = blastDir.normalize().scalar(blastPower * invDistance);
-            Body b = ray.getB();
-            b.applyLinearImpulse(impulseMag, ray.getCoord().subtract(b.position));
+            Body b = hits.getBody(i);
+            b.applyLinearImpulse(impulseMag, coord.subtract(b.position));
         }
     }
 
@@ -16,6 +16,11 @@ public class Polygon extends Shapes {
     public Vectors2D[] vertices;
     public Vectors2D[] normals;
 
+    /**
+     * Shared geometry the vertices and normals belong to, or null if the polygon owns its arrays.
+     */
+    /*@ nullable @*/ private PolygonGeometry geometry;
+
     /**
      * Constructor takes a supplied list of vertices and generates a convex hull around them.
      *
@@ -37,7 +42,7 @@ public class Polygon extends Shapes {
     }
 
     /**
-     * Constructor to generate a rectangle.
+     * Constructor to generate a rectangle. The geometry is shared with every other rectangle of the same size.
      *
      * @param width  Desired width of rectangle
      * @param height Desired height of rectangle
@@ -52,20 +57,50 @@ public class Polygon extends Shapes {
       @   pure
       @*/
     public Polygon(double width, double height) {
-        vertices = new Vectors2D[4];
-        vertices[0] = new Vectors2D(-width, -height);
-        vertices[1] = new Vectors2D(width, -height);
-        vertices[2] = new Vectors2D(width, height);
-        vertices[3] = new Vectors2D(-width, height);
-        normals = new Vectors2D[4];
-        normals[0] = new Vectors2D(0.0, -1.0);
-        normals[1] = new Vectors2D(1.0, 0.0);
-        normals[2] = new Vectors2D(0.0, 1.0);
-        normals[3] = new Vectors2D(-1.0, 0.0);
+        this(PolygonGeometry.box(width, height));
+    }
+
+    /**
+     * Constructor for a polygon sharing geometry with other polygons. The vertices and normals are the geometry's own
+     * arrays, already centred on the centre of mass, and must not be modified.
+     *
+     * @param geometry Shared geometry of the polygon.
+     */
+    /*@ public normal_behavior
+      @   requires geometry != null;
+      @   ensures this.vertices.length == geometry.getVertexCount();
+      @   ensures this.normals.length == geometry.getVertexCount();
+      @   pure
+      @*/
+    //@skipesc
+    public Polygon(PolygonGeometry geometry) {
+        this.geometry = geometry;
+        this.vertices = geometry.vertices;
+        this.normals = geometry.normals;
+    }
+
+    /**
+     * Constructor for vertices and normals that already describe a convex polygon in counter clockwise order.
+     * No hull is generated and the arrays are used as supplied.
+     *
+     * @param vertices Vertices of the polygon.
+     * @param normals  Outward face normals, one per vertex.
+     */
+    /*@ public normal_behavior
+      @   requires vertices.length > 0;
+      @   requires vertices.length == normals.length;
+      @   ensures this.vertices == vertices;
+      @   ensures this.normals == normals;
+      @   pure
+      @*/
+    public Polygon(Vectors2D[] vertices, Vectors2D[] normals) {
+        this.vertices = vertices;
+        this.normals = normals;
     }
 
     /**
-     * Generate a regular polygon with a specified number of sides and size.
+     * Generate a regular polygon with a specified number of sides and size. The geometry is shared with every other
+     * regular polygon of the same size and number of sides.
      *
      * @param radius    The maximum distance any vertex is away from the center of mass.
      * @param noOfSides The desired number of face the polygon has.
@@ -80,19 +115,7 @@ public class Polygon extends Shapes {
       @*/
     //@skipesc
     public Polygon(int radius, int noOfSides) {
-        vertices = new Vectors2D[noOfSides];
-        /*@ maintaining 0 <= i <= vertices.length;
-          @ maintaining \forall int k; 0 <= k < i; vertices[k] != null;
-          @ loop_writes i, vertices[*];
-          @ decreases vertices.length-i;
-         */
-        for (int i = 0; i < noOfSides; i++) {
-            double angle = 2 * Math.PI / noOfSides * (i + 0.75);
-            double pointX = radius * StrictMath.cos(angle);
-            double pointY = radius * StrictMath.sin(angle);
-            vertices[i] = new Vectors2D(pointX, pointY);
-        }
-        calcNormals();
+        this(PolygonGeometry.regular(radius, noOfSides));
     }
 
     /**
@@ -107,6 +130,10 @@ public class Polygon extends Shapes {
       @*/
     //@skipesc
     public void calcNormals() {
+        if (geometry != null) {
+            vertices = vertices.clone();
+            geometry = null;
+        }
         normals = new Vectors2D[vertices.length];
         /*@ maintaining 0 <= i <= normals.length;
           @ maintaining \forall int k; 0 <= k < i; normals[k] != null;
@@ -139,6 +166,13 @@ public class Polygon extends Shapes {
     //@skipesc
     @Override
     public void calcMass(double density) {
+        if (geometry != null) {
+            body.mass = density * geometry.getArea();
+            body.invMass = (body.mass != 0.0) ? 1.0 / body.mass : 0.0;
+            body.I = geometry.getInertia() * density;
+            body.invI = (body.I != 0.0) ? 1.0 / body.I : 0.0;
+            return;
+        }
         Vectors2D centroidDistVec = new Vectors2D(0.0, 0.0);
         double area = 0.0;
         double I = 0.0;
@@ -254,7 +288,24 @@ public class Polygon extends Shapes {
     // }
 
     /**
-     * Generates a convex hull around the vertices supplied.
+     * Gets the geometry the polygon shares with others.
+     *
+     * @return Shared geometry, or null if the polygon owns its vertices and normals.
+     */
+    /*@ public normal_behavior
+      @   ensures \result == geometry;
+      @   pure
+      @*/
+    //@ nullable
+    public PolygonGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Generates a convex hull around the vertices supplied, wound anticlockwise with collinear points dropped.
+     * Vertices that already form a strictly convex anticlockwise polygon are used as they are after a linear check,
+     * otherwise points that can't be on the hull are discarded and the rest are sorted and joined with Andrew's
+     * monotone chain in O(n log n).
      *
      * @param vertices List of vertices.
      * @param n        Number of vertices supplied.
@@ -263,90 +314,162 @@ public class Polygon extends Shapes {
     /*@ public normal_behavior
       @   requires vertices.length>=n> 0;
       @   requires \forall int i; 0<=i<vertices.length; vertices[i].isValid();
-      @   ensures \result.length == n;
+      @   ensures \result.length <= n;
       @   spec_pure
       @*/
     //@ spec_public
     //@skipesc
-    //todo: ajeitar pra que ele garanta que point esteja entre 0 e n porque senão reclama
-    private Vectors2D[] generateHull(Vectors2D[] vertices, int n) {
-        ArrayList<Vectors2D> hull = new ArrayList<>();
-
-        int firstPointIndex = 0;
-        double minX = Double.MAX_VALUE;
+    private static Vectors2D[] generateHull(Vectors2D[] vertices, int n) {
+        if (n < 3 || isConvex(vertices, n)) {
+            return Arrays.copyOf(vertices, n);
+        }
 
-        /*@ maintaining 0 <= i <= n;
-          @ maintaining \forall int k; 0 <= k < i; minX <= vertices[k].x && n>firstPointIndex>=0;
-          @ loop_writes i, minX, firstPointIndex;
-          @ decreases n-i;
-         */
+        //Points strictly inside the quadrilateral of the extreme points can't be on the hull
+        Vectors2D left = vertices[0], bottom = vertices[0], right = vertices[0], top = vertices[0];
+        for (int i = 1; i < n; i++) {
+            Vectors2D v = vertices[i];
+            if (v.x < left.x) left = v;
+            if (v.x > right.x) right = v;
+            if (v.y < bottom.y) bottom = v;
+            if (v.y > top.y) top = v;
+        }
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int[] order = new int[n];
+        int m = 0;
         for (int i = 0; i < n; i++) {
-            double x = vertices[i].x;
-            if (x < minX) {
-                firstPointIndex = i;
-                minX = x;
+            Vectors2D v = vertices[i];
+            if (cross(left, bottom, v) > 0 && cross(bottom, right, v) > 0 && cross(right, top, v) > 0
+                    && cross(top, left, v) > 0) {
+                continue;
             }
+            xs[m] = v.x;
+            ys[m] = v.y;
+            order[m] = i;
+            m++;
         }
+        sortPoints(xs, ys, order, 0, m - 1);
 
-        int point = firstPointIndex, currentEvalPoint;
-        boolean first = true;
-        /*@ maintaining 0 <= \count <= n;
-          @ maintaining \forall int k; 0 <= k < \count; hull.contains(vertices[k]) && n>point>=0;
-          @ loop_writes currentEvalPoint, hull;
-          @ decreases n-\count;
-         */
-        while (point != firstPointIndex || first) {
-            first = false;
-            hull.add(vertices[point]);
-            currentEvalPoint = (point + 1) % n;
-            /*@ maintaining 0 <= i <= n;
-              @ maintaining \forall int j; 0 <= j < i; 0 <= currentEvalPoint < n && 0<= point < n;
-              @ loop_writes i, currentEvalPoint;
-              @ decreases n-i;
-             */
-            for (int i = 0; i < n; i++) {
-                if (sideOfLine(vertices[point], vertices[i], vertices[currentEvalPoint]) == -1)
-                    currentEvalPoint = i;
+        //Lower chain from left to right, then the upper chain back, each keeping only left turns
+        int[] hull = new int[2 * m];
+        int k = 0;
+        for (int i = 0; i < m; i++) {
+            while (k >= 2 && cross(xs, ys, hull[k - 2], hull[k - 1], i) <= 0) {
+                k--;
+            }
+            hull[k++] = i;
+        }
+        for (int i = m - 2, lower = k + 1; i >= 0; i--) {
+            while (k >= lower && cross(xs, ys, hull[k - 2], hull[k - 1], i) <= 0) {
+                k--;
             }
-            point = currentEvalPoint;
+            hull[k++] = i;
+        }
+        Vectors2D[] result = new Vectors2D[Math.max(1, k - 1)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = vertices[order[hull[i]]];
         }
+        return result;
+    }
 
-        Vectors2D[] hulls = new Vectors2D[hull.size()];
-        /*@ maintaining 0 <= i <= hull.size();
-          @ maintaining \forall int k; 0 <= k < i; hulls[k] == hull.get(k);
-          @ loop_writes i, hulls[*];
-          @ decreases hull.size()-i;
-         */
-        for (int i = 0; i < hull.size(); i++) {
-            hulls[i] = hull.get(i);
+    /**
+     * Sorts points by x then y, keeping their original indices alongside, without boxing or comparators.
+     */
+    //@skipesc
+    private static void sortPoints(double[] xs, double[] ys, int[] order, int low, int high) {
+        while (high - low > 16) {
+            int middle = (low + high) >>> 1;
+            double pivotX = xs[middle];
+            double pivotY = ys[middle];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (xs[i] < pivotX || (xs[i] == pivotX && ys[i] < pivotY)) i++;
+                while (xs[j] > pivotX || (xs[j] == pivotX && ys[j] > pivotY)) j--;
+                if (i <= j) {
+                    swap(xs, ys, order, i++, j--);
+                }
+            }
+            //Recurses into the smaller side to bound the stack depth
+            if (j - low < high - i) {
+                sortPoints(xs, ys, order, low, j);
+                low = i;
+            } else {
+                sortPoints(xs, ys, order, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && (xs[j - 1] > xs[j] || (xs[j - 1] == xs[j] && ys[j - 1] > ys[j])); j--) {
+                swap(xs, ys, order, j, j - 1);
+            }
         }
+    }
 
-        return hulls;
+    private static void swap(double[] xs, double[] ys, int[] order, int i, int j) {
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        int index = order[i];
+        order[i] = order[j];
+        order[j] = index;
+    }
+
+    private static double cross(double[] xs, double[] ys, int o, int a, int b) {
+        return (xs[a] - xs[o]) * (ys[b] - ys[o]) - (ys[a] - ys[o]) * (xs[b] - xs[o]);
     }
 
     /**
-     * Checks which side of a line a point is on.
-     *
-     * @param p1    Vertex of line to evaluate.
-     * @param p2    Vertex of line to evaluate.
-     * @param point Point to check which side it lies on.
-     * @return Int value - positive = right side of line. Negative = left side of line.
+     * Checks whether vertices form a strictly convex polygon wound anticlockwise. Every corner must turn left, and the
+     * x direction of the edges may only change sign twice, which rules out star shapes that turn left but wind
+     * around more than once.
+     */
+    //@skipesc
+    private static boolean isConvex(Vectors2D[] vertices, int n) {
+        int signChanges = 0;
+        double previousDx = 0;
+        for (int i = 0; i < n; i++) {
+            Vectors2D a = vertices[i];
+            Vectors2D b = vertices[i + 1 == n ? 0 : i + 1];
+            Vectors2D c = vertices[i + 2 >= n ? i + 2 - n : i + 2];
+            if (cross(a, b, c) <= 0) {
+                return false;
+            }
+            double dx = b.x - a.x;
+            if (dx != 0) {
+                if (previousDx != 0 && (dx > 0) != (previousDx > 0)) {
+                    signChanges++;
+                }
+                previousDx = dx;
+            }
+        }
+        //Closes the loop between the last edge and the first
+        for (int i = 0; i < n; i++) {
+            double dx = vertices[i + 1 == n ? 0 : i + 1].x - vertices[i].x;
+            if (dx != 0) {
+                if ((dx > 0) != (previousDx > 0)) {
+                    signChanges++;
+                }
+                break;
+            }
+        }
+        return signChanges <= 2;
+    }
+
+    /**
+     * Cross product of the vectors o to a and o to b, positive when b lies left of the line from o through a.
      */
     /*@ private normal_behavior
-      @   requires p1.isValid();
-      @   requires p2.isValid();
-      @   requires point.isValid();
-      @   ensures \result == 1 || \result == 0 || \result == -1;
+      @   requires o.isValid();
+      @   requires a.isValid();
+      @   requires b.isValid();
       @   pure
       @*/
     //@skipesc
-    private int sideOfLine(Vectors2D p1, Vectors2D p2, Vectors2D point) {
-        double val = (p2.y - p1.y) * (point.x - p2.x) - (p2.x - p1.x) * (point.y - p2.y);
-        if (val > 0)
-            return 1;
-        else if (val == 0)
-            return 0;
-        else
-            return -1;
+    private static double cross(Vectors2D o, Vectors2D a, Vectors2D b) {
+        return (a.x - o.x) * (b.y - o.y) - (a.y - o.y) * (b.x - o.x);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package library.geometry;
+
+import library.math.Vectors2D;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+
+/**
+ * Immutable local space geometry of a convex polygon, shared by every {@link Polygon} built from it.
+ * <p>
+ * The vertices are centred on the polygon's centre of mass when the geometry is created, and its area and moment of
+ * inertia per unit density are worked out once, so bodies using it never recentre or integrate their shape again.
+ * Geometries made through {@link #of}, {@link #box} and {@link #regular} are interned: equal shapes share one instance
+ * for as long as any polygon uses it. The arrays are shared too and must never be modified.
+ */
+public final class PolygonGeometry {
+    final Vectors2D[] vertices;
+    final Vectors2D[] normals;
+    private final double area;
+    private final double inertia;
+
+    /**
+     * Constructor for geometry that is not interned.
+     *
+     * @param vertices Vertices of a convex polygon in counter clockwise order, copied and centred.
+     */
+    public PolygonGeometry(Vectors2D[] vertices) {
+        this(vertices, null);
+    }
+
+    /**
+     * Centres the vertices and works out the mass properties in the same order of operations as
+     * {@link Polygon#calcMass}, so shared and unshared polygons of the same shape behave identically.
+     */
+    //@skipesc
+    private PolygonGeometry(Vectors2D[] vertexList, Vectors2D[] normalList) {
+        int n = vertexList.length;
+        Vectors2D centroidDistVec = new Vectors2D(0.0, 0.0);
+        double area = 0.0;
+        double I = 0.0;
+        double k = 1.0 / 3.0;
+        for (int i = 0; i < n; ++i) {
+            Vectors2D point1 = vertexList[i];
+            Vectors2D point2 = vertexList[(i + 1) % n];
+            double areaOfParallelogram = point1.crossProduct(point2);
+            double triangleArea = 0.5 * areaOfParallelogram;
+            area += triangleArea;
+
+            double weight = triangleArea * k;
+            centroidDistVec.add(point1.scalar(weight));
+            centroidDistVec.add(point2.scalar(weight));
+
+            double intx2 = point1.x * point1.x + point2.x * point1.x + point2.x * point2.x;
+            double inty2 = point1.y * point1.y + point2.y * point1.y + point2.y * point2.y;
+            I += (0.25 * k * areaOfParallelogram) * (intx2 + inty2);
+        }
+        centroidDistVec = centroidDistVec.scalar(1.0 / area);
+
+        vertices = new Vectors2D[n];
+        normals = new Vectors2D[n];
+        for (int i = 0; i < n; i++) {
+            vertices[i] = vertexList[i].subtract(centroidDistVec);
+        }
+        for (int i = 0; i < n; i++) {
+            if (normalList != null) {
+                normals[i] = normalList[i].copy();
+            } else {
+                Vectors2D face = vertices[i + 1 == n ? 0 : i + 1].subtract(vertices[i]);
+                normals[i] = face.normal().normalize().negative();
+            }
+        }
+        this.area = area;
+        this.inertia = I;
+    }
+
+    /**
+     * Gets the shared geometry of a convex polygon.
+     *
+     * @param vertices Vertices of a convex polygon in counter clockwise order.
+     * @return Interned geometry.
+     */
+    public static PolygonGeometry of(Vectors2D[] vertices) {
+        double[] coordinates = new double[vertices.length * 2];
+        for (int i = 0; i < vertices.length; i++) {
+            coordinates[2 * i] = vertices[i].x;
+            coordinates[2 * i + 1] = vertices[i].y;
+        }
+        return intern(coordinates, null);
+    }
+
+    /**
+     * Gets the shared geometry of a rectangle.
+     *
+     * @param width  Half the width of the rectangle.
+     * @param height Half the height of the rectangle.
+     * @return Interned geometry.
+     */
+    public static PolygonGeometry box(double width, double height) {
+        return intern(new double[]{-width, -height, width, -height, width, height, -width, height}, BOX_NORMALS);
+    }
+
+    /**
+     * Gets the shared geometry of a regular polygon.
+     *
+     * @param radius    The maximum distance any vertex is away from the center of mass.
+     * @param noOfSides The number of faces the polygon has.
+     * @return Interned geometry.
+     */
+    public static PolygonGeometry regular(int radius, int noOfSides) {
+        double[] coordinates = new double[noOfSides * 2];
+        for (int i = 0; i < noOfSides; i++) {
+            double angle = 2 * Math.PI / noOfSides * (i + 0.75);
+            coordinates[2 * i] = radius * StrictMath.cos(angle);
+            coordinates[2 * i + 1] = radius * StrictMath.sin(angle);
+        }
+        return intern(coordinates, null);
+    }
+
+    private static final double[] BOX_NORMALS = {0.0, -1.0, 1.0, 0.0, 0.0, 1.0, -1.0, 0.0};
+
+    /*
+    Interned geometries are held weakly so shapes no polygon uses any more, such as one off sizes, can be collected.
+    Cleared references are purged from the table on the next lookup.
+    */
+    private static final HashMap<VertexKey, Entry> INTERNED = new HashMap<>();
+    private static final ReferenceQueue<PolygonGeometry> RELEASED = new ReferenceQueue<>();
+
+    private static synchronized PolygonGeometry intern(double[] coordinates, double[] normalCoordinates) {
+        Entry released;
+        while ((released = (Entry) RELEASED.poll()) != null) {
+            INTERNED.remove(released.key, released);
+        }
+        VertexKey key = new VertexKey(coordinates);
+        Entry entry = INTERNED.get(key);
+        PolygonGeometry geometry = entry == null ? null : entry.get();
+        if (geometry == null) {
+            geometry = new PolygonGeometry(toVectors(coordinates), normalCoordinates == null ? null : toVectors(normalCoordinates));
+            INTERNED.put(key, new Entry(key, geometry));
+        }
+        return geometry;
+    }
+
+    private static Vectors2D[] toVectors(double[] coordinates) {
+        Vectors2D[] vectors = new Vectors2D[coordinates.length / 2];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = new Vectors2D(coordinates[2 * i], coordinates[2 * i + 1]);
+        }
+        return vectors;
+    }
+
+    private static final class Entry extends WeakReference<PolygonGeometry> {
+        private final VertexKey key;
+
+        Entry(VertexKey key, PolygonGeometry geometry) {
+            super(geometry, RELEASED);
+            this.key = key;
+        }
+    }
+
+    /**
+     * Getter for the number of vertices.
+     *
+     * @return Vertex count.
+     */
+    public int getVertexCount() {
+        return vertices.length;
+    }
+
+    /**
+     * Gets a vertex relative to the centre of mass.
+     *
+     * @param i Vertex index.
+     * @return Copy of the vertex.
+     */
+    public Vectors2D getVertex(int i) {
+        return vertices[i].copy();
+    }
+
+    /**
+     * Getter for the area of the polygon.
+     *
+     * @return Area.
+     */
+    public double getArea() {
+        return area;
+    }
+
+    /**
+     * Getter for the moment of inertia about the centre of mass at a density of 1.
+     *
+     * @return Moment of inertia per unit density.
+     */
+    public double getInertia() {
+        return inertia;
+    }
+}
@@ -0,0 +1,49 @@
+package library.geometry;
+
+import library.math.Vectors2D;
+
+import java.util.Arrays;
+
+/**
+ * Hash key made from a polygon's vertex coordinates, so caches can look up shapes that are equal vertex for vertex.
+ * The hash is worked out once when the key is made.
+ */
+public final class VertexKey {
+    private final double[] coordinates;
+    private final int hash;
+
+    /**
+     * Constructor for a key over coordinates that are never modified afterwards.
+     *
+     * @param coordinates x and y of each vertex in turn.
+     */
+    VertexKey(double[] coordinates) {
+        this.coordinates = coordinates;
+        hash = Arrays.hashCode(coordinates);
+    }
+
+    /**
+     * Makes a key holding a copy of the vertices' coordinates.
+     *
+     * @param vertices Vertices of a polygon.
+     * @return Key equal to that of any polygon with the same vertices in the same order.
+     */
+    public static VertexKey of(Vectors2D[] vertices) {
+        double[] coordinates = new double[vertices.length * 2];
+        for (int i = 0; i < vertices.length; i++) {
+            coordinates[2 * i] = vertices[i].x;
+            coordinates[2 * i + 1] = vertices[i].y;
+        }
+        return new VertexKey(coordinates);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof VertexKey && Arrays.equals(coordinates, ((VertexKey) o).coordinates);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
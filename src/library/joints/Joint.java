@@ -19,6 +19,7 @@ public abstract class Joint {
     protected final boolean canGoSlack;
     protected final Vectors2D offset1;
     protected Vectors2D object1AttachmentPoint;
+    private long handle = -1;
 
     /**
      * Default constructor
@@ -41,6 +42,78 @@ public abstract class Joint {
         this.offset1 = offset1;
     }
 
+    /**
+     * Getter for the first body the joint is attached to.
+     *
+     * @return Body object1.
+     */
+    public Body getBody1() {
+        return object1;
+    }
+
+    /**
+     * Gets the handle the joint was given when added to a world. The handle stays valid until the joint is removed.
+     *
+     * @return Handle of the joint or -1 if it is not in a world.
+     */
+    public long getHandle() {
+        return handle;
+    }
+
+    /**
+     * Sets the joint's handle. Called by the world when the joint is added or removed.
+     *
+     * @param handle Handle given by the world.
+     */
+    public void setHandle(long handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * Getter for the natural length of the joint.
+     *
+     * @return double value of the natural length.
+     */
+    public double getNaturalLength() {
+        return naturalLength;
+    }
+
+    /**
+     * Getter for the spring constant of the joint.
+     *
+     * @return double value of the spring constant.
+     */
+    public double getSpringConstant() {
+        return springConstant;
+    }
+
+    /**
+     * Getter for the dampening constant of the joint.
+     *
+     * @return double value of the dampening constant.
+     */
+    public double getDampeningConstant() {
+        return dampeningConstant;
+    }
+
+    /**
+     * Getter for whether the joint can go slack.
+     *
+     * @return boolean value of canGoSlack.
+     */
+    public boolean canGoSlack() {
+        return canGoSlack;
+    }
+
+    /**
+     * Getter for the offset of the joint relative to the first body's object space.
+     *
+     * @return offset1 of type Vectors2D.
+     */
+    public Vectors2D getOffset1() {
+        return offset1;
+    }
+
     /**
      * Abstract method to apply tension to the joint
      */
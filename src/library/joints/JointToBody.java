@@ -3,7 +3,6 @@ package library.joints;
 import library.dynamics.Body;
 import testbed.ColourSettings;
 import testbed.Camera;
-import library.math.Matrix2D;
 import library.math.Vectors2D;
 
 import java.awt.*;
@@ -35,16 +34,31 @@ public class JointToBody extends Joint {
         this.offset2 = offset2;
     }
 
+    /**
+     * Getter for the second body the joint is attached to.
+     *
+     * @return Body object2.
+     */
+    public Body getBody2() {
+        return object2;
+    }
+
+    /**
+     * Getter for the offset of the joint relative to the second body's object space.
+     *
+     * @return offset2 of type Vectors2D.
+     */
+    public Vectors2D getOffset2() {
+        return offset2;
+    }
+
     /**
      * Applies tension to the two bodies.
      */
     @Override
     public void applyTension() {
-        Matrix2D mat1 = new Matrix2D(object1.orientation);
-        this.object1AttachmentPoint = object1.position.addi(mat1.mul(offset1, new Vectors2D()));
-
-        Matrix2D mat2 = new Matrix2D(object2.orientation);
-        this.object2AttachmentPoint = object2.position.addi(mat2.mul(offset2, new Vectors2D()));
+        this.object1AttachmentPoint = object1.position.addi(object1.shape.orient.mul(offset1, new Vectors2D()));
+        this.object2AttachmentPoint = object2.position.addi(object2.shape.orient.mul(offset2, new Vectors2D()));
 
         double tension = calculateTension();
         Vectors2D distance = this.object2AttachmentPoint.subtract(this.object1AttachmentPoint);
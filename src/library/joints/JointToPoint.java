@@ -1,7 +1,6 @@
 package library.joints;
 
 import library.dynamics.Body;
-import library.math.Matrix2D;
 import library.math.Vectors2D;
 import testbed.ColourSettings;
 import testbed.Camera;
@@ -47,13 +46,21 @@ public class JointToPoint extends Joint {
         this.pointAttachedTo = point;
     }
 
+    /**
+     * Getter for the point in world space the joint is attached to.
+     *
+     * @return pointAttachedTo of type Vectors2D.
+     */
+    public Vectors2D getPointAttachedTo() {
+        return pointAttachedTo;
+    }
+
     /**
      * Applies tension to the body attached to the joint.
      */
     @Override
     public void applyTension() {
-        Matrix2D mat1 = new Matrix2D(object1.orientation);
-        this.object1AttachmentPoint = object1.position.addi(mat1.mul(offset1, new Vectors2D()));
+        this.object1AttachmentPoint = object1.position.addi(object1.shape.orient.mul(offset1, new Vectors2D()));
 
         double tension = calculateTension();
         Vectors2D distance = pointAttachedTo.subtract(object1AttachmentPoint);
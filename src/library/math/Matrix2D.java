@@ -74,6 +74,30 @@ public class Matrix2D {
         //@ assert row1.y == -Math.sin(radians);
     }
 
+    /**
+     * Sets the matrix up to be a rotation matrix like {@link #set(double)} but using {@link StrictMath} so the result
+     * is bit identical on every platform and JVM.
+     * @param radians The desired angle of the rotation matrix
+     */
+    /*@ public normal_behavior
+      @   assigns row1.*,row2.*;
+      @   requires !Double.isInfinite(radians);
+      @   requires !Double.isNaN(radians);
+      @   ensures row1.x == StrictMath.cos(radians);
+      @   ensures row1.y == -StrictMath.sin(radians);
+      @   ensures row2.x == StrictMath.sin(radians);
+      @   ensures row2.y == StrictMath.cos(radians);
+      @*/
+    //@skipesc
+    public void setStrict(double radians) {
+        double c = StrictMath.cos(radians);
+        double s = StrictMath.sin(radians);
+        row1.x = c;
+        row1.y = -s;
+        row2.x = s;
+        row2.y = c;
+    }
+
     /**
      * Sets current object matrix to be the same as the supplied parameters matrix.
      * @param m Matrix to set current object to
@@ -1,8 +1,8 @@
 package library.rays;
 
+import library.collision.BodyGrid;
 import library.dynamics.Body;
-import library.geometry.Circle;
-import library.geometry.Polygon;
+import library.dynamics.World;
 import library.math.Vectors2D;
 import testbed.ColourSettings;
 import testbed.Camera;
@@ -85,6 +85,15 @@ public class Ray {
         this(startPoint, new Vectors2D(direction), distance);
     }
 
+    /**
+     * Gets the distance the ray is projected.
+     *
+     * @return distance variable.
+     */
+    public int getDistance() {
+        return distance;
+    }
+
     /**
      * Sets the direction of the ray to a different value.
      *
@@ -107,74 +116,84 @@ public class Ray {
      */
     public void updateProjection(ArrayList<Body> bodiesToEvaluate) {
         intersectingBodiesInfo = null;
-        Vectors2D endPoint = direction.scalar(distance);
-        double end_x = endPoint.x;
-        double end_y = endPoint.y;
+        double endX = direction.x * distance;
+        double endY = direction.y * distance;
 
-        double min_t1 = Double.POSITIVE_INFINITY;
-        double min_px = 0, min_py = 0;
-        boolean intersectionFound = false;
+        double minT = Double.POSITIVE_INFINITY;
         Body closestBody = null;
-
         for (Body B : bodiesToEvaluate) {
-            if (B.shape instanceof Polygon) {
-                Polygon poly = (Polygon) B.shape;
-                for (int i = 0; i < poly.vertices.length; i++) {
-                    Vectors2D startOfPolyEdge = poly.vertices[i];
-                    Vectors2D endOfPolyEdge = poly.vertices[i + 1 == poly.vertices.length ? 0 : i + 1];
-                    startOfPolyEdge = poly.orient.mul(startOfPolyEdge, new Vectors2D()).addi(B.position);
-                    endOfPolyEdge = poly.orient.mul(endOfPolyEdge, new Vectors2D()).addi(B.position);
-                    double dx = endOfPolyEdge.x - startOfPolyEdge.x;
-                    double dy = endOfPolyEdge.y - startOfPolyEdge.y;
-
-                    //Check to see if the lines are not parallel
-                    if ((dx - end_x) != 0.0 && (dy - end_y) != 0.0) {
-                        double t2 = (end_x * (startOfPolyEdge.y - startPoint.y) + (end_y * (startPoint.x - startOfPolyEdge.x))) / (dx * end_y - dy * end_x);
-                        double t1 = (startOfPolyEdge.x + dx * t2 - startPoint.x) / end_x;
-
-                        if (t1 > 0 && t2 >= 0 && t2 <= 1.0) {
-                            Vectors2D point = new Vectors2D(startPoint.x + end_x * t1, startPoint.y + end_y * t1);
-                            double dist = point.subtract(startPoint).length();
-                            if (t1 < min_t1 && dist < distance) {
-                                min_t1 = t1;
-                                min_px = point.x;
-                                min_py = point.y;
-                                intersectionFound = true;
-                                closestBody = B;
-                            }
-                        }
-                    }
-                }
-            } else if (B.shape instanceof Circle) {
-                Circle circle = (Circle) B.shape;
-                Vectors2D ray = endPoint.copy();
-                Vectors2D circleCenter = B.position.copy();
-                double r = circle.radius;
-                Vectors2D difInCenters = startPoint.subtract(circleCenter);
-
-                double a = ray.dotProduct(ray);
-                double b = 2 * difInCenters.dotProduct(ray);
-                double c = difInCenters.dotProduct(difInCenters) - r * r;
-
-                double discriminant = b * b - 4 * a * c;
-                if (discriminant >= 0) {
-                    discriminant = Math.sqrt(discriminant);
-
-                    double t1 = (-b - discriminant) / (2 * a);
-                    if (t1 >= 0 && t1 <= 1) {
-                        if (t1 < min_t1) {
-                            min_t1 = t1;
-                            min_px = startPoint.x + end_x * t1;
-                            min_py = startPoint.y + end_y * t1;
-                            intersectionFound = true;
-                            closestBody = B;
-                        }
-                    }
+            double t = RayQuery.intersect(B, startPoint.x, startPoint.y, endX, endY);
+            if (t < minT) {
+                minT = t;
+                closestBody = B;
+            }
+        }
+        setClosest(closestBody, minT, endX, endY);
+    }
+
+    /**
+     * Updates the projection against bodies held in a spatial index. Only cells the ray passes through are visited,
+     * in order from the start point, and the walk stops at the nearest hit. Bodies are only tested exactly if the ray
+     * crosses their bounding box.
+     *
+     * @param index Index of the bodies to evaluate.
+     */
+    public void updateProjection(BodyGrid index) {
+        intersectingBodiesInfo = null;
+        double endX = direction.x * distance;
+        double endY = direction.y * distance;
+        Body[] closest = new Body[1];
+        double minT = castIndexed(index, endX, endY, closest);
+        setClosest(closest[0], minT, endX, endY);
+    }
+
+    /**
+     * Updates the projection against every body in a world, walking the world's static index and slab testing the
+     * dynamic bodies' bounding boxes before testing them exactly.
+     *
+     * @param world World to evaluate.
+     */
+    public void updateProjection(World world) {
+        intersectingBodiesInfo = null;
+        double endX = direction.x * distance;
+        double endY = direction.y * distance;
+        Body[] closest = new Body[1];
+        double minT = castIndexed(world.getStaticIndex(), endX, endY, closest);
+        for (Body B : world.getDynamicBodies()) {
+            if (RayQuery.overlapsAABB(B, startPoint.x, startPoint.y, endX, endY, minT)) {
+                double t = RayQuery.intersect(B, startPoint.x, startPoint.y, endX, endY);
+                if (t < minT) {
+                    minT = t;
+                    closest[0] = B;
                 }
             }
         }
-        if (intersectionFound) {
-            intersectingBodiesInfo = new RayInformation(closestBody, min_px, min_py, -1);
+        setClosest(closest[0], minT, endX, endY);
+    }
+
+    /**
+     * Walks an index for the nearest hit.
+     *
+     * @param index   Index to walk.
+     * @param endX    x component of the ray's end vector.
+     * @param endY    y component of the ray's end vector.
+     * @param closest Single element array the nearest body hit is written to.
+     * @return Parameter of the nearest hit, or just past the end of the ray if nothing was hit.
+     */
+    private double castIndexed(BodyGrid index, double endX, double endY, Body[] closest) {
+        return index.raycast(startPoint.x, startPoint.y, endX, endY, Math.nextUp(1.0), (i, maxT) -> {
+            double t = RayQuery.intersect(index.get(i), startPoint.x, startPoint.y, endX, endY);
+            if (t < maxT) {
+                closest[0] = index.get(i);
+                return t;
+            }
+            return maxT;
+        });
+    }
+
+    private void setClosest(Body closestBody, double t, double endX, double endY) {
+        if (closestBody != null) {
+            intersectingBodiesInfo = new RayInformation(closestBody, startPoint.x + endX * t, startPoint.y + endY * t, -1);
         }
     }
 
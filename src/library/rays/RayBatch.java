@@ -0,0 +1,235 @@
+package library.rays;
+
+import library.dynamics.Body;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Casts many rays from a single origin against a set of bodies.
+ * <p>
+ * Bodies are culled once per batch: those further away than the ray length are dropped, and each remaining body's
+ * angular interval as seen from the origin is matched against the sorted ray angles so every ray only tests the bodies
+ * it can point at. Rays are then resolved independently, in parallel for large batches, and written to a
+ * {@link RayHitBuffer}. Each ray tests its candidates in body order, so results do not depend on threading.
+ * <p>
+ * A batch holds scratch arrays that are reused between casts; use one instance per thread casting batches.
+ */
+public class RayBatch {
+    private static final double PADDING = 1e-6;
+    private static final int INDEX_BITS = 21;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private int parallelThreshold = 256;
+
+    private Body[] candidates = new Body[0];
+    private double[] candidateAngle = new double[0];
+    private double[] candidateHalfWidth = new double[0];
+    private int candidateCount;
+
+    private double[] rayAngle = new double[0];
+    private long[] sortKeys = new long[0];
+    private int[] order = new int[0];
+    private double[] sortedAngle = new double[0];
+    private int[] listStart = new int[1];
+    private int[] listFill = new int[1];
+    private int[] lists = new int[0];
+
+    /**
+     * Sets the number of rays from which a batch is resolved across threads.
+     *
+     * @param parallelThreshold Ray count, use {@link Integer#MAX_VALUE} to always cast on the calling thread.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Casts a batch of rays.
+     *
+     * @param originX     x position all rays start from.
+     * @param originY     y position all rays start from.
+     * @param directionsX x components of the normalised ray directions.
+     * @param directionsY y components of the normalised ray directions.
+     * @param rayCount    Number of rays to cast.
+     * @param distance    Length of every ray.
+     * @param bodies      Bodies to cast against.
+     * @param hits        Buffer the nearest hit of each ray is written to.
+     */
+    public void cast(double originX, double originY, double[] directionsX, double[] directionsY, int rayCount,
+                     double distance, List<Body> bodies, RayHitBuffer hits) {
+        if (rayCount > INDEX_MASK) {
+            throw new IllegalArgumentException("Too many rays in one batch: " + rayCount);
+        }
+        hits.reset(rayCount);
+        cull(originX, originY, distance, bodies);
+        if (candidateCount == 0 || rayCount == 0) {
+            return;
+        }
+        sortRays(directionsX, directionsY, rayCount);
+        buildLists(rayCount);
+
+        if (rayCount >= parallelThreshold) {
+            IntStream.range(0, rayCount).parallel().forEach(
+                    i -> castRay(i, originX, originY, directionsX[i] * distance, directionsY[i] * distance, hits));
+        } else {
+            for (int i = 0; i < rayCount; i++) {
+                castRay(i, originX, originY, directionsX[i] * distance, directionsY[i] * distance, hits);
+            }
+        }
+        Arrays.fill(candidates, 0, candidateCount, null);
+    }
+
+    /**
+     * Keeps the bodies whose bounding circle is within reach of the rays and records the angular interval each one
+     * covers as seen from the origin.
+     */
+    private void cull(double originX, double originY, double distance, List<Body> bodies) {
+        if (candidates.length < bodies.size()) {
+            int capacity = Math.max(bodies.size(), candidates.length * 2);
+            candidates = new Body[capacity];
+            candidateAngle = new double[capacity];
+            candidateHalfWidth = new double[capacity];
+        }
+        candidateCount = 0;
+        for (Body b : bodies) {
+            double extentX = Math.max(Math.abs(b.aabb.getMin().x), Math.abs(b.aabb.getMax().x));
+            double extentY = Math.max(Math.abs(b.aabb.getMin().y), Math.abs(b.aabb.getMax().y));
+            double radius = Math.sqrt(extentX * extentX + extentY * extentY);
+            double dx = b.position.x - originX;
+            double dy = b.position.y - originY;
+            double d = Math.sqrt(dx * dx + dy * dy);
+            if (d - radius > distance) {
+                continue;
+            }
+            candidates[candidateCount] = b;
+            if (d <= radius) {
+                candidateAngle[candidateCount] = 0;
+                candidateHalfWidth[candidateCount] = Math.PI;
+            } else {
+                candidateAngle[candidateCount] = Math.atan2(dy, dx);
+                candidateHalfWidth[candidateCount] = Math.asin(radius / d) + PADDING;
+            }
+            candidateCount++;
+        }
+    }
+
+    /**
+     * Sorts the ray indices by angle. The angle's bits and the index are packed into one long so a primitive sort can
+     * be used; the few low mantissa bits lost are covered by the padding on the candidate intervals.
+     */
+    private void sortRays(double[] directionsX, double[] directionsY, int rayCount) {
+        if (rayAngle.length < rayCount) {
+            int capacity = Math.max(rayCount, rayAngle.length * 2);
+            rayAngle = new double[capacity];
+            sortKeys = new long[capacity];
+            order = new int[capacity];
+            sortedAngle = new double[capacity];
+        }
+        for (int i = 0; i < rayCount; i++) {
+            rayAngle[i] = Math.atan2(directionsY[i], directionsX[i]);
+            //Shifted angles are positive so their bit patterns sort in the same order as their values
+            sortKeys[i] = (Double.doubleToRawLongBits(rayAngle[i] + 4.0) & ~INDEX_MASK) | i;
+        }
+        Arrays.sort(sortKeys, 0, rayCount);
+        for (int k = 0; k < rayCount; k++) {
+            order[k] = (int) (sortKeys[k] & INDEX_MASK);
+            sortedAngle[k] = rayAngle[order[k]];
+        }
+    }
+
+    /**
+     * Builds each ray's list of candidate bodies, in body order.
+     */
+    private void buildLists(int rayCount) {
+        if (listStart.length < rayCount + 1) {
+            listStart = new int[rayCount + 1];
+            listFill = new int[rayCount + 1];
+        }
+        Arrays.fill(listStart, 0, rayCount + 1, 0);
+        for (int c = 0; c < candidateCount; c++) {
+            forEachRay(c, rayCount, true);
+        }
+        for (int i = 0; i < rayCount; i++) {
+            listStart[i + 1] += listStart[i];
+        }
+        if (lists.length < listStart[rayCount]) {
+            lists = new int[Math.max(listStart[rayCount], lists.length * 2)];
+        }
+        System.arraycopy(listStart, 0, listFill, 0, rayCount);
+        for (int c = 0; c < candidateCount; c++) {
+            forEachRay(c, rayCount, false);
+        }
+    }
+
+    /**
+     * Visits every ray inside a candidate's angular interval, either counting it or appending the candidate to the
+     * ray's list.
+     */
+    private void forEachRay(int c, int rayCount, boolean counting) {
+        double half = candidateHalfWidth[c];
+        if (half >= Math.PI) {
+            addRange(c, 0, rayCount, counting);
+            return;
+        }
+        double low = candidateAngle[c] - half;
+        double high = candidateAngle[c] + half;
+        if (low < -Math.PI) {
+            addRange(c, lowerBound(low + 2 * Math.PI, rayCount), rayCount, counting);
+            low = -Math.PI;
+        }
+        if (high > Math.PI) {
+            addRange(c, 0, upperBound(high - 2 * Math.PI, rayCount), counting);
+            high = Math.PI;
+        }
+        addRange(c, lowerBound(low, rayCount), upperBound(high, rayCount), counting);
+    }
+
+    private void addRange(int c, int from, int to, boolean counting) {
+        for (int k = from; k < to; k++) {
+            int ray = order[k];
+            if (counting) {
+                listStart[ray + 1]++;
+            } else {
+                lists[listFill[ray]++] = c;
+            }
+        }
+    }
+
+    private int lowerBound(double angle, int rayCount) {
+        int low = 0, high = rayCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedAngle[mid] < angle) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int upperBound(double angle, int rayCount) {
+        int low = 0, high = rayCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedAngle[mid] <= angle) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private void castRay(int ray, double originX, double originY, double endX, double endY, RayHitBuffer hits) {
+        double minT = Double.POSITIVE_INFINITY;
+        Body closest = null;
+        for (int k = listStart[ray]; k < listStart[ray + 1]; k++) {
+            Body b = candidates[lists[k]];
+            double t = RayQuery.intersect(b, originX, originY, endX, endY);
+            if (t < minT) {
+                minT = t;
+                closest = b;
+            }
+        }
+        if (closest != null) {
+            hits.set(ray, closest, originX + endX * minT, originY + endY * minT, minT);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package library.rays;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder event for a batch of rays projected in one call, such as a shadow casting update.
+ * Disabled by default.
+ */
+@Name("library.rays.RayBatch")
+@Label("Ray Batch")
+@Category({"JPhysics", "Rays"})
+@Description("A batch of rays projected against a set of bodies")
+@Enabled(false)
+@StackTrace(false)
+public class RayBatchEvent extends Event {
+    @Label("Source")
+    @Description("Class that projected the batch")
+    public Class<?> source;
+
+    @Label("Ray Count")
+    public int rayCount;
+
+    @Label("Body Count")
+    public int bodyCount;
+
+    @Label("Hit Count")
+    public int hitCount;
+}
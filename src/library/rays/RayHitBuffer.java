@@ -0,0 +1,125 @@
+package library.rays;
+
+import library.dynamics.Body;
+
+import java.util.Arrays;
+
+/**
+ * Reusable results of a batch of rays, one slot per ray. Hits are stored in primitive arrays so repeated casts do not
+ * allocate once the buffer has grown to the batch size.
+ */
+public class RayHitBuffer {
+    private Body[] bodies = new Body[0];
+    private double[] hitX = new double[0];
+    private double[] hitY = new double[0];
+    private double[] fraction = new double[0];
+    private int size;
+
+    /**
+     * Clears the buffer and sizes it for a batch.
+     *
+     * @param rayCount Number of rays in the batch.
+     */
+    void reset(int rayCount) {
+        if (bodies.length < rayCount) {
+            int capacity = Math.max(rayCount, bodies.length * 2);
+            bodies = new Body[capacity];
+            hitX = new double[capacity];
+            hitY = new double[capacity];
+            fraction = new double[capacity];
+        } else {
+            Arrays.fill(bodies, 0, Math.max(size, rayCount), null);
+        }
+        size = rayCount;
+    }
+
+    /**
+     * Records the hit of a ray.
+     *
+     * @param ray Index of the ray.
+     * @param b   Body hit.
+     * @param x   x position of the hit.
+     * @param y   y position of the hit.
+     * @param t   Fraction of the ray's length at which the hit occurs.
+     */
+    void set(int ray, Body b, double x, double y, double t) {
+        bodies[ray] = b;
+        hitX[ray] = x;
+        hitY[ray] = y;
+        fraction[ray] = t;
+    }
+
+    /**
+     * Getter for the number of rays in the last batch.
+     *
+     * @return Ray count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a ray hit anything.
+     *
+     * @param ray Index of the ray.
+     * @return Whether the ray hit a body.
+     */
+    public boolean hasHit(int ray) {
+        return bodies[ray] != null;
+    }
+
+    /**
+     * Gets the body a ray hit.
+     *
+     * @param ray Index of the ray.
+     * @return The nearest body hit or null.
+     */
+    public Body getBody(int ray) {
+        return bodies[ray];
+    }
+
+    /**
+     * Gets the x position of a ray's hit.
+     *
+     * @param ray Index of the ray.
+     * @return x position, only meaningful if the ray hit.
+     */
+    public double getX(int ray) {
+        return hitX[ray];
+    }
+
+    /**
+     * Gets the y position of a ray's hit.
+     *
+     * @param ray Index of the ray.
+     * @return y position, only meaningful if the ray hit.
+     */
+    public double getY(int ray) {
+        return hitY[ray];
+    }
+
+    /**
+     * Gets how far along a ray its hit lies.
+     *
+     * @param ray Index of the ray.
+     * @return Fraction of the ray's length between 0 and 1, only meaningful if the ray hit.
+     */
+    public double getFraction(int ray) {
+        return fraction[ray];
+    }
+
+    /**
+     * Counts the rays that hit a body.
+     *
+     * @return Number of hits.
+     */
+    public int getHitCount() {
+        int hits = 0;
+        for (int i = 0; i < size; i++) {
+            if (bodies[i] != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,137 @@
+package library.rays;
+
+import library.dynamics.Body;
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.math.Matrix2D;
+import library.math.Vectors2D;
+
+/**
+ * Allocation free intersection tests between ray segments and bodies, shared by {@link Ray} and the batched casts.
+ * A segment runs from a start point along an end vector, points on it are {@code start + t * end} for t in [0, 1].
+ * All methods are stateless and safe to call from several threads.
+ */
+public final class RayQuery {
+    private RayQuery() {
+    }
+
+    /**
+     * Finds where a segment first enters a body's shape.
+     *
+     * @param b      Body to test.
+     * @param startX Start x of the segment.
+     * @param startY Start y of the segment.
+     * @param endX   x component of the end vector.
+     * @param endY   y component of the end vector.
+     * @return Parameter t of the nearest intersection, or positive infinity if the segment misses the body.
+     */
+    public static double intersect(Body b, double startX, double startY, double endX, double endY) {
+        if (b.shape instanceof Polygon) {
+            return intersectPolygon(b, (Polygon) b.shape, startX, startY, endX, endY);
+        } else if (b.shape instanceof Circle) {
+            return intersectCircle(b, ((Circle) b.shape).radius, startX, startY, endX, endY);
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private static double intersectPolygon(Body b, Polygon poly, double startX, double startY, double endX, double endY) {
+        Matrix2D u = poly.orient;
+        Vectors2D[] vertices = poly.vertices;
+        double min = Double.POSITIVE_INFINITY;
+        Vectors2D last = vertices[vertices.length - 1];
+        double ax = u.row1.x * last.x + u.row1.y * last.y + b.position.x;
+        double ay = u.row2.x * last.x + u.row2.y * last.y + b.position.y;
+        for (Vectors2D v : vertices) {
+            double bx = u.row1.x * v.x + u.row1.y * v.y + b.position.x;
+            double by = u.row2.x * v.x + u.row2.y * v.y + b.position.y;
+            double dx = bx - ax;
+            double dy = by - ay;
+            double denominator = dx * endY - dy * endX;
+            //Skips edges parallel to the ray
+            if (denominator != 0.0) {
+                double ox = ax - startX;
+                double oy = ay - startY;
+                double t2 = (endX * oy - endY * ox) / denominator;
+                double t1 = (dx * oy - dy * ox) / denominator;
+                if (t1 > 0 && t1 < 1 && t2 >= 0 && t2 <= 1.0 && t1 < min) {
+                    min = t1;
+                }
+            }
+            ax = bx;
+            ay = by;
+        }
+        return min;
+    }
+
+    private static double intersectCircle(Body b, double r, double startX, double startY, double endX, double endY) {
+        double cx = startX - b.position.x;
+        double cy = startY - b.position.y;
+        double a = endX * endX + endY * endY;
+        double halfB = cx * endX + cy * endY;
+        double c = cx * cx + cy * cy - r * r;
+        double discriminant = halfB * halfB - a * c;
+        if (discriminant >= 0) {
+            double t1 = (-halfB - Math.sqrt(discriminant)) / a;
+            if (t1 >= 0 && t1 <= 1) {
+                return t1;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Slab test of a segment against an axis aligned box.
+     *
+     * @param startX Start x of the segment.
+     * @param startY Start y of the segment.
+     * @param endX   x component of the end vector.
+     * @param endY   y component of the end vector.
+     * @param maxT   Largest parameter of interest, the segment is treated as ending there.
+     * @param minX   Lower x bound of the box.
+     * @param minY   Lower y bound of the box.
+     * @param maxX   Upper x bound of the box.
+     * @param maxY   Upper y bound of the box.
+     * @return Whether the segment touches the box.
+     */
+    public static boolean overlapsBox(double startX, double startY, double endX, double endY, double maxT,
+                                      double minX, double minY, double maxX, double maxY) {
+        double near = 0;
+        double far = maxT;
+        if (endX == 0) {
+            if (startX < minX || startX > maxX) return false;
+        } else {
+            double inverse = 1 / endX;
+            double t0 = (minX - startX) * inverse;
+            double t1 = (maxX - startX) * inverse;
+            near = Math.max(near, Math.min(t0, t1));
+            far = Math.min(far, Math.max(t0, t1));
+        }
+        if (endY == 0) {
+            if (startY < minY || startY > maxY) return false;
+        } else {
+            double inverse = 1 / endY;
+            double t0 = (minY - startY) * inverse;
+            double t1 = (maxY - startY) * inverse;
+            near = Math.max(near, Math.min(t0, t1));
+            far = Math.min(far, Math.max(t0, t1));
+        }
+        return near <= far;
+    }
+
+    /**
+     * Slab test of a segment against a body's world space AABB.
+     *
+     * @param b      Body to test.
+     * @param startX Start x of the segment.
+     * @param startY Start y of the segment.
+     * @param endX   x component of the end vector.
+     * @param endY   y component of the end vector.
+     * @param maxT   Largest parameter of interest.
+     * @return Whether the segment touches the body's AABB.
+     */
+    public static boolean overlapsAABB(Body b, double startX, double startY, double endX, double endY, double maxT) {
+        return overlapsBox(startX, startY, endX, endY, maxT,
+                b.position.x + b.aabb.getMin().x, b.position.y + b.aabb.getMin().y,
+                b.position.x + b.aabb.getMax().x, b.position.y + b.aabb.getMax().y);
+    }
+}
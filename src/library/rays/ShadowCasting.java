@@ -12,14 +12,64 @@ import testbed.ColourSettings;
 import java.awt.*;
 import java.awt.geom.Path2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
 
 /**
  * A class for generating polygons that can mimic line of sight around objects and cast shadows.
+ * <p>
+ * The visibility polygon is found with an angular sweep around the start point. Every edge facing the start point is
+ * turned into a segment, the segment end points are sorted by angle once, and the sweep keeps the segments crossing the
+ * current angle ordered by how close they are to the start point. The polygon gains vertices wherever the nearest
+ * segment changes, so an update costs O(E log E) for E edges instead of casting rays against every body. Circles are
+ * represented by their visible arc, split into short segments between the exact tangent points. Segments are clipped
+ * to the projection distance and the view is bounded by a regular polygon just outside that circle.
+ * <p>
+ * Segments are assumed not to cross. Overlapping bodies break that, which can misplace the polygon boundary inside the
+ * overlap but not elsewhere.
+ * <p>
+ * Each update records which bodies were within reach of the start point and where they were. {@link #update(List)}
+ * reuses the previous polygon when neither the start point nor any of those bodies has moved or rotated and no other
+ * body has come into reach, and {@link #updateAll(List, List)} refreshes many lights at once, recomputing the ones that
+ * need it in parallel. Changes to a body's shape are not detected, call {@link #invalidate()} after making one.
  */
 public class ShadowCasting {
+    private static final int ARC_SEGMENTS = 8;
+    private static final int BOUNDARY_SEGMENTS = 64;
+    private static final int SEGMENT_BITS = 20;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+    private static final long END_BIT = 1L << SEGMENT_BITS;
+    private static final long ANGLE_MASK = ~((END_BIT << 1) - 1);
+
     private final int distance;
     private Vectors2D startPoint;
 
+    private double lightX;
+    private double lightY;
+
+    private double[] beginX = new double[64];
+    private double[] beginY = new double[64];
+    private double[] endX = new double[64];
+    private double[] endY = new double[64];
+    private Body[] segmentBody = new Body[64];
+    private int segmentCount;
+    private long[] events = new long[128];
+    private final TreeSet<Integer> active = new TreeSet<>(this::compareSegments);
+
+    private boolean incremental = true;
+    private boolean valid;
+    private double lastLightX;
+    private double lastLightY;
+    private Body[] tracked = new Body[16];
+    private double[] trackedState = new double[48];
+    private int trackedCount;
+
+    private double[] vertexX = new double[64];
+    private double[] vertexY = new double[64];
+    private Body[] vertexBody = new Body[64];
+    private int vertexCount;
+
     /**
      * Setter for start point.
      *
@@ -40,128 +90,483 @@ public class ShadowCasting {
         this.distance = distance;
     }
 
-    private final ArrayList<RayAngleInformation> rayData = new ArrayList<>();
-
     /**
-     * Updates the all projections in world space and acquires information about all intersecting rays.
+     * Updates the visibility polygon in world space. If the start point lies inside a body the polygon is empty.
      *
-     * @param bodiesToEvaluate Arraylist of bodies to check if they intersect with the ray projection.
-     */
-    public void updateProjections(ArrayList<Body> bodiesToEvaluate) {
-        rayData.clear();
-        for (Body B : bodiesToEvaluate) {
-            if (Arbiter.isPointInside(B, startPoint)) {
-                rayData.clear();
-                break;
+     * @param bodiesToEvaluate Arraylist of bodies that can block line of sight.
+     */
+    public void updateProjections(List<Body> bodiesToEvaluate) {
+        RayBatchEvent event = new RayBatchEvent();
+        event.begin();
+        lightX = startPoint.x;
+        lightY = startPoint.y;
+        clearVertices();
+        if (collectSegments(bodiesToEvaluate)) {
+            sweep();
+        }
+        lastLightX = lightX;
+        lastLightY = lightY;
+        valid = true;
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = ShadowCasting.class;
+            event.rayCount = vertexCount;
+            event.bodyCount = bodiesToEvaluate.size();
+            for (int i = 0; i < vertexCount; i++) {
+                if (vertexBody[i] != null) {
+                    event.hitCount++;
+                }
             }
-            if (B.shape instanceof Polygon) {
-                Polygon poly1 = (Polygon) B.shape;
-                for (Vectors2D v : poly1.vertices) {
-                    Vectors2D direction = poly1.orient.mul(v, new Vectors2D()).addi(B.position).subtract(startPoint);
-                    projectRays(direction, bodiesToEvaluate);
+            event.commit();
+        }
+    }
+
+    /**
+     * Updates the visibility polygon only if something that could change it has changed since the last update.
+     *
+     * @param bodiesToEvaluate Arraylist of bodies that can block line of sight.
+     * @return Whether the polygon was recomputed.
+     */
+    public boolean update(List<Body> bodiesToEvaluate) {
+        if (!needsUpdate(bodiesToEvaluate)) {
+            return false;
+        }
+        updateProjections(bodiesToEvaluate);
+        return true;
+    }
+
+    /**
+     * Updates a set of lights against the same bodies. Each light checks on its own whether it needs recomputing and
+     * the lights are handled in parallel, so the bodies must not change during the call.
+     *
+     * @param lights           Lights to update.
+     * @param bodiesToEvaluate Arraylist of bodies that can block line of sight.
+     * @return Number of lights recomputed.
+     */
+    public static int updateAll(List<ShadowCasting> lights, List<Body> bodiesToEvaluate) {
+        if (lights.size() < 2) {
+            int recomputed = 0;
+            for (ShadowCasting light : lights) {
+                if (light.update(bodiesToEvaluate)) {
+                    recomputed++;
                 }
-            } else {
-                Circle circle = (Circle) B.shape;
-                Vectors2D d = B.position.subtract(startPoint);
-                double angle = Math.asin(circle.radius / d.length());
-                Matrix2D u = new Matrix2D(angle);
-                projectRays(u.mul(d.normalize(), new Vectors2D()), bodiesToEvaluate);
-                Matrix2D u2 = new Matrix2D(-angle);
-                projectRays(u2.mul(d.normalize(), new Vectors2D()), bodiesToEvaluate);
             }
+            return recomputed;
         }
-        rayData.sort((lhs, rhs) -> Double.compare(rhs.getANGLE(), lhs.getANGLE()));
+        return lights.parallelStream().mapToInt(light -> light.update(bodiesToEvaluate) ? 1 : 0).sum();
     }
 
     /**
-     * Projects a ray and evaluates it against all objects supplied in world space.
+     * Checks whether the start point, or any body within reach of it, has moved since the last update.
      *
-     * @param direction        Direction of ray to project.
-     * @param bodiesToEvaluate Arraylist of bodies to check if they intersect with the ray projection.
+     * @param bodiesToEvaluate Arraylist of bodies that can block line of sight.
+     * @return Whether the visibility polygon may be out of date.
+     */
+    public boolean needsUpdate(List<Body> bodiesToEvaluate) {
+        if (!incremental || !valid || startPoint.x != lastLightX || startPoint.y != lastLightY) {
+            return true;
+        }
+        int k = 0;
+        for (Body b : bodiesToEvaluate) {
+            if (reach(b, lastLightX, lastLightY) > distance) {
+                continue;
+            }
+            if (k == trackedCount || tracked[k] != b) {
+                return true;
+            }
+            int state = k * 3;
+            if (b.position.x != trackedState[state] || b.position.y != trackedState[state + 1]
+                    || b.orientation != trackedState[state + 2]) {
+                return true;
+            }
+            k++;
+        }
+        return k != trackedCount;
+    }
+
+    /**
+     * Forces the next {@link #update(List)} to recompute the visibility polygon.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Sets whether {@link #update(List)} may reuse the previous visibility polygon.
+     *
+     * @param incremental False to recompute on every update.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Distance from a point to the nearest point of a body's bounding circle.
+     */
+    private static double reach(Body b, double x, double y) {
+        double extentX = Math.max(Math.abs(b.aabb.getMin().x), Math.abs(b.aabb.getMax().x));
+        double extentY = Math.max(Math.abs(b.aabb.getMin().y), Math.abs(b.aabb.getMax().y));
+        double dx = b.position.x - x;
+        double dy = b.position.y - y;
+        return Math.sqrt(dx * dx + dy * dy) - Math.sqrt(extentX * extentX + extentY * extentY);
+    }
+
+    /**
+     * Turns the edges of all bodies in reach that face the start point into segments, followed by the boundary. The
+     * bodies in reach are recorded for {@link #needsUpdate(List)}.
+     *
+     * @return False if the start point is inside a body, in which case nothing is visible.
+     */
+    private boolean collectSegments(List<Body> bodiesToEvaluate) {
+        segmentCount = 0;
+        Arrays.fill(tracked, 0, trackedCount, null);
+        trackedCount = 0;
+        boolean blocked = false;
+        for (Body b : bodiesToEvaluate) {
+            double dx = b.position.x - lightX;
+            double dy = b.position.y - lightY;
+            double d = Math.sqrt(dx * dx + dy * dy);
+            double reach = reach(b, lightX, lightY);
+            if (reach > distance) {
+                continue;
+            }
+            track(b);
+            if (blocked) {
+                continue;
+            }
+            if (reach <= 0 && Arbiter.isPointInside(b, startPoint)) {
+                segmentCount = 0;
+                blocked = true;
+                continue;
+            }
+            if (b.shape instanceof Polygon) {
+                addPolygon(b, (Polygon) b.shape);
+            } else if (b.shape instanceof Circle) {
+                addArc(b, ((Circle) b.shape).radius, -dx, -dy, d);
+            }
+        }
+        if (blocked) {
+            return false;
+        }
+        //The boundary circumscribes the projection circle so clipped segments never cross it
+        double step = 2 * Math.PI / BOUNDARY_SEGMENTS;
+        double r = distance / Math.cos(step * 0.5);
+        for (int i = 0; i < BOUNDARY_SEGMENTS; i++) {
+            addSegment(null, lightX + r * Math.cos(i * step), lightY + r * Math.sin(i * step),
+                    lightX + r * Math.cos((i + 1) * step), lightY + r * Math.sin((i + 1) * step));
+        }
+        return true;
+    }
+
+    private void track(Body b) {
+        if (trackedCount == tracked.length) {
+            tracked = Arrays.copyOf(tracked, trackedCount * 2);
+            trackedState = Arrays.copyOf(trackedState, trackedCount * 6);
+        }
+        int state = trackedCount * 3;
+        tracked[trackedCount] = b;
+        trackedState[state] = b.position.x;
+        trackedState[state + 1] = b.position.y;
+        trackedState[state + 2] = b.orientation;
+        trackedCount++;
+    }
+
+    private void addPolygon(Body b, Polygon poly) {
+        Matrix2D u = poly.orient;
+        Vectors2D[] vertices = poly.vertices;
+        Vectors2D last = vertices[vertices.length - 1];
+        double ax = u.row1.x * last.x + u.row1.y * last.y + b.position.x;
+        double ay = u.row2.x * last.x + u.row2.y * last.y + b.position.y;
+        for (Vectors2D v : vertices) {
+            double bx = u.row1.x * v.x + u.row1.y * v.y + b.position.x;
+            double by = u.row2.x * v.x + u.row2.y * v.y + b.position.y;
+            //Vertices wind anticlockwise, so edges with the start point on their right face it
+            if ((bx - ax) * (lightY - ay) - (by - ay) * (lightX - ax) < 0) {
+                addClipped(b, ax, ay, bx, by);
+            }
+            ax = bx;
+            ay = by;
+        }
+    }
+
+    /**
+     * Adds the arc of a circle visible from the start point, running between the two tangent points.
+     */
+    private void addArc(Body b, double r, double toLightX, double toLightY, double d) {
+        double facing = Math.atan2(toLightY, toLightX);
+        double halfArc = Math.acos(r / d);
+        double step = 2 * halfArc / ARC_SEGMENTS;
+        double ax = b.position.x + r * Math.cos(facing - halfArc);
+        double ay = b.position.y + r * Math.sin(facing - halfArc);
+        for (int i = 1; i <= ARC_SEGMENTS; i++) {
+            double bx = b.position.x + r * Math.cos(facing - halfArc + i * step);
+            double by = b.position.y + r * Math.sin(facing - halfArc + i * step);
+            addClipped(b, ax, ay, bx, by);
+            ax = bx;
+            ay = by;
+        }
+    }
+
+    /**
+     * Adds the part of a segment within the projection distance of the start point.
+     */
+    private void addClipped(Body b, double x1, double y1, double x2, double y2) {
+        double qx = x1 - lightX;
+        double qy = y1 - lightY;
+        double ex = x2 - x1;
+        double ey = y2 - y1;
+        double a = ex * ex + ey * ey;
+        double halfB = qx * ex + qy * ey;
+        double c = qx * qx + qy * qy - (double) distance * distance;
+        double discriminant = halfB * halfB - a * c;
+        if (a == 0 || discriminant <= 0) {
+            return;
+        }
+        double root = Math.sqrt(discriminant);
+        double s0 = Math.max(0, (-halfB - root) / a);
+        double s1 = Math.min(1, (-halfB + root) / a);
+        if (s0 >= s1) {
+            return;
+        }
+        if (s0 == 0 && s1 == 1) {
+            addSegment(b, x1, y1, x2, y2);
+        } else {
+            addSegment(b, x1 + ex * s0, y1 + ey * s0, x1 + ex * s1, y1 + ey * s1);
+        }
+    }
+
+    /**
+     * Adds a segment with its end points ordered so the sweep, which runs anticlockwise, meets the first one first.
+     * Segments pointing straight at the start point block nothing and are skipped.
+     */
+    private void addSegment(Body b, double x1, double y1, double x2, double y2) {
+        double cross = (x1 - lightX) * (y2 - lightY) - (y1 - lightY) * (x2 - lightX);
+        if (cross == 0) {
+            return;
+        }
+        if (segmentCount > SEGMENT_MASK) {
+            throw new IllegalStateException("Too many segments in one visibility polygon");
+        }
+        if (segmentCount == beginX.length) {
+            int capacity = segmentCount * 2;
+            beginX = Arrays.copyOf(beginX, capacity);
+            beginY = Arrays.copyOf(beginY, capacity);
+            endX = Arrays.copyOf(endX, capacity);
+            endY = Arrays.copyOf(endY, capacity);
+            segmentBody = Arrays.copyOf(segmentBody, capacity);
+        }
+        boolean forward = cross > 0;
+        beginX[segmentCount] = forward ? x1 : x2;
+        beginY[segmentCount] = forward ? y1 : y2;
+        endX[segmentCount] = forward ? x2 : x1;
+        endY[segmentCount] = forward ? y2 : y1;
+        segmentBody[segmentCount] = b;
+        segmentCount++;
+    }
+
+    /**
+     * Sweeps the segment end points in angle order. The first pass only fills the active set, leaving it holding the
+     * segments that straddle the angle where the sweep starts; the second pass records the polygon.
      */
-    private void projectRays(Vectors2D direction, ArrayList<Body> bodiesToEvaluate) {
-        Matrix2D m = new Matrix2D(0.001);
-        m.transpose().mul(direction);
-        for (int i = 0; i < 3; i++) {
-            Ray ray = new Ray(startPoint, direction, distance);
-            ray.updateProjection(bodiesToEvaluate);
-            rayData.add(new RayAngleInformation(ray, Math.atan2(direction.y, direction.x)));
-            m.mul(direction);
+    private void sweep() {
+        int eventCount = segmentCount * 2;
+        if (events.length < eventCount) {
+            events = new long[Math.max(eventCount, events.length * 2)];
+        }
+        for (int s = 0; s < segmentCount; s++) {
+            events[2 * s] = eventKey(beginX[s], beginY[s]) | s;
+            events[2 * s + 1] = eventKey(endX[s], endY[s]) | END_BIT | s;
+        }
+        //Angles equal to within the dropped bits sort begins before ends, so edges sharing a vertex hand over cleanly
+        Arrays.sort(events, 0, eventCount);
+
+        active.clear();
+        for (int pass = 0; pass < 2; pass++) {
+            for (int k = 0; k < eventCount; k++) {
+                int segment = (int) (events[k] & SEGMENT_MASK);
+                boolean end = (events[k] & END_BIT) != 0;
+                Integer nearest = active.isEmpty() ? null : active.first();
+                if (end) {
+                    //A tree search can miss a segment whose order went stale where segments cross
+                    if (!active.remove(segment) && pass == 1) {
+                        active.removeIf(s -> s == segment);
+                    }
+                } else {
+                    active.add(segment);
+                }
+                if (pass == 0 || active.isEmpty()) {
+                    continue;
+                }
+                Integer next = active.first();
+                if (!next.equals(nearest)) {
+                    double x = end ? endX[segment] : beginX[segment];
+                    double y = end ? endY[segment] : beginY[segment];
+                    if (nearest != null) {
+                        addIntersection(nearest, segment, x, y);
+                    }
+                    addIntersection(next, segment, x, y);
+                }
+            }
         }
+        active.clear();
+    }
+
+    /**
+     * Packs an end point's angle around the start point into the high bits of a sort key.
+     */
+    private long eventKey(double x, double y) {
+        //Shifted angles are positive so their bit patterns sort in the same order as their values
+        return Double.doubleToRawLongBits(Math.atan2(y - lightY, x - lightX) + 4.0) & ANGLE_MASK;
     }
 
     /**
-     * Debug draw method for all polygons generated and rays.
+     * Adds the point where the ray from the start point through an event point meets a segment.
+     */
+    private void addIntersection(int segment, int eventSegment, double x, double y) {
+        if (segment == eventSegment) {
+            addVertex(x, y, segmentBody[segment]);
+            return;
+        }
+        double dx = x - lightX;
+        double dy = y - lightY;
+        double ex = endX[segment] - beginX[segment];
+        double ey = endY[segment] - beginY[segment];
+        double denominator = dx * ey - dy * ex;
+        double t = denominator == 0 ? 1 : ((beginX[segment] - lightX) * ey - (beginY[segment] - lightY) * ex) / denominator;
+        addVertex(lightX + dx * t, lightY + dy * t, segmentBody[segment]);
+    }
+
+    private void addVertex(double x, double y, Body b) {
+        if (vertexCount > 0 && vertexX[vertexCount - 1] == x && vertexY[vertexCount - 1] == y) {
+            return;
+        }
+        if (vertexCount == vertexX.length) {
+            int capacity = vertexCount * 2;
+            vertexX = Arrays.copyOf(vertexX, capacity);
+            vertexY = Arrays.copyOf(vertexY, capacity);
+            vertexBody = Arrays.copyOf(vertexBody, capacity);
+        }
+        vertexX[vertexCount] = x;
+        vertexY[vertexCount] = y;
+        vertexBody[vertexCount] = b;
+        vertexCount++;
+    }
+
+    private void clearVertices() {
+        Arrays.fill(vertexBody, 0, vertexCount, null);
+        vertexCount = 0;
+    }
+
+    /**
+     * Orders two segments that both cross the sweep ray, nearest to the start point first.
+     */
+    private int compareSegments(Integer a, Integer b) {
+        if (a.intValue() == b.intValue()) {
+            return 0;
+        }
+        boolean aFirst = inFront(a, b);
+        boolean bFirst = inFront(b, a);
+        if (aFirst != bFirst) {
+            return aFirst ? -1 : 1;
+        }
+        //Crossing or touching segments fall back to the distance of their midpoints
+        int byDistance = Double.compare(midpointDistance(a), midpointDistance(b));
+        return byDistance != 0 ? byDistance : Integer.compare(a, b);
+    }
+
+    /**
+     * Checks whether segment a blocks the start point's view of segment b. Points just inside each segment's end points
+     * are used so segments sharing a vertex are still ordered.
+     */
+    private boolean inFront(int a, int b) {
+        int b1 = side(a, interpolate(beginX[b], endX[b]), interpolate(beginY[b], endY[b]));
+        int b2 = side(a, interpolate(endX[b], beginX[b]), interpolate(endY[b], beginY[b]));
+        int bLight = side(a, lightX, lightY);
+        if (b1 == b2 && b1 != bLight) {
+            return true;
+        }
+        int a1 = side(b, interpolate(beginX[a], endX[a]), interpolate(beginY[a], endY[a]));
+        int a2 = side(b, interpolate(endX[a], beginX[a]), interpolate(endY[a], beginY[a]));
+        int aLight = side(b, lightX, lightY);
+        return a1 == a2 && a1 == aLight;
+    }
+
+    private static double interpolate(double from, double to) {
+        return from + (to - from) * 0.01;
+    }
+
+    private int side(int segment, double x, double y) {
+        double cross = (endX[segment] - beginX[segment]) * (y - beginY[segment])
+                - (endY[segment] - beginY[segment]) * (x - beginX[segment]);
+        return cross > 0 ? 1 : cross < 0 ? -1 : 0;
+    }
+
+    private double midpointDistance(int segment) {
+        double x = (beginX[segment] + endX[segment]) * 0.5 - lightX;
+        double y = (beginY[segment] + endY[segment]) * 0.5 - lightY;
+        return x * x + y * y;
+    }
+
+    /**
+     * Debug draw method for the visibility polygon.
      *
      * @param g             Graphics2D object to draw to
      * @param paintSettings Colour settings to draw the objects to screen with
      * @param camera        Camera class used to convert points from world space to view space
      */
     // public void draw(Graphics2D g, ColourSettings paintSettings, Camera camera) {
-    //     for (int i = 0; i < rayData.size(); i++) {
-    //         Ray ray1 = rayData.get(i).getRAY();
-    //         Ray ray2 = rayData.get(i + 1 == rayData.size() ? 0 : i + 1).getRAY();
-    //         g.setColor(paintSettings.shadow);
-
-    //         Path2D.Double s = new Path2D.Double();
-    //         Vectors2D worldStartPoint = camera.convertToScreen(startPoint);
-    //         s.moveTo(worldStartPoint.x, worldStartPoint.y);
-    //         if (ray1.getRayInformation() != null) {
-    //             Vectors2D point1 = camera.convertToScreen(ray1.getRayInformation().getCoord());
-    //             s.lineTo(point1.x, point1.y);
-    //         }
-    //         if (ray2.getRayInformation() != null) {
-    //             Vectors2D point2 = camera.convertToScreen(ray2.getRayInformation().getCoord());
-    //             s.lineTo(point2.x, point2.y);
-    //         }
-    //         s.closePath();
-    //         g.fill(s);
+    //     if (vertexCount == 0) {
+    //         return;
+    //     }
+    //     g.setColor(paintSettings.shadow);
+    //     Path2D.Double s = new Path2D.Double();
+    //     Vectors2D first = camera.convertToScreen(new Vectors2D(vertexX[0], vertexY[0]));
+    //     s.moveTo(first.x, first.y);
+    //     for (int i = 1; i < vertexCount; i++) {
+    //         Vectors2D point = camera.convertToScreen(new Vectors2D(vertexX[i], vertexY[i]));
+    //         s.lineTo(point.x, point.y);
     //     }
+    //     s.closePath();
+    //     g.fill(s);
     // }
 
     /**
-     * Getter for number of rays projected.
+     * Getter for the number of vertices of the visibility polygon.
      *
-     * @return Returns size of raydata.
+     * @return Returns the vertex count.
      */
     public int getNoOfRays() {
-        return rayData.size();
+        return vertexCount;
     }
-}
-
-/**
- * Ray information class to store relevant data about rays and any intersection found specific to shadow casting.
- */
-class RayAngleInformation {
-    private final Ray RAY;
-    private final double ANGLE;
 
     /**
-     * Constructor to store ray information.
+     * Gets the x position of a vertex of the visibility polygon. Vertices are ordered anticlockwise around the start
+     * point.
      *
-     * @param ray   Ray of intersection.
-     * @param angle Angle the ray is set to.
+     * @param i Index of the vertex.
+     * @return x position in world space.
      */
-    public RayAngleInformation(Ray ray, double angle) {
-        this.RAY = ray;
-        this.ANGLE = angle;
+    public double getX(int i) {
+        return vertexX[i];
     }
 
     /**
-     * Getter for RAY.
+     * Gets the y position of a vertex of the visibility polygon.
      *
-     * @return returns RAY.
+     * @param i Index of the vertex.
+     * @return y position in world space.
      */
-    public Ray getRAY() {
-        return RAY;
+    public double getY(int i) {
+        return vertexY[i];
     }
 
     /**
-     * Getter for ANGLE.
+     * Gets the body a vertex of the visibility polygon lies on.
      *
-     * @return returns ANGLE.
+     * @param i Index of the vertex.
+     * @return The body, or null if the vertex lies on the boundary of the projection distance.
      */
-    public double getANGLE() {
-        return ANGLE;
+    public Body getBody(int i) {
+        return vertexBody[i];
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,12 @@
 package library.rays;
 
+import library.collision.BodyGrid;
 import library.dynamics.Body;
+import library.dynamics.Settings;
 import library.dynamics.World;
 import library.geometry.Circle;
 import library.geometry.Polygon;
+import library.math.Matrix2D;
 import library.math.Vectors2D;
 import testbed.Camera;
 import testbed.ColourSettings;
@@ -11,6 +14,8 @@ import testbed.ColourSettings;
 import java.awt.*;
 import java.awt.geom.Line2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Class to allow two polygons to be sliced.
@@ -34,149 +39,262 @@ public class Slice {
     }
 
     private final ArrayList<RayInformation> intersectingBodiesInfo = new ArrayList<>();
+    private int[] staticVisited = new int[0];
+    private int staticStamp;
 
     /**
-     * Updates the projection in world space and acquires information about the closest intersecting object with the ray projection.
+     * Updates the projection in world space and finds every body the slice passes all the way through. Static bodies
+     * are found by walking the world's static index along the slice and dynamic bodies are rejected by their bounds
+     * before their shape is clipped.
      *
-     * @param bodiesToEvaluate Arraylist of bodies to check if they intersect with the ray projection.
+     * @param world World whose bodies are checked against the ray projection.
      */
-    public void updateProjection(ArrayList<Body> bodiesToEvaluate) {
+    public void updateProjection(World world) {
         intersectingBodiesInfo.clear();
-        Vectors2D endPoint = direction.scalar(distance);
-        double end_x = endPoint.x;
-        double end_y = endPoint.y;
+        double startX = startPoint.x;
+        double startY = startPoint.y;
+        double endX = direction.x * distance;
+        double endY = direction.y * distance;
+
+        for (Body B : world.getDynamicBodies()) {
+            if (RayQuery.overlapsAABB(B, startX, startY, endX, endY, 1.0)) {
+                addCut(B, startX, startY, endX, endY);
+            }
+        }
 
-        double min_t1 = Double.POSITIVE_INFINITY;
-        double min_px = 0, min_py = 0;
-        int noOfIntersections = 0;
+        List<Body> statics = world.getStaticBodies();
+        BodyGrid index = world.getStaticIndex();
+        if (staticVisited.length < statics.size()) {
+            staticVisited = new int[statics.size()];
+            staticStamp = 0;
+        }
+        int stamp = ++staticStamp;
+        index.raycast(startX, startY, endX, endY, 1.0, (i, maxT) -> {
+            //A body spanning several cells is visited once per cell
+            if (staticVisited[i] != stamp) {
+                staticVisited[i] = stamp;
+                addCut(index.get(i), startX, startY, endX, endY);
+            }
+            return maxT;
+        });
+    }
 
+    /**
+     * Updates the projection in world space and finds every body the slice passes all the way through.
+     *
+     * @param bodiesToEvaluate Arraylist of bodies to check if they intersect with the ray projection.
+     */
+    public void updateProjection(ArrayList<Body> bodiesToEvaluate) {
+        intersectingBodiesInfo.clear();
+        double endX = direction.x * distance;
+        double endY = direction.y * distance;
         for (Body B : bodiesToEvaluate) {
-            if (B.shape instanceof Polygon) {
-                Polygon poly = (Polygon) B.shape;
-                for (int i = 0; i < poly.vertices.length; i++) {
-                    Vectors2D startOfPolyEdge = poly.vertices[i];
-                    Vectors2D endOfPolyEdge = poly.vertices[i + 1 == poly.vertices.length ? 0 : i + 1];
-                    startOfPolyEdge = poly.orient.mul(startOfPolyEdge, new Vectors2D()).addi(B.position);
-                    endOfPolyEdge = poly.orient.mul(endOfPolyEdge, new Vectors2D()).addi(B.position);
-                    double dx = endOfPolyEdge.x - startOfPolyEdge.x;
-                    double dy = endOfPolyEdge.y - startOfPolyEdge.y;
-
-                    //Check to see if the lines are not parallel
-                    if ((dx - end_x) != 0.0 && (dy - end_y) != 0.0) {
-                        double t2 = (end_x * (startOfPolyEdge.y - startPoint.y) + (end_y * (startPoint.x - startOfPolyEdge.x))) / (dx * end_y - dy * end_x);
-                        double t1 = (startOfPolyEdge.x + dx * t2 - startPoint.x) / end_x;
-
-                        if (t1 > 0 && t2 >= 0 && t2 <= 1.0) {
-                            Vectors2D point = new Vectors2D(startPoint.x + end_x * t1, startPoint.y + end_y * t1);
-                            double dist = point.subtract(startPoint).length();
-                            if (dist < distance) {
-                                min_px = point.x;
-                                min_py = point.y;
-                                intersectingBodiesInfo.add(new RayInformation(B, min_px, min_py, i));
-                                noOfIntersections++;
-                            }
-                        }
+            if (RayQuery.overlapsAABB(B, startPoint.x, startPoint.y, endX, endY, 1.0)) {
+                addCut(B, startPoint.x, startPoint.y, endX, endY);
+            }
+        }
+    }
+
+    /**
+     * Clips the slice against a body and records the entry and exit points if the slice crosses it completely.
+     * Polygons are clipped in their local space against each face, recording the face index entered and left through.
+     */
+    private void addCut(Body B, double startX, double startY, double endX, double endY) {
+        double tEnter;
+        double tExit;
+        int enterIndex = -1;
+        int exitIndex = -1;
+        if (B.shape instanceof Polygon) {
+            Polygon poly = (Polygon) B.shape;
+            Matrix2D u = poly.orient;
+            double relX = startX - B.position.x;
+            double relY = startY - B.position.y;
+            double localStartX = u.row1.x * relX + u.row2.x * relY;
+            double localStartY = u.row1.y * relX + u.row2.y * relY;
+            double localEndX = u.row1.x * endX + u.row2.x * endY;
+            double localEndY = u.row1.y * endX + u.row2.y * endY;
+
+            tEnter = Double.NEGATIVE_INFINITY;
+            tExit = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < poly.vertices.length; i++) {
+                Vectors2D normal = poly.normals[i];
+                Vectors2D vertex = poly.vertices[i];
+                double numerator = normal.x * (vertex.x - localStartX) + normal.y * (vertex.y - localStartY);
+                double denominator = normal.x * localEndX + normal.y * localEndY;
+                if (denominator == 0) {
+                    if (numerator < 0) {
+                        return;
                     }
-                }
-            } else if (B.shape instanceof Circle) {
-                Circle circle = (Circle) B.shape;
-                Vectors2D ray = endPoint.copy();
-                Vectors2D circleCenter = B.position.copy();
-                double r = circle.radius;
-                Vectors2D difInCenters = startPoint.subtract(circleCenter);
-
-                double a = ray.dotProduct(ray);
-                double b = 2 * difInCenters.dotProduct(ray);
-                double c = difInCenters.dotProduct(difInCenters) - r * r;
-
-                double discriminant = b * b - 4 * a * c;
-                if (discriminant > 0) {
-                    discriminant = Math.sqrt(discriminant);
-
-                    double t1 = (-b - discriminant) / (2 * a);
-                    if (t1 >= 0 && t1 <= 1) {
-                        min_px = startPoint.x + end_x * t1;
-                        min_py = startPoint.y + end_y * t1;
-                        intersectingBodiesInfo.add(new RayInformation(B, min_px, min_py, -1));
+                } else if (denominator < 0) {
+                    double t = numerator / denominator;
+                    if (t > tEnter) {
+                        tEnter = t;
+                        enterIndex = i;
                     }
-
-                    double t2 = (-b + discriminant) / (2 * a);
-                    if (t2 >= 0 && t2 <= 1) {
-                        min_px = startPoint.x + end_x * t2;
-                        min_py = startPoint.y + end_y * t2;
-                        intersectingBodiesInfo.add(new RayInformation(B, min_px, min_py, -1));
+                } else {
+                    double t = numerator / denominator;
+                    if (t < tExit) {
+                        tExit = t;
+                        exitIndex = i;
                     }
                 }
+                if (tEnter >= tExit) {
+                    return;
+                }
             }
-            if (noOfIntersections % 2 == 1) {
-                intersectingBodiesInfo.remove(intersectingBodiesInfo.size() - 1);
-                noOfIntersections = 0;
+        } else if (B.shape instanceof Circle) {
+            double r = ((Circle) B.shape).radius;
+            double dx = startX - B.position.x;
+            double dy = startY - B.position.y;
+            double a = endX * endX + endY * endY;
+            double b = 2 * (dx * endX + dy * endY);
+            double c = dx * dx + dy * dy - r * r;
+            double discriminant = b * b - 4 * a * c;
+            if (discriminant <= 0) {
+                return;
             }
+            discriminant = Math.sqrt(discriminant);
+            tEnter = (-b - discriminant) / (2 * a);
+            tExit = (-b + discriminant) / (2 * a);
+        } else {
+            return;
+        }
+        if (tEnter > 0 && tExit < 1) {
+            intersectingBodiesInfo.add(new RayInformation(B, startX + endX * tEnter, startY + endY * tEnter, enterIndex));
+            intersectingBodiesInfo.add(new RayInformation(B, startX + endX * tExit, startY + endY * tExit, exitIndex));
         }
     }
 
     /**
-     * Slices any polygons in the world supplied that intersect with the ray projection.
+     * Slices any polygons in the world supplied that the ray projection passes all the way through, and removes any
+     * circles it passes through. The projection is brought up to date first. Each polygon is split along the slice into
+     * two halves that keep its motion and material, with their mass found from the clipped vertices directly. The new
+     * bodies are added and the cut bodies removed together once every cut has been made.
      *
      * @param world World object for the slice to effect.
      */
     public void sliceObjects(World world) {
-        int k = intersectingBodiesInfo.size() % 2;
-        for (int i = 0; i < intersectingBodiesInfo.size() - k; i += 2) {
-            Body b = intersectingBodiesInfo.get(i).getB();
-            boolean isStatic = b.mass == 0.0;
+        updateProjection(world);
+        ArrayList<Body> added = new ArrayList<>();
+        ArrayList<Body> removed = new ArrayList<>();
+        for (int i = 0; i + 1 < intersectingBodiesInfo.size(); i += 2) {
+            RayInformation enter = intersectingBodiesInfo.get(i);
+            RayInformation exit = intersectingBodiesInfo.get(i + 1);
+            Body b = enter.getB();
             if (b.shape instanceof Polygon) {
-                Polygon p = (Polygon) b.shape;
-
-                RayInformation intersection1 = intersectingBodiesInfo.get(i);
-                RayInformation intersection2 = intersectingBodiesInfo.get(i + 1);
-
-                int obj1firstIndex = intersection1.getIndex();
-                int secondIndex = intersection2.getIndex();
-                int obj2firstIndex = obj1firstIndex;
-
-                int totalVerticesObj1 = (obj1firstIndex + 2) + (p.vertices.length - secondIndex);
-                Vectors2D[] obj1Vertz = new Vectors2D[totalVerticesObj1];
-
-                for (int x = 0; x < obj1firstIndex + 1; x++) {
-                    obj1Vertz[x] = b.shape.orient.mul(p.vertices[x], new Vectors2D()).addi(b.position);
+                if (!split(b, (Polygon) b.shape, enter, exit, world.isDeterministic(), added)) {
+                    continue;
                 }
+            }
+            removed.add(b);
+        }
+        world.removeBodies(removed);
+        world.addBodies(added);
+        intersectingBodiesInfo.clear();
+    }
 
-                obj1Vertz[++obj1firstIndex] = intersectingBodiesInfo.get(i).getCoord();
-                obj1Vertz[++obj1firstIndex] = intersectingBodiesInfo.get(i + 1).getCoord();
-
-                for (int x = secondIndex + 1; x < p.vertices.length; x++) {
-                    obj1Vertz[++obj1firstIndex] = b.shape.orient.mul(p.vertices[x], new Vectors2D()).addi(b.position);
-                }
+    /**
+     * Splits a polygon into the two halves either side of the slice.
+     *
+     * @return Whether both halves were large enough to keep, otherwise the body is left as it is.
+     */
+    private boolean split(Body b, Polygon p, RayInformation enter, RayInformation exit, boolean strict, ArrayList<Body> added) {
+        Vectors2D enterPoint = toLocal(b, enter.getCoord());
+        Vectors2D exitPoint = toLocal(b, exit.getCoord());
+        int n = p.vertices.length;
+        int enterIndex = enter.getIndex();
+        int exitIndex = exit.getIndex();
+
+        //Walks the vertices from the face entered to the face left, then from the face left back to the face entered
+        Vectors2D[] first = piece(p.vertices, enterPoint, enterIndex, exitIndex, exitPoint);
+        Vectors2D[] second = piece(p.vertices, exitPoint, exitIndex, enterIndex, enterPoint);
+        if (first == null || second == null) {
+            return false;
+        }
 
-                Vectors2D polyCentre = findPolyCentre(obj1Vertz);
-                Body b1 = new Body(new Polygon(obj1Vertz), polyCentre.x, polyCentre.y);
-                if (isStatic)
-                    b1.setDensity(0.0);
-                world.addBody(b1);
+        boolean isStatic = b.invMass == 0.0;
+        double density = isStatic ? 0.0 : b.mass / area(p.vertices, n);
+        added.add(createPiece(b, first, isStatic, density, strict));
+        added.add(createPiece(b, second, isStatic, density, strict));
+        return true;
+    }
 
-                totalVerticesObj1 = secondIndex - obj2firstIndex + 2;
-                Vectors2D[] obj2Vertz = new Vectors2D[totalVerticesObj1];
+    /**
+     * Gathers the vertices of one half, dropping any that coincide with their neighbour.
+     *
+     * @return Vertices of the half in local space, or null if it has no area.
+     */
+    private static Vectors2D[] piece(Vectors2D[] vertices, Vectors2D from, int fromIndex, int toIndex, Vectors2D to) {
+        int n = vertices.length;
+        int count = (toIndex - fromIndex + n) % n + 2;
+        Vectors2D[] points = new Vectors2D[count];
+        int size = 0;
+        points[size++] = from.copy();
+        for (int k = (fromIndex + 1) % n, j = 0; j < count - 2; k = (k + 1) % n, j++) {
+            if (!coincident(points[size - 1], vertices[k])) {
+                points[size++] = vertices[k].copy();
+            }
+        }
+        if (!coincident(points[size - 1], to)) {
+            points[size++] = to.copy();
+        }
+        if (size > 2 && coincident(points[size - 1], points[0])) {
+            size--;
+        }
+        if (size < 3 || area(points, size) <= Settings.EPSILON) {
+            return null;
+        }
+        return size == count ? points : Arrays.copyOf(points, size);
+    }
 
-                int indexToAddTo = 0;
-                obj2Vertz[indexToAddTo++] = intersection1.getCoord();
+    private static boolean coincident(Vectors2D a, Vectors2D b) {
+        double dx = a.x - b.x;
+        double dy = a.y - b.y;
+        return dx * dx + dy * dy <= Settings.EPSILON;
+    }
 
-                for (int x = obj2firstIndex + 1; x <= secondIndex; x++) {
-                    obj2Vertz[indexToAddTo++] = b.shape.orient.mul(p.vertices[x], new Vectors2D()).addi(b.position);
-                }
+    /**
+     * Signed area of the first n vertices of a polygon, positive when they wind anticlockwise.
+     */
+    private static double area(Vectors2D[] vertices, int n) {
+        double area = 0.0;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            area += vertices[j].x * vertices[i].y - vertices[i].x * vertices[j].y;
+        }
+        return area * 0.5;
+    }
 
-                obj2Vertz[totalVerticesObj1 - 1] = intersection2.getCoord();
+    /**
+     * Creates a body for one half. The vertices are already convex and wound anticlockwise, so the polygon is built
+     * from them as they are and only its normals are generated. Pieces for a deterministic world are rotated with
+     * StrictMath.
+     */
+    private static Body createPiece(Body b, Vectors2D[] vertices, boolean isStatic, double density, boolean strict) {
+        Vectors2D centre = findPolyCentre(vertices);
+        for (Vectors2D v : vertices) {
+            v.set(v.x - centre.x, v.y - centre.y);
+        }
+        Polygon shape = new Polygon(vertices, new Vectors2D[vertices.length]);
+        shape.calcNormals();
+
+        Vectors2D offset = b.shape.orient.mul(centre, new Vectors2D());
+        Body piece = new Body(shape, b.position.x + offset.x, b.position.y + offset.y);
+        piece.setOrientation(b.orientation, strict);
+        if (isStatic) {
+            piece.setDensity(0.0);
+        } else if (density != 1.0) {
+            piece.setDensity(density);
+        }
 
-                polyCentre = findPolyCentre(obj2Vertz);
-                Body b2 = new Body(new Polygon(obj2Vertz), polyCentre.x, polyCentre.y);
-                if (isStatic)
-                    b2.setDensity(0.0);
-                world.addBody(b2);
-            } else if (b.shape instanceof Circle) {
+        piece.copyMotionAndMaterial(b, offset.x, offset.y);
+        return piece;
+    }
 
-            }
-            world.removeBody(b);
-        }
+    private static Vectors2D toLocal(Body b, Vectors2D point) {
+        Matrix2D u = b.shape.orient;
+        double relX = point.x - b.position.x;
+        double relY = point.y - b.position.y;
+        return new Vectors2D(u.row1.x * relX + u.row2.x * relY, u.row1.y * relX + u.row2.y * relY);
     }
 
     /**
@@ -185,7 +303,7 @@ public class Slice {
      * @param obj2Vertz Vertices of polygon to find center of mass of.
      * @return Center of mass of type Vectors2D.
      */
-    private Vectors2D findPolyCentre(Vectors2D[] obj2Vertz) {
+    private static Vectors2D findPolyCentre(Vectors2D[] obj2Vertz) {
         double accumulatedArea = 0.0;
         double centerX = 0.0;
         double centerY = 0.0;
@@ -204,6 +322,15 @@ public class Slice {
         return new Vectors2D(centerX / accumulatedArea, centerY / accumulatedArea);
     }
 
+    /**
+     * Gets the points where the slice enters and leaves each body it passes through, as consecutive pairs.
+     *
+     * @return Entry and exit points from the last update.
+     */
+    public List<RayInformation> getIntersections() {
+        return intersectingBodiesInfo;
+    }
+
     /**
      * Debug draw method for slice object.
      *
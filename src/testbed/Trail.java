@@ -1,11 +1,11 @@
 package testbed;
 
 import library.dynamics.Body;
-import library.math.Vectors2D;
+import library.dynamics.TrailStore;
 
 public class Trail {
-    private final Vectors2D[] trailPoints;
-    private final int arrayEndPos;
+    private final TrailStore points;
+    private final int track;
     private final int skipInterval;
     private int counter;
     private final double lifeSpan;
@@ -17,8 +17,20 @@ public class Trail {
     }
 
     public Trail(int noOfTrailPoints, int skipInterval, Body b, double life) {
-        trailPoints = Vectors2D.createArray(noOfTrailPoints);
-        arrayEndPos = noOfTrailPoints - 1;
+        this(new TrailStore(noOfTrailPoints, 0, 1), skipInterval, b, life);
+    }
+
+    /**
+     * Constructor for a trail recorded in a store shared with other trails.
+     *
+     * @param store        Store the trail's points are kept in.
+     * @param skipInterval Number of updates skipped between recorded points.
+     * @param b            Body the trail follows.
+     * @param life         Time before the trail expires, 0 never expires.
+     */
+    public Trail(TrailStore store, int skipInterval, Body b, double life) {
+        points = store;
+        track = store.track(b);
         this.skipInterval = skipInterval;
         counter = 0;
         body = b;
@@ -26,25 +38,32 @@ public class Trail {
         timeActive = 0.0;
     }
 
-    private int trailEndPointIndex = 0;
-
     public void updateTrail() {
         if (counter >= skipInterval) {
-            if (trailEndPointIndex <= arrayEndPos) {
-                trailPoints[trailEndPointIndex] = body.position.copy();
-                trailEndPointIndex++;
-            } else {
-                System.arraycopy(trailPoints, 1, trailPoints, 0, arrayEndPos);
-                trailPoints[arrayEndPos] = body.position.copy();
-            }
+            points.record(track);
             counter = 0;
         } else {
             counter++;
         }
     }
 
-    public Vectors2D[] getTrailPoints() {
-        return trailPoints;
+    public int size() {
+        return points.size(track);
+    }
+
+    public double getX(int i) {
+        return points.getX(track, i);
+    }
+
+    public double getY(int i) {
+        return points.getY(track, i);
+    }
+
+    /**
+     * Stops recording the trail, freeing its track in the store.
+     */
+    public void release() {
+        points.untrack(track);
     }
 
     public boolean checkLifespan(double p) {
@@ -52,4 +71,4 @@ public class Trail {
         timeActive += p;
         return timeActive > lifeSpan;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package testbed.benchmarks;
+
+import library.dynamics.Body;
+import library.dynamics.World;
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.joints.JointToBody;
+import library.math.Vectors2D;
+
+import java.util.Random;
+
+/**
+ * Scene builders shared by the benchmarks. All scenes are seeded so repeated runs measure the same work.
+ */
+public class BenchmarkScenes {
+    public static final long SEED = 42L;
+
+    /**
+     * Builds a column based stack of boxes resting on a static floor.
+     *
+     * @param noOfBoxes Number of dynamic boxes in the stack.
+     * @return World containing the stack.
+     */
+    public static World stackedBoxes(int noOfBoxes) {
+        World world = new World(new Vectors2D(0, -9.81));
+        int columns = Math.max(1, (int) Math.sqrt(noOfBoxes));
+        for (int i = 0; i < noOfBoxes; i++) {
+            int x = i % columns;
+            int y = i / columns;
+            world.addBody(new Body(new Polygon(10.0, 10.0), -columns * 10 + (x * 20), -100 + (y * 20)));
+        }
+        Body floor = new Body(new Polygon(columns * 20.0, 10.0), 0, -120);
+        floor.setDensity(0);
+        world.addBody(floor);
+        return world;
+    }
+
+    /**
+     * Builds a box of randomly placed circles.
+     *
+     * @param noOfCircles Number of dynamic circles.
+     * @return World containing the circles.
+     */
+    public static World randomCircles(int noOfCircles) {
+        World world = new World(new Vectors2D(0, -9.81));
+        Random rand = new Random(SEED);
+        double extent = Math.sqrt(noOfCircles) * 20;
+        for (int i = 0; i < noOfCircles; i++) {
+            double x = -extent + 2 * extent * rand.nextDouble();
+            double y = 2 * extent * rand.nextDouble();
+            world.addBody(new Body(new Circle(2 + 6 * rand.nextDouble()), x, y));
+        }
+        Body floor = new Body(new Polygon(extent + 20, 10.0), 0, -20);
+        floor.setDensity(0);
+        world.addBody(floor);
+        return world;
+    }
+
+    /**
+     * Builds a chain of boxes hanging from a static anchor, as in the chains demo.
+     *
+     * @param chainLength Number of links in the chain.
+     * @return World containing the chain.
+     */
+    public static World chain(int chainLength) {
+        World world = new World(new Vectors2D(0, -9.81));
+        Body anchor = new Body(new Circle(60.0), 0, 0);
+        anchor.setDensity(0);
+        world.addBody(anchor);
+
+        Body[] bodyList = new Body[chainLength];
+        for (int i = 0; i < chainLength; i++) {
+            Body b = new Body(new Polygon(20.0, 5.0), -20 + 40.0 * chainLength / 2 - (40 * i), 200);
+            world.addBody(b);
+            bodyList[i] = b;
+
+            if (i != 0) {
+                world.addJoint(new JointToBody(bodyList[i - 1], bodyList[i], 1, 200, 10, true, new Vectors2D(-20, 0), new Vectors2D(20, 0)));
+            }
+        }
+        return world;
+    }
+
+    /**
+     * Builds a grid of regular polygons with the given number of vertices falling onto a static floor.
+     *
+     * @param noOfBodies  Number of dynamic polygons.
+     * @param noOfSides   Vertex count of every polygon.
+     * @return World containing the polygons.
+     */
+    public static World polygons(int noOfBodies, int noOfSides) {
+        World world = new World(new Vectors2D(0, -9.81));
+        int columns = Math.max(1, (int) Math.sqrt(noOfBodies));
+        for (int i = 0; i < noOfBodies; i++) {
+            int x = i % columns;
+            int y = i / columns;
+            world.addBody(new Body(new Polygon(10, noOfSides), -columns * 11 + (x * 22), (y * 22)));
+        }
+        Body floor = new Body(new Polygon(columns * 22.0, 10.0), 0, -30);
+        floor.setDensity(0);
+        world.addBody(floor);
+        return world;
+    }
+
+    /**
+     * Steps a world a number of times so benchmarks start from a settled state with live contacts.
+     *
+     * @param world World to step.
+     * @param steps Number of steps to run.
+     */
+    public static void warmUp(World world, int steps) {
+        for (int i = 0; i < steps; i++) {
+            world.step(1.0 / 60.0);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package testbed.benchmarks;
+
+import library.collision.Arbiter;
+import library.dynamics.Body;
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.geometry.Shapes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the narrow phase and the impulse solver of a single {@link Arbiter} per shape pair.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionBenchmark {
+    @Param({"circleCircle", "circlePolygon", "polygonCircle", "polygonPolygon"})
+    public String pair;
+
+    @Param({"4", "8", "32"})
+    public int noOfSides;
+
+    private Body a;
+    private Body b;
+    private Arbiter solvedContact;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        a = new Body(createShape(pair.startsWith("circle")), 0, 0);
+        b = new Body(createShape(pair.endsWith("Circle")), 15, 3);
+        b.setOrientation(0.3);
+
+        solvedContact = new Arbiter(a, b);
+        solvedContact.narrowPhase();
+        if (solvedContact.contactCount == 0) {
+            throw new IllegalStateException("Benchmark bodies do not overlap for " + pair);
+        }
+    }
+
+    private Shapes createShape(boolean circle) {
+        return circle ? new Circle(10.0) : new Polygon(10, noOfSides);
+    }
+
+    @Benchmark
+    public Arbiter narrowPhase() {
+        Arbiter contact = new Arbiter(a, b);
+        contact.narrowPhase();
+        return contact;
+    }
+
+    /**
+     * Resets the body velocities before every solve so each call does the full impulse calculation
+     * rather than taking the early out for separating bodies.
+     */
+    @Benchmark
+    public Arbiter solve() {
+        a.velocity.set(5, 0);
+        a.angularVelocity = 0;
+        b.velocity.set(-5, 0);
+        b.angularVelocity = 0;
+        solvedContact.solve();
+        return solvedContact;
+    }
+}
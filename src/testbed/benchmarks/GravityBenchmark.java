@@ -0,0 +1,57 @@
+package testbed.benchmarks;
+
+import library.dynamics.BarnesHutGravity;
+import library.dynamics.DirectGravity;
+import library.dynamics.GravitySolver;
+import library.dynamics.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the mutual gravity solvers across body counts, used to tune the crossover of the adaptive solver.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GravityBenchmark {
+    @Param({"direct", "directParallel", "barnesHut", "barnesHutParallel"})
+    public String solver;
+
+    @Param({"500", "2000", "8000"})
+    public int size;
+
+    private World world;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = BenchmarkScenes.randomCircles(size);
+        GravitySolver gravitySolver;
+        switch (solver) {
+            case "direct":
+                gravitySolver = new DirectGravity(16, false);
+                break;
+            case "directParallel":
+                gravitySolver = new DirectGravity(16, true);
+                break;
+            case "barnesHut":
+                gravitySolver = new BarnesHutGravity(0.5, false);
+                break;
+            case "barnesHutParallel":
+                gravitySolver = new BarnesHutGravity(0.5, true);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown solver: " + solver);
+        }
+        world.setGravitySolver(gravitySolver);
+    }
+
+    @Benchmark
+    public World gravityBetweenObj() {
+        world.gravityBetweenObj();
+        return world;
+    }
+}
@@ -0,0 +1,50 @@
+package testbed.benchmarks;
+
+import library.geometry.Polygon;
+import library.math.Vectors2D;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a {@link Polygon} from a point list, for scattered points that need a hull built and for points
+ * already forming a convex anticlockwise polygon.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HullBenchmark {
+    @Param({"4", "16", "100", "1000", "10000"})
+    public int size;
+
+    private Vectors2D[] scattered;
+    private Vectors2D[] convex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(3);
+        scattered = new Vectors2D[size];
+        convex = new Vectors2D[size];
+        for (int i = 0; i < size; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double radius = Math.sqrt(random.nextDouble()) * 100;
+            scattered[i] = new Vectors2D(radius * Math.cos(angle), radius * Math.sin(angle));
+            angle = 2 * Math.PI * i / size;
+            convex[i] = new Vectors2D(100 * Math.cos(angle), 100 * Math.sin(angle));
+        }
+    }
+
+    @Benchmark
+    public Polygon scatteredPoints() {
+        return new Polygon(scattered);
+    }
+
+    @Benchmark
+    public Polygon convexPoints() {
+        return new Polygon(convex);
+    }
+}
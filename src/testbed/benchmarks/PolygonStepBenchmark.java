@@ -0,0 +1,37 @@
+package testbed.benchmarks;
+
+import library.dynamics.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link World#step(double)} for regular polygons of varying vertex count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PolygonStepBenchmark {
+    @Param({"4", "8", "16", "32"})
+    public int noOfSides;
+
+    @Param({"100", "400"})
+    public int size;
+
+    private World world;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        world = BenchmarkScenes.polygons(size, noOfSides);
+        BenchmarkScenes.warmUp(world, 10);
+    }
+
+    @Benchmark
+    public World step() {
+        world.step(1.0 / 60.0);
+        return world;
+    }
+}
@@ -0,0 +1,80 @@
+package testbed.benchmarks;
+
+import library.dynamics.Body;
+import library.dynamics.World;
+import library.explosions.RayScatter;
+import library.math.Vectors2D;
+import library.rays.Ray;
+import library.rays.RayHitBuffer;
+import library.rays.ShadowCasting;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single ray projection, brute force and indexed, ray scatters cast per ray and as a batch, and full shadow
+ * casting against a scene of static circles and polygons.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RayBenchmark {
+    @Param({"50", "200", "800"})
+    public int size;
+
+    private World world;
+    private Ray ray;
+    private ShadowCasting shadowCasting;
+    private RayScatter scatter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = BenchmarkScenes.randomCircles(size);
+        World polygons = BenchmarkScenes.polygons(size, 6);
+        for (Body b : polygons.bodies) {
+            world.addBody(b);
+        }
+        //Level geometry is static so indexed casts walk the static grid
+        for (Body b : world.bodies) {
+            b.setDensity(0);
+        }
+
+        Vectors2D origin = new Vectors2D(0, -5000);
+        ray = new Ray(origin, new Vectors2D(0, 1), 10000);
+        shadowCasting = new ShadowCasting(origin, 10000);
+        scatter = new RayScatter(new Vectors2D(), 1000);
+        scatter.castRays(3000);
+    }
+
+    @Benchmark
+    public Ray updateProjection() {
+        ray.updateProjection(world.bodies);
+        return ray;
+    }
+
+    @Benchmark
+    public Ray updateProjectionIndexed() {
+        ray.updateProjection(world);
+        return ray;
+    }
+
+    @Benchmark
+    public RayScatter updateRays() {
+        scatter.updateRays(world.bodies);
+        return scatter;
+    }
+
+    @Benchmark
+    public RayHitBuffer updateHits() {
+        return scatter.updateHits(world.bodies);
+    }
+
+    @Benchmark
+    public ShadowCasting updateProjections() {
+        shadowCasting.updateProjections(world.bodies);
+        return shadowCasting;
+    }
+}
@@ -0,0 +1,52 @@
+package testbed.benchmarks;
+
+import library.dynamics.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full {@link World#step(double)} over the benchmark scenes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorldStepBenchmark {
+    @Param({"stackedBoxes", "randomCircles", "chain"})
+    public String scene;
+
+    @Param({"50", "200", "800"})
+    public int size;
+
+    private World world;
+
+    /**
+     * Rebuilds the scene every iteration so each iteration measures the same simulation window.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        switch (scene) {
+            case "stackedBoxes":
+                world = BenchmarkScenes.stackedBoxes(size);
+                break;
+            case "randomCircles":
+                world = BenchmarkScenes.randomCircles(size);
+                break;
+            case "chain":
+                world = BenchmarkScenes.chain(size);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scene " + scene);
+        }
+        BenchmarkScenes.warmUp(world, 10);
+    }
+
+    @Benchmark
+    public World step() {
+        world.step(1.0 / 60.0);
+        return world;
+    }
+}
@@ -25,7 +25,8 @@ import java.awt.event.*;
 import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.List;
 
 public class TestBedWindow extends JPanel implements Runnable {
     private final Camera CAMERA;
@@ -110,10 +111,13 @@ public class TestBedWindow extends JPanel implements Runnable {
     public void add(ParticleExplosion p, double lifespan) {
         particles.add(p);
         for (Body b : p.getParticles()) {
-            trailsToBodies.add(new Trail(1000, 1, b, lifespan));
+            trailsToBodies.add(new Trail(trailStore, 1, b, lifespan));
+            lifetimes.schedule(b, lifespan);
         }
     }
 
+    private final LifetimeManager lifetimes = new LifetimeManager();
+
     private final ArrayList<ShadowCasting> shadowCastings = new ArrayList<>();
 
     public void add(ShadowCasting shadowCasting) {
@@ -131,6 +135,7 @@ public class TestBedWindow extends JPanel implements Runnable {
     }
 
     private final ArrayList<Trail> trailsToBodies = new ArrayList<>();
+    private final TrailStore trailStore = new TrailStore(1000, 0);
 
     public void add(Trail trail) {
         trailsToBodies.add(trail);
@@ -170,11 +175,9 @@ public class TestBedWindow extends JPanel implements Runnable {
         for (Explosion p : explosionObj) {
             p.update(world.bodies);
         }
-        for (ShadowCasting s : shadowCastings) {
-            s.updateProjections(world.bodies);
-        }
+        ShadowCasting.updateAll(shadowCastings, world.bodies);
         for (Slice s : slices) {
-            s.updateProjection(world.bodies);
+            s.updateProjection(world);
         }
     }
 
@@ -217,44 +220,27 @@ public class TestBedWindow extends JPanel implements Runnable {
     }
 
     private void checkParticleLifetime(double timePassed) {
-        ArrayList<Body> bodiesToRemove = new ArrayList<>();
-        Iterator<Trail> i = trailsToBodies.iterator();
-        while (i.hasNext()) {
-            Trail s = i.next();
-            if (s.checkLifespan(timePassed)) {
-                bodiesToRemove.add(s.getBody());
-                i.remove();
-            }
-        }
-        Iterator<ParticleExplosion> p = particles.iterator();
-        while (p.hasNext()) {
-            Body[] s = p.next().getParticles();
-            if (containsBody(s, bodiesToRemove)) {
-                removeParticlesFromWorld(s);
-                p.remove();
-            }
-        }
-    }
-
-    private void removeParticlesFromWorld(Body[] s) {
-        for (Body b : s) {
-            world.removeBody(b);
-        }
-    }
-
-    private boolean containsBody(Body[] s, ArrayList<Body> bodiesToRemove) {
-        for (Body a : s) {
-            if (bodiesToRemove.contains(a)) {
+        List<Body> expired = lifetimes.advance(timePassed, world);
+        if (expired.isEmpty()) {
+            return;
+        }
+        HashSet<Body> removed = new HashSet<>(expired);
+        trailsToBodies.removeIf(t -> {
+            if (removed.contains(t.getBody())) {
+                t.release();
                 return true;
             }
-        }
-        return false;
+            return false;
+        });
+        particles.removeIf(p -> removed.contains(p.getParticles()[0]));
     }
 
     public void clearTestbedObjects() {
         CAMERA.reset();
         world.clearWorld();
+        lifetimes.clear();
         trailsToBodies.clear();
+        trailStore.clear();
         rays.clear();
         explosionObj.clear();
         shadowCastings.clear();
@@ -358,17 +344,15 @@ public class TestBedWindow extends JPanel implements Runnable {
         g.setColor(PAINT_SETTINGS.trail);
         for (Trail t : trailsToBodies) {
             Path2D.Double s = new Path2D.Double();
-            for (int i = 0; i < t.getTrailPoints().length; i++) {
-                Vectors2D v = t.getTrailPoints()[i];
-                if (v == null) {
-                    break;
+            Vectors2D v = new Vectors2D();
+            for (int i = 0; i < t.size(); i++) {
+                v.x = t.getX(i);
+                v.y = t.getY(i);
+                Vectors2D screen = CAMERA.convertToScreen(v);
+                if (i == 0) {
+                    s.moveTo(screen.x, screen.y);
                 } else {
-                    v = CAMERA.convertToScreen(v);
-                    if (i == 0) {
-                        s.moveTo(v.x, v.y);
-                    } else {
-                        s.lineTo(v.x, v.y);
-                    }
+                    s.lineTo(screen.x, screen.y);
                 }
             }
             g.draw(s);
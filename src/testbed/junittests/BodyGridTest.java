@@ -0,0 +1,60 @@
+package testbed.junittests;
+
+import library.collision.AABB;
+import library.collision.BodyGrid;
+import library.collision.IndexList;
+import library.dynamics.Body;
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class BodyGridTest {
+    @Test
+    public void queryMatchesBruteForce() {
+        Random random = new Random(3);
+        ArrayList<Body> bodies = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            double x = random.nextDouble() * 2000 - 1000;
+            double y = random.nextDouble() * 2000 - 1000;
+            bodies.add(new Body(i % 2 == 0 ? new Circle(1 + random.nextDouble() * 20) : new Polygon(1 + random.nextDouble() * 20, 5), x, y));
+        }
+        bodies.add(new Body(new Polygon(2000.0, 10.0), 0, -1000));
+
+        BodyGrid grid = new BodyGrid();
+        grid.build(bodies);
+        assertEquals(bodies.size(), grid.size());
+
+        IndexList result = new IndexList();
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int q = 0; q < 200; q++) {
+            Body probe = new Body(new Circle(random.nextDouble() * 100), random.nextDouble() * 2400 - 1200, random.nextDouble() * 2400 - 1200);
+            grid.query(probe, result);
+
+            expected.clear();
+            for (int i = 0; i < bodies.size(); i++) {
+                if (AABB.AABBOverLap(probe, bodies.get(i))) {
+                    expected.add(i);
+                }
+            }
+            assertEquals(expected.size(), result.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals((int) expected.get(i), result.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void emptyGrid() {
+        BodyGrid grid = new BodyGrid();
+        grid.build(new ArrayList<>());
+        IndexList result = new IndexList();
+        result.add(5);
+        grid.query(-1, -1, 1, 1, result);
+        assertEquals(0, result.size());
+    }
+}
@@ -0,0 +1,84 @@
+package testbed.junittests;
+
+import library.dynamics.Body;
+import library.dynamics.Fracture;
+import library.dynamics.FractureTemplate;
+import library.dynamics.World;
+import library.geometry.Polygon;
+import library.math.Vectors2D;
+import org.junit.Test;
+
+import java.util.List;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class FractureTest {
+    @Test
+    public void fragmentsKeepMassAndMomentum() {
+        World world = new World();
+        Body wall = world.addBody(new Body(new Polygon(6.0, 3.0), 20, -4));
+        wall.setOrientation(0.7);
+        wall.setDensity(3.0);
+        wall.velocity.set(2, 5);
+        wall.angularVelocity = -1.5;
+
+        Fracture fracture = new Fracture(12, 5);
+        List<Body> fragments = fracture.shatter(wall, world);
+
+        assertTrue(fragments.size() > 1);
+        assertEquals(fragments.size(), world.bodies.size());
+        assertTrue(wall.getHandle() < 0);
+        double mass = 0, x = 0, y = 0, momentumX = 0, momentumY = 0;
+        for (Body f : fragments) {
+            mass += f.mass;
+            x += f.mass * f.position.x;
+            y += f.mass * f.position.y;
+            momentumX += f.mass * f.velocity.x;
+            momentumY += f.mass * f.velocity.y;
+            assertEquals(0.7, f.orientation, 0.0);
+
+            //Precomputed mass properties agree with working them out from the fragment's shape
+            double expectedMass = f.mass;
+            double expectedI = f.I;
+            f.setDensity(3.0);
+            assertEquals(expectedMass, f.mass, 1e-9);
+            assertEquals(expectedI, f.I, 1e-9);
+        }
+        assertEquals(wall.mass, mass, 1e-9);
+        assertEquals(20, x / mass, 1e-9);
+        assertEquals(-4, y / mass, 1e-9);
+        assertEquals(wall.mass * 2, momentumX, 1e-9);
+        assertEquals(wall.mass * 5, momentumY, 1e-9);
+    }
+
+    @Test
+    public void templatesAreSharedByEqualShapes() {
+        World world = new World();
+        Fracture fracture = new Fracture(8, 1);
+        FractureTemplate template = fracture.getTemplate(new Polygon(2.0, 1.0));
+        assertEquals(4.0 * 2.0 * 1.0, template.getTotalArea(), 1e-9);
+        for (int i = 0; i < 50; i++) {
+            Body brick = world.addBody(new Body(new Polygon(2.0, 1.0), i * 4, 0));
+            assertSame(template, fracture.getTemplate((Polygon) brick.shape));
+            fracture.shatter(brick, world);
+        }
+        fracture.shatter(world.addBody(new Body(new Polygon(1.0, 1.0), 0, 10)), world);
+        assertEquals(2, fracture.getTemplateCount());
+        assertEquals(50 * template.getFragmentCount() + fracture.getTemplate(new Polygon(1.0, 1.0)).getFragmentCount(),
+                world.bodies.size());
+    }
+
+    @Test
+    public void templatesAreKeyedByGeometryOrVertices() {
+        Fracture fracture = new Fracture(6, 3);
+        Polygon shared = new Polygon(3.0, 2.0);
+        assertSame(fracture.getTemplate(shared), fracture.getTemplate(new Polygon(shared.getGeometry())));
+
+        Vectors2D[] triangle = {new Vectors2D(0, 0), new Vectors2D(4, 0), new Vectors2D(0, 4)};
+        FractureTemplate template = fracture.getTemplate(new Polygon(triangle));
+        assertSame(template, fracture.getTemplate(new Polygon(triangle)));
+        assertEquals(2, fracture.getTemplateCount());
+    }
+}
@@ -0,0 +1,91 @@
+package testbed.junittests;
+
+import library.dynamics.Body;
+import library.dynamics.LifetimeManager;
+import library.dynamics.World;
+import library.geometry.Circle;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+public class LifetimeManagerTest {
+    @Test
+    public void bodiesExpireAtTheirDeadline() {
+        World world = new World();
+        LifetimeManager lifetimes = new LifetimeManager(1.0);
+        Random random = new Random(9);
+        int n = 2000;
+        long[] due = new long[n];
+        long[] tickets = new long[n];
+        for (int i = 0; i < n; i++) {
+            Body b = world.addBody(new Body(new Circle(1.0), i, 0));
+            //Spans every level of the wheel and past the top one
+            due[i] = i < 10 ? 20_000_000L + i : 1 + (long) Math.pow(random.nextDouble(), 4) * 300_000;
+            tickets[i] = lifetimes.schedule(b, due[i]);
+            b.restitution = i;
+        }
+        assertTrue(lifetimes.cancel(tickets[11]));
+        assertFalse(lifetimes.cancel(tickets[11]));
+
+        int removed = 0;
+        long tick = 0;
+        while (tick < 20_000_100L) {
+            long stepTicks = tick < 400_000 ? 7 : 50_000;
+            List<Body> expired = lifetimes.advance(stepTicks, world);
+            tick += stepTicks;
+            for (Body b : expired) {
+                long deadline = due[(int) b.restitution];
+                assertTrue(deadline <= tick && deadline > tick - stepTicks);
+                assertTrue(b.getHandle() < 0);
+            }
+            removed += expired.size();
+        }
+        assertEquals(n - 1, removed);
+        assertEquals(1, world.bodies.size());
+        assertEquals(0, lifetimes.size());
+    }
+
+    @Test
+    public void ticketsGoStaleOnceUsed() {
+        World world = new World();
+        LifetimeManager lifetimes = new LifetimeManager(0.5);
+        Body a = world.addBody(new Body(new Circle(1.0), 0, 0));
+        long ticket = lifetimes.schedule(a, 1.2);
+        assertEquals(0, lifetimes.advance(1.0, world).size());
+        assertEquals(1, lifetimes.advance(0.5, world).size());
+        assertEquals(0, world.bodies.size());
+
+        Body b = world.addBody(new Body(new Circle(1.0), 0, 0));
+        lifetimes.schedule(b, 1);
+        assertFalse(lifetimes.cancel(ticket));
+        assertEquals(1, lifetimes.size());
+    }
+
+    @Test
+    public void staleTicketsSurviveEntryChurn() {
+        World world = new World();
+        LifetimeManager lifetimes = new LifetimeManager(1.0);
+        Body kept = world.addBody(new Body(new Circle(1.0), 0, 0));
+        lifetimes.schedule(kept, 1_000_000);
+        long staleTicket = lifetimes.schedule(world.addBody(new Body(new Circle(1.0), 10, 0)), 1);
+        assertEquals(1, lifetimes.advance(1, world).size());
+        for (int i = 0; i < 2000; i++) {
+            Body b = world.addBody(new Body(new Circle(1.0), 10, 0));
+            long ticket = lifetimes.schedule(b, 1);
+            assertFalse(lifetimes.cancel(staleTicket));
+            if (i % 2 == 0) {
+                assertTrue(lifetimes.cancel(ticket));
+                world.removeBody(b);
+            } else {
+                assertEquals(1, lifetimes.advance(1, world).size());
+            }
+        }
+        assertEquals(1, lifetimes.size());
+        assertEquals(1, world.bodies.size());
+    }
+}
@@ -0,0 +1,66 @@
+package testbed.junittests;
+
+import library.dynamics.Body;
+import library.dynamics.ParticleSystem;
+import library.dynamics.World;
+import library.explosions.ParticleExplosion;
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.math.Vectors2D;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class ParticleSystemTest {
+    @Test
+    public void particlesBounceOffBodies() {
+        World world = new World(new Vectors2D(0, -9.81));
+        world.addBody(new Body(new Polygon(200.0, 10.0), 0, -10)).setDensity(0);
+        Body ball = world.addBody(new Body(new Circle(10.0), 0, 50));
+        ball.setDensity(0);
+
+        ParticleSystem particles = new ParticleSystem();
+        particles.gravityScale = 1;
+        particles.restitution = 0;
+        for (int i = 0; i < 100; i++) {
+            particles.emit(i * 2 - 100, 20, 0, 0, 0.5, 100);
+        }
+        particles.emit(0, 100, 0, 0, 0.5, 100);
+        for (int step = 0; step < 600; step++) {
+            particles.step(1 / 60.0, world);
+        }
+        assertEquals(101, particles.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0.5, particles.getY(i), 0.05);
+        }
+        //The last particle landed on top of the circle and slid off it onto the floor, or is still resting there
+        double dx = particles.getX(100);
+        double dy = particles.getY(100) - 50;
+        assertTrue(Math.sqrt(dx * dx + dy * dy) >= 10.5 - 0.05);
+    }
+
+    @Test
+    public void expiredParticlesAreRemovedInOrder() {
+        World world = new World();
+        ParticleSystem particles = new ParticleSystem();
+        ParticleExplosion explosion = new ParticleExplosion(new Vectors2D(0, 0), 1000, 1.0);
+        explosion.emitParticles(particles, 1, 10, 2);
+        for (int i = 0; i < 1000; i++) {
+            particles.emit(0, 0, i, 0, 1, 0.5);
+        }
+        assertEquals(2000, particles.size());
+        assertEquals(20.0, particles.getVelocityY(0), 1e-9);
+
+        for (int step = 0; step < 40; step++) {
+            particles.step(1 / 60.0, world);
+        }
+        assertEquals(1000, particles.size());
+        assertEquals(10 + 20 * 40 / 60.0, particles.getY(0), 1e-6);
+
+        for (int step = 0; step < 40; step++) {
+            particles.step(1 / 60.0, world);
+        }
+        assertEquals(0, particles.size());
+    }
+}
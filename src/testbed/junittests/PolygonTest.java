@@ -0,0 +1,110 @@
+package testbed.junittests;
+
+import library.dynamics.Body;
+import library.dynamics.World;
+import library.dynamics.WorldSnapshot;
+import library.geometry.Polygon;
+import library.geometry.PolygonGeometry;
+import library.math.Vectors2D;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class PolygonTest {
+    private static double cross(Vectors2D o, Vectors2D a, Vectors2D b) {
+        return (a.x - o.x) * (b.y - o.y) - (a.y - o.y) * (b.x - o.x);
+    }
+
+    @Test
+    public void hullEnclosesEveryPoint() {
+        Random random = new Random(21);
+        for (int trial = 0; trial < 200; trial++) {
+            int n = 3 + random.nextInt(trial < 100 ? 10 : 2000);
+            Vectors2D[] points = new Vectors2D[n];
+            for (int i = 0; i < n; i++) {
+                //Coarse coordinates give plenty of duplicate and collinear points
+                points[i] = new Vectors2D(random.nextInt(40), random.nextInt(40));
+            }
+            Vectors2D[] hull = new Polygon(points.clone()).vertices;
+            int h = hull.length;
+            if (h < 3) {
+                continue;
+            }
+            for (int i = 0; i < h; i++) {
+                assertTrue(cross(hull[i], hull[(i + 1) % h], hull[(i + 2) % h]) > 0);
+                for (Vectors2D p : points) {
+                    assertTrue(cross(hull[i], hull[(i + 1) % h], p) >= 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void convexInputKeepsItsOrder() {
+        Vectors2D[] points = new Vectors2D[12];
+        for (int i = 0; i < points.length; i++) {
+            double angle = 2 * Math.PI * i / points.length + 1;
+            points[i] = new Vectors2D(Math.cos(angle), Math.sin(angle));
+        }
+        Polygon polygon = new Polygon(points);
+        assertEquals(points.length, polygon.vertices.length);
+        for (int i = 0; i < points.length; i++) {
+            assertSame(points[i], polygon.vertices[i]);
+        }
+    }
+
+    @Test
+    public void starAndClockwiseInputAreHulled() {
+        Vectors2D[] star = new Vectors2D[5];
+        for (int i = 0; i < 5; i++) {
+            double angle = 4 * Math.PI * i / 5;
+            star[i] = new Vectors2D(Math.cos(angle), Math.sin(angle));
+        }
+        Vectors2D[] hull = new Polygon(star).vertices;
+        assertEquals(5, hull.length);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(cross(hull[i], hull[(i + 1) % 5], hull[(i + 2) % 5]) > 0);
+        }
+
+        Vectors2D[] clockwise = {new Vectors2D(0, 0), new Vectors2D(0, 1), new Vectors2D(0, 2), new Vectors2D(1, 1), new Vectors2D(1, 0)};
+        hull = new Polygon(clockwise).vertices;
+        assertEquals(4, hull.length);
+        assertTrue(cross(hull[0], hull[1], hull[2]) > 0);
+    }
+
+    @Test
+    public void equalShapesShareGeometry() {
+        Body a = new Body(new Polygon(10.0, 10.0), 0, 0);
+        Body b = new Body(new Polygon(10.0, 10.0), 50, 0);
+        Polygon shapeA = (Polygon) a.shape;
+        Polygon shapeB = (Polygon) b.shape;
+        assertSame(shapeA.getGeometry(), shapeB.getGeometry());
+        assertSame(shapeA.vertices, shapeB.vertices);
+        assertSame(PolygonGeometry.regular(5, 7), new Polygon(5, 7).getGeometry());
+        assertEquals(400.0, a.mass, 1e-9);
+
+        //Mass properties match a polygon that owns its vertices
+        Vectors2D[] square = {new Vectors2D(-10, -10), new Vectors2D(10, -10), new Vectors2D(10, 10), new Vectors2D(-10, 10)};
+        Body owned = new Body(new Polygon(square), 0, 0);
+        a.setDensity(2.5);
+        owned.setDensity(2.5);
+        assertEquals(owned.mass, a.mass, 0.0);
+        assertEquals(owned.I, a.I, 0.0);
+        assertEquals(-10.0, shapeB.vertices[0].x, 0.0);
+
+        //Restoring a snapshot into a body never writes to the shared vertices
+        World world = new World();
+        world.addBody(a);
+        ByteBuffer buffer = WorldSnapshot.write(world);
+        a.shape = new Polygon(3.0, 3.0);
+        a.shape.body = a;
+        WorldSnapshot.restore(buffer, world);
+        assertEquals(-10.0, ((Polygon) a.shape).vertices[0].x, 0.0);
+        assertEquals(-3.0, new Polygon(3.0, 3.0).vertices[0].x, 0.0);
+    }
+}
@@ -0,0 +1,258 @@
+package testbed.junittests;
+
+import library.dynamics.Body;
+import library.dynamics.World;
+import library.explosions.RayScatter;
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.math.Vectors2D;
+import library.rays.Ray;
+import library.rays.RayHitBuffer;
+import library.rays.RayInformation;
+import library.rays.ShadowCasting;
+import library.rays.Slice;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+
+public class RayTest {
+    private static World createScene() {
+        World world = new World();
+        Random random = new Random(11);
+        for (int i = 0; i < 400; i++) {
+            Body b = world.addBody(new Body(i % 3 == 0 ? new Circle(2 + random.nextDouble() * 10) : new Polygon(2 + random.nextDouble() * 10, 3 + i % 6),
+                    random.nextDouble() * 2000 - 1000, random.nextDouble() * 2000 - 1000));
+            b.setOrientation(random.nextDouble() * 6);
+            if (i % 4 != 0) {
+                b.setDensity(0);
+            }
+        }
+        world.addBody(new Body(new Polygon(1500.0, 10.0), 0, -1100)).setDensity(0);
+        return world;
+    }
+
+    @Test
+    public void indexedProjectionMatchesBruteForce() {
+        World world = createScene();
+        Random random = new Random(5);
+        int hits = 0;
+        for (int i = 0; i < 500; i++) {
+            Vectors2D start = new Vectors2D(random.nextDouble() * 2400 - 1200, random.nextDouble() * 2400 - 1200);
+            Vectors2D direction = i % 10 == 0 ? new Vectors2D(0, i % 20 == 0 ? 1 : -1) : new Vectors2D(random.nextDouble() * 6.3);
+            Ray expected = new Ray(start, direction, 50 + random.nextInt(1500));
+            Ray actual = new Ray(start, direction, expected.getDistance());
+            expected.updateProjection(world.bodies);
+            actual.updateProjection(world);
+
+            RayInformation e = expected.getRayInformation();
+            RayInformation a = actual.getRayInformation();
+            if (e == null) {
+                assertNull(a);
+                continue;
+            }
+            hits++;
+            assertNotNull(a);
+            assertSame(e.getB(), a.getB());
+            assertEquals(e.getCoord().x, a.getCoord().x, 1e-9);
+            assertEquals(e.getCoord().y, a.getCoord().y, 1e-9);
+        }
+        assertEquals(true, hits > 50);
+    }
+
+    @Test
+    public void verticalRayHitsPolygon() {
+        World world = new World();
+        Body box = world.addBody(new Body(new Polygon(10.0, 10.0), 0, 50));
+        Ray ray = new Ray(new Vectors2D(0, 0), new Vectors2D(0, 1), 100);
+        ray.updateProjection(world.bodies);
+        assertSame(box, ray.getRayInformation().getB());
+        assertEquals(40.0, ray.getRayInformation().getCoord().y, 1e-9);
+    }
+
+    @Test
+    public void batchedScatterMatchesPerRayProjection() {
+        World world = createScene();
+        Random random = new Random(8);
+        int hits = 0;
+        for (int i = 0; i < 20; i++) {
+            //Every fifth scatter starts inside a body so its interval covers every ray
+            Vectors2D epicentre = i % 5 == 0 ? world.bodies.get(i).position.copy()
+                    : new Vectors2D(random.nextDouble() * 2000 - 1000, random.nextDouble() * 2000 - 1000);
+            RayScatter scatter = new RayScatter(epicentre, i % 2 == 0 ? 100 : 1000);
+            scatter.castRays(100 + random.nextInt(800));
+            scatter.updateRays(world.bodies);
+            RayHitBuffer buffer = scatter.updateHits(world.bodies);
+
+            Ray[] rays = scatter.getRays();
+            assertEquals(rays.length, buffer.size());
+            for (int r = 0; r < rays.length; r++) {
+                RayInformation e = rays[r].getRayInformation();
+                if (e == null) {
+                    assertEquals(false, buffer.hasHit(r));
+                    continue;
+                }
+                hits++;
+                assertSame(e.getB(), buffer.getBody(r));
+                assertEquals(e.getCoord().x, buffer.getX(r), 1e-9);
+                assertEquals(e.getCoord().y, buffer.getY(r), 1e-9);
+            }
+        }
+        assertEquals(true, hits > 500);
+    }
+
+    @Test
+    public void visibilityPolygonMatchesRays() {
+        World world = new World();
+        Random random = new Random(3);
+        //Jittered grid of polygons that never overlap
+        for (int x = -5; x <= 5; x++) {
+            for (int y = -5; y <= 5; y++) {
+                if (random.nextInt(3) == 0) {
+                    continue;
+                }
+                Body b = world.addBody(new Body(new Polygon(10 + random.nextDouble() * 15, 3 + random.nextInt(5)),
+                        x * 100 + random.nextDouble() * 40 - 20, y * 100 + random.nextDouble() * 40 - 20));
+                b.setOrientation(random.nextDouble() * 6);
+            }
+        }
+        for (int l = 0; l < 10; l++) {
+            Vectors2D light = new Vectors2D(l * 100 - 450, 50 - l * 10);
+            ShadowCasting shadowCasting = new ShadowCasting(light, 400);
+            shadowCasting.updateProjections(world.bodies);
+            int n = shadowCasting.getNoOfRays();
+            assertEquals(true, n > 64);
+            for (int i = 0; i < 360; i++) {
+                Vectors2D direction = new Vectors2D(i * Math.PI / 180 + 0.001);
+                Ray ray = new Ray(light, direction, 400);
+                ray.updateProjection(world.bodies);
+
+                //The visibility polygon is star shaped around the light, so exactly one edge crosses the ray
+                double reach = Double.POSITIVE_INFINITY;
+                for (int v = 0; v < n; v++) {
+                    int w = (v + 1) % n;
+                    double ax = shadowCasting.getX(v) - light.x, ay = shadowCasting.getY(v) - light.y;
+                    double ex = shadowCasting.getX(w) - light.x - ax, ey = shadowCasting.getY(w) - light.y - ay;
+                    double denominator = direction.x * ey - direction.y * ex;
+                    if (denominator == 0) continue;
+                    double t = (ax * ey - ay * ex) / denominator;
+                    double s = (ax * direction.y - ay * direction.x) / denominator;
+                    if (t > 0 && s >= -1e-9 && s <= 1 + 1e-9) {
+                        reach = Math.min(reach, t);
+                    }
+                }
+                RayInformation info = ray.getRayInformation();
+                if (info == null) {
+                    assertEquals(true, reach >= 400 - 1e-9 && reach <= 400 / Math.cos(Math.PI / 64) + 1e-9);
+                } else {
+                    assertEquals(info.getCoord().subtract(light).length(), reach, 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void visibilityPolygonIsEmptyInsideBody() {
+        World world = new World();
+        world.addBody(new Body(new Polygon(10.0, 10.0), 0, 0));
+        world.addBody(new Body(new Circle(5.0), 50, 0));
+        ShadowCasting shadowCasting = new ShadowCasting(new Vectors2D(1, 1), 100);
+        shadowCasting.updateProjections(world.bodies);
+        assertEquals(0, shadowCasting.getNoOfRays());
+
+        shadowCasting.setStartPoint(new Vectors2D(0, 40));
+        shadowCasting.updateProjections(world.bodies);
+        assertEquals(true, shadowCasting.getNoOfRays() > 64);
+    }
+
+    @Test
+    public void shadowCastingReusesUnchangedLights() {
+        World world = new World();
+        Body near = world.addBody(new Body(new Polygon(10.0, 10.0), 0, 50));
+        Body far = world.addBody(new Body(new Circle(10.0), 1000, 0));
+        ArrayList<ShadowCasting> lights = new ArrayList<>();
+        ShadowCasting first = new ShadowCasting(new Vectors2D(0, 0), 200);
+        ShadowCasting second = new ShadowCasting(new Vectors2D(1000, 100), 200);
+        lights.add(first);
+        lights.add(second);
+
+        assertEquals(2, ShadowCasting.updateAll(lights, world.bodies));
+        assertEquals(0, ShadowCasting.updateAll(lights, world.bodies));
+
+        near.position.set(new Vectors2D(20, 50));
+        assertEquals(true, first.needsUpdate(world.bodies));
+        assertEquals(false, second.needsUpdate(world.bodies));
+        assertEquals(1, ShadowCasting.updateAll(lights, world.bodies));
+
+        //A body coming into reach and a moved light are both picked up
+        Body arriving = world.addBody(new Body(new Circle(5.0), 1000, 250));
+        assertEquals(false, first.needsUpdate(world.bodies));
+        assertEquals(true, second.needsUpdate(world.bodies));
+        arriving.orientation = 1;
+        first.setStartPoint(new Vectors2D(0, -10));
+        assertEquals(2, ShadowCasting.updateAll(lights, world.bodies));
+
+        far.setOrientation(2);
+        int vertices = first.getNoOfRays();
+        assertEquals(false, first.update(world.bodies));
+        assertEquals(vertices, first.getNoOfRays());
+        first.invalidate();
+        assertEquals(true, first.update(world.bodies));
+    }
+
+    @Test
+    public void indexedSliceMatchesBruteForce() {
+        World world = createScene();
+        Slice indexed = new Slice(new Vectors2D(-1000, -900), new Vectors2D(1, 0.9), 2600);
+        Slice bruteForce = new Slice(new Vectors2D(-1000, -900), new Vectors2D(1, 0.9), 2600);
+        indexed.updateProjection(world);
+        bruteForce.updateProjection(world.bodies);
+
+        List<RayInformation> expected = bruteForce.getIntersections();
+        List<RayInformation> actual = indexed.getIntersections();
+        assertEquals(true, expected.size() > 0);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i += 2) {
+            int match = 0;
+            while (actual.get(match).getB() != expected.get(i).getB()) {
+                match += 2;
+            }
+            assertEquals(expected.get(i).getCoord().x, actual.get(match).getCoord().x, 1e-9);
+            assertEquals(expected.get(i + 1).getCoord().y, actual.get(match + 1).getCoord().y, 1e-9);
+        }
+    }
+
+    @Test
+    public void slicedPolygonKeepsMassAndMomentum() {
+        World world = new World();
+        Body box = world.addBody(new Body(new Polygon(4.0, 2.0), 10, 5));
+        box.setOrientation(0.3);
+        box.setDensity(2.0);
+        box.velocity.set(3, -1);
+        box.angularVelocity = 2;
+        Body ball = world.addBody(new Body(new Circle(1.0), 12, 20));
+
+        Slice slice = new Slice(new Vectors2D(9, -10), new Vectors2D(0.1, 1), 40);
+        slice.sliceObjects(world);
+
+        assertEquals(2, world.bodies.size());
+        assertEquals(true, box.getHandle() < 0 && ball.getHandle() < 0);
+        Body first = world.bodies.get(0);
+        Body second = world.bodies.get(1);
+        assertEquals(box.mass, first.mass + second.mass, 1e-9);
+        double momentumX = first.mass * first.velocity.x + second.mass * second.velocity.x;
+        double momentumY = first.mass * first.velocity.y + second.mass * second.velocity.y;
+        assertEquals(box.mass * 3, momentumX, 1e-9);
+        assertEquals(-box.mass, momentumY, 1e-9);
+        assertEquals(10, (first.mass * first.position.x + second.mass * second.position.x) / box.mass, 1e-9);
+        assertEquals(5, (first.mass * first.position.y + second.mass * second.position.y) / box.mass, 1e-9);
+        assertEquals(0.3, first.orientation, 0.0);
+        assertEquals(2.0, second.angularVelocity, 0.0);
+    }
+}
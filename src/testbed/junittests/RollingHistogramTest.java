@@ -0,0 +1,47 @@
+package testbed.junittests;
+
+import library.dynamics.RollingHistogram;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class RollingHistogramTest {
+    @Test
+    public void recordWrapsWindow() {
+        RollingHistogram h = new RollingHistogram(3);
+        h.record(1);
+        h.record(2);
+        h.record(3);
+        h.record(10);
+        assertEquals(3, h.getCount());
+        assertEquals(10, h.getLast());
+        assertEquals(2, h.getMin());
+        assertEquals(10, h.getMax());
+        assertEquals(5.0, h.getMean(), 0.0);
+    }
+
+    @Test
+    public void getPercentile() {
+        RollingHistogram h = new RollingHistogram(100);
+        for (int i = 1; i <= 100; i++) {
+            h.record(i);
+        }
+        assertEquals(50, h.getPercentile(50));
+        assertEquals(99, h.getPercentile(99));
+        assertEquals(100, h.getPercentile(100));
+    }
+
+    @Test
+    public void getBuckets() {
+        RollingHistogram h = new RollingHistogram(4);
+        h.record(0);
+        h.record(1);
+        h.record(3);
+        h.record(1024);
+        int[] buckets = h.getBuckets();
+        assertEquals(1, buckets[0]);
+        assertEquals(1, buckets[1]);
+        assertEquals(1, buckets[2]);
+        assertEquals(1, buckets[11]);
+    }
+}
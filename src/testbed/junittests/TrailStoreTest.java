@@ -0,0 +1,72 @@
+package testbed.junittests;
+
+import library.dynamics.Body;
+import library.dynamics.TrailStore;
+import library.geometry.Circle;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+
+public class TrailStoreTest {
+    @Test
+    public void ringKeepsNewestSamplesInOrder() {
+        TrailStore store = new TrailStore(5, 0);
+        Body[] bodies = new Body[40];
+        for (int i = 0; i < bodies.length; i++) {
+            bodies[i] = new Body(new Circle(1.0), 0, i);
+            store.track(bodies[i]);
+        }
+        for (int step = 0; step < 12; step++) {
+            for (Body b : bodies) {
+                b.position.x = step;
+                b.velocity.x = step * 2;
+            }
+            store.record();
+        }
+        assertEquals(40, store.getTrackedCount());
+        for (int track = 0; track < bodies.length; track++) {
+            assertEquals(5, store.size(track));
+            for (int i = 0; i < 5; i++) {
+                assertEquals(7.0 + i, store.getX(track, i));
+                assertEquals((double) track, store.getY(track, i));
+                assertEquals(14.0 + 2 * i, store.getVelocityX(track, i));
+            }
+        }
+    }
+
+    @Test
+    public void samplesAreDecimatedByDistance() {
+        TrailStore store = new TrailStore(100, 1.0);
+        Body b = new Body(new Circle(1.0), 0, 0);
+        int track = store.track(b);
+        for (int step = 0; step < 50; step++) {
+            b.position.x = step * 0.3;
+            store.record();
+        }
+        //Samples at 0, 1.2, 2.4 ... since each must be at least 1 away from the last
+        assertEquals(13, store.size(track));
+        assertEquals(1.2, store.getX(track, 1), 1e-9);
+
+        store.untrack(track);
+        assertNull(store.getBody(track));
+        Body other = new Body(new Circle(1.0), 5, 5);
+        assertEquals(track, store.track(other));
+        assertEquals(0, store.size(track));
+    }
+
+    @Test
+    public void storeGrowsFromOneTrack() {
+        TrailStore store = new TrailStore(3, 0, 1);
+        Body[] bodies = new Body[5];
+        for (int i = 0; i < bodies.length; i++) {
+            bodies[i] = new Body(new Circle(1.0), i, 0);
+            assertEquals(i, store.track(bodies[i]));
+        }
+        store.record();
+        for (int track = 0; track < bodies.length; track++) {
+            assertEquals(1, store.size(track));
+            assertEquals(track, store.getX(track, 0), 0.0);
+        }
+    }
+}
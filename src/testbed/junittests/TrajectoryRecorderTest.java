@@ -0,0 +1,75 @@
+package testbed.junittests;
+
+import library.dynamics.Body;
+import library.dynamics.TrajectoryReader;
+import library.dynamics.TrajectoryRecorder;
+import library.dynamics.World;
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.math.Vectors2D;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class TrajectoryRecorderTest {
+    @Test
+    public void recordAndSeek() throws IOException {
+        World world = new World(new Vectors2D(0, -9.81));
+        world.addBody(new Body(new Circle(5.0), 0, 0));
+        Body box = world.addBody(new Body(new Polygon(5.0, 5.0), 20, 0));
+        box.angularVelocity = 1;
+
+        Path file = Files.createTempFile("trajectory", ".bin");
+        double[] expectedY = new double[5000];
+        double[] expectedOrientation = new double[5000];
+        try {
+            //Enough steps to map several segments of growing size
+            try (TrajectoryRecorder recorder = new TrajectoryRecorder(file, world.bodies.size())) {
+                for (int i = 0; i < 5000; i++) {
+                    world.step(1.0 / 60.0);
+                    recorder.record(world.bodies);
+                    expectedY[i] = world.bodies.get(0).position.y;
+                    expectedOrientation[i] = box.orientation;
+                }
+            }
+            assertEquals(32 + 5000 * 2 * 48, Files.size(file));
+
+            TrajectoryReader reader = new TrajectoryReader(file);
+            try {
+                assertEquals(2, reader.getBodyCount());
+                assertEquals(5000, reader.getStepCount());
+                for (int i : new int[]{4999, 0, 2500, 1364}) {
+                    reader.seek(i);
+                    assertEquals(expectedY[i], reader.getPositionY(0), 0.0);
+                    assertEquals(expectedOrientation[i], reader.getOrientation(1), 0.0);
+                }
+            } finally {
+                //Closing unmaps the segments, only then can the file be deleted on every platform
+                reader.close();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void shortRecordingsStaySmall() throws IOException {
+        World world = new World();
+        world.addBody(new Body(new Circle(1.0), 0, 0));
+        Path file = Files.createTempFile("trajectory", ".bin");
+        try {
+            TrajectoryRecorder recorder = new TrajectoryRecorder(file, 1);
+            recorder.record(world.bodies);
+            assertTrue(Files.size(file) <= 64 * 1024 + 32);
+            recorder.close();
+            assertEquals(32 + 48, Files.size(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package testbed.junittests;
+
+import library.dynamics.Body;
+import library.dynamics.Settings;
+import library.dynamics.World;
+import library.dynamics.WorldSnapshot;
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.joints.JointToBody;
+import library.joints.JointToPoint;
+import library.math.Vectors2D;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+
+public class WorldSnapshotTest {
+    private static World createWorld() {
+        World world = new World(new Vectors2D(0, -9.81));
+        Body floor = world.addBody(new Body(new Polygon(200.0, 10.0), 0, -20));
+        floor.setDensity(0);
+        Body a = world.addBody(new Body(new Polygon(10.0, 10.0), 0, 0));
+        Body b = world.addBody(new Body(new Circle(5.0), 15, 10));
+        Body c = world.addBody(new Body(new Polygon(8, 6), -20, 5));
+        c.collisionCategory = 4;
+        c.collisionMask = ~4;
+        c.collisionGroup = -2;
+        world.addJoint(new JointToBody(a, b, 1, 200, 10, true, new Vectors2D(-5, 0), new Vectors2D(5, 0)));
+        world.addJoint(new JointToPoint(new Vectors2D(-20, 50), c, 20, 100, 5, false, new Vectors2D(0, 0)));
+        return world;
+    }
+
+    private static void assertSameState(World expected, World actual) {
+        assertEquals(expected.bodies.size(), actual.bodies.size());
+        assertEquals(expected.joints.size(), actual.joints.size());
+        for (int i = 0; i < expected.bodies.size(); i++) {
+            Body e = expected.bodies.get(i);
+            Body a = actual.bodies.get(i);
+            assertEquals(e.position.x, a.position.x, 0.0);
+            assertEquals(e.position.y, a.position.y, 0.0);
+            assertEquals(e.velocity.x, a.velocity.x, 0.0);
+            assertEquals(e.velocity.y, a.velocity.y, 0.0);
+            assertEquals(e.orientation, a.orientation, 0.0);
+            assertEquals(e.angularVelocity, a.angularVelocity, 0.0);
+            assertEquals(e.invMass, a.invMass, 0.0);
+            assertEquals(e.invI, a.invI, 0.0);
+            assertEquals(e.collisionCategory, a.collisionCategory);
+            assertEquals(e.collisionMask, a.collisionMask);
+            assertEquals(e.collisionGroup, a.collisionGroup);
+        }
+    }
+
+    @Test
+    public void roundTrip() {
+        World world = createWorld();
+        for (int i = 0; i < 30; i++) {
+            world.step(1.0 / 60.0);
+        }
+        ByteBuffer buffer = WorldSnapshot.write(world);
+        assertEquals(WorldSnapshot.sizeOf(world), buffer.remaining());
+
+        World restored = WorldSnapshot.read(buffer);
+        assertSameState(world, restored);
+
+        for (int i = 0; i < 30; i++) {
+            world.step(1.0 / 60.0);
+            restored.step(1.0 / 60.0);
+        }
+        assertSameState(world, restored);
+    }
+
+    @Test
+    public void restoreInPlace() {
+        World world = createWorld();
+        ByteBuffer buffer = WorldSnapshot.write(world);
+        Body first = world.bodies.get(1);
+        for (int i = 0; i < 30; i++) {
+            world.step(1.0 / 60.0);
+        }
+        World reference = createWorld();
+
+        WorldSnapshot.restore(buffer, world);
+        assertSame(first, world.bodies.get(1));
+        assertSameState(reference, world);
+    }
+
+    @Test
+    public void stepRateIsReturnedNotApplied() {
+        World world = createWorld();
+        double hertz = Settings.HERTZ;
+        ByteBuffer buffer = WorldSnapshot.write(world);
+        Settings.HERTZ = hertz * 2;
+        try {
+            assertEquals(hertz, WorldSnapshot.getHertz(buffer));
+            assertEquals(hertz, WorldSnapshot.restore(buffer, world));
+            assertEquals(hertz * 2, Settings.HERTZ);
+        } finally {
+            Settings.HERTZ = hertz;
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void jointToMissingBodyIsRejected() {
+        World world = createWorld();
+        Body outside = new Body(new Circle(1.0), 0, 40);
+        world.addJoint(new JointToBody(world.bodies.get(1), outside, 1, 200, 10, true, new Vectors2D(), new Vectors2D()));
+        WorldSnapshot.write(world);
+    }
+}
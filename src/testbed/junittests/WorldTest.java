@@ -0,0 +1,508 @@
+package testbed.junittests;
+
+import library.dynamics.AdaptiveGravity;
+import library.dynamics.BarnesHutGravity;
+import library.dynamics.Body;
+import library.dynamics.DirectGravity;
+import library.dynamics.GravitySolver;
+import library.dynamics.Settings;
+import library.dynamics.StepPhase;
+import library.dynamics.StepProfiler;
+import library.dynamics.StepStats;
+import library.dynamics.World;
+import library.explosions.ProximityExplosion;
+import library.geometry.Circle;
+import library.geometry.Polygon;
+import library.joints.Joint;
+import library.joints.JointToBody;
+import library.math.Vectors2D;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+public class WorldTest {
+    private static World createScene() {
+        World world = new World(new Vectors2D(0, -9.81));
+        Body floor = world.addBody(new Body(new Polygon(200.0, 10.0), 0, -20));
+        floor.setDensity(0);
+        for (int i = 0; i < 10; i++) {
+            Body b = world.addBody(new Body(i % 2 == 0 ? new Circle(5.0) : new Polygon(5.0, 5.0), -50 + i * 11, i * 3));
+            b.angularVelocity = 0.1 * i;
+        }
+        world.addJoint(new JointToBody(world.bodies.get(1), world.bodies.get(2), 5, 100, 5, true, new Vectors2D(), new Vectors2D()));
+        return world;
+    }
+
+    @Test
+    public void deterministicStateHash() throws Exception {
+        long[] serial = lockstepHashes(new DirectGravity(16, false), 1);
+        assertTrue(Arrays.equals(serial, lockstepHashes(new DirectGravity(16, true), 1)));
+        assertTrue(Arrays.equals(serial, lockstepHashes(new DirectGravity(16, true), 4)));
+
+        long[] tree = lockstepHashes(new BarnesHutGravity(0.5, false), 1);
+        assertTrue(Arrays.equals(tree, lockstepHashes(new BarnesHutGravity(0.5, true), 1)));
+        assertTrue(Arrays.equals(tree, lockstepHashes(new BarnesHutGravity(0.5, true), 4)));
+        assertFalse(Arrays.equals(serial, tree));
+
+        World a = createScene();
+        a.setDeterministic(true);
+        a.step(1.0 / 60.0);
+        assertEquals(a.stateHash(), a.getLastStateHash());
+        long before = a.stateHash();
+        a.bodies.get(3).velocity.x += 1e-9;
+        assertFalse(before == a.stateHash());
+    }
+
+    /**
+     * Steps a spinning cluster under mutual gravity in deterministic mode on a pool with the given number of threads.
+     */
+    private static long[] lockstepHashes(GravitySolver solver, int threads) throws Exception {
+        World world = createCluster(600);
+        world.setDeterministic(true);
+        world.setGravitySolver(solver);
+        for (int i = 0; i < world.bodies.size(); i++) {
+            world.bodies.get(i).angularVelocity = 0.01 * i;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> {
+                long[] hashes = new long[30];
+                for (int i = 0; i < hashes.length; i++) {
+                    world.gravityBetweenObj();
+                    world.step(1.0 / 60.0);
+                    hashes[i] = world.getLastStateHash();
+                }
+                return hashes;
+            }).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void stateHashWithoutDeterministicMode() {
+        World a = createScene();
+        assertFalse(a.isDeterministic());
+        a.step(1.0 / 60.0);
+        assertEquals(0, a.getLastStateHash());
+        assertTrue(a.stateHash() != 0);
+    }
+
+    private static World createCluster(int n) {
+        World world = new World();
+        Random random = new Random(7);
+        for (int i = 0; i < n; i++) {
+            world.addBody(new Body(new Circle(1.0), random.nextDouble() * 1000, random.nextDouble() * 1000));
+        }
+        return world;
+    }
+
+    @Test
+    public void barnesHutMatchesPairwiseGravity() {
+        World exact = createCluster(500);
+        exact.setGravitySolver(new DirectGravity());
+        World approximate = createCluster(500);
+        World parallel = createCluster(500);
+        exact.gravityBetweenObj();
+        approximate.setGravitySolver(new BarnesHutGravity(0.3, false));
+        approximate.gravityBetweenObj();
+        parallel.setGravitySolver(new BarnesHutGravity(0.3, true));
+        parallel.gravityBetweenObj();
+
+        for (int i = 0; i < exact.bodies.size(); i++) {
+            Body e = exact.bodies.get(i);
+            Body a = approximate.bodies.get(i);
+            double tolerance = 0.02 * e.force.length();
+            assertEquals(e.force.x, a.force.x, tolerance);
+            assertEquals(e.force.y, a.force.y, tolerance);
+            assertEquals(a.force.x, parallel.bodies.get(i).force.x);
+            assertEquals(a.force.y, parallel.bodies.get(i).force.y);
+        }
+    }
+
+    @Test
+    public void barnesHutWithZeroThetaIsExact() {
+        World exact = createCluster(50);
+        exact.setGravitySolver(new DirectGravity());
+        World tree = createCluster(50);
+        exact.gravityBetweenObj();
+        tree.setGravitySolver(new BarnesHutGravity(0, false));
+        tree.gravityBetweenObj();
+        for (int i = 0; i < exact.bodies.size(); i++) {
+            Body e = exact.bodies.get(i);
+            assertEquals(e.force.x, tree.bodies.get(i).force.x, 1e-9 * e.force.length());
+            assertEquals(e.force.y, tree.bodies.get(i).force.y, 1e-9 * e.force.length());
+        }
+    }
+
+    @Test
+    public void directGravityMatchesPairwiseSum() {
+        World world = createCluster(700);
+        world.setGravitySolver(new DirectGravity(16, true));
+        world.gravityBetweenObj();
+        World serial = createCluster(700);
+        serial.setGravitySolver(new DirectGravity(16, false));
+        serial.gravityBetweenObj();
+
+        for (int i = 0; i < world.bodies.size(); i++) {
+            Body a = world.bodies.get(i);
+            double x = 0;
+            double y = 0;
+            for (Body b : world.bodies) {
+                if (a == b) continue;
+                double dx = b.position.x - a.position.x;
+                double dy = b.position.y - a.position.y;
+                double force = Settings.GRAVITATIONAL_CONSTANT * a.mass * b.mass / (dx * dx + dy * dy);
+                x += dx * force;
+                y += dy * force;
+            }
+            assertEquals(x, a.force.x, 1e-9 * a.force.length());
+            assertEquals(y, a.force.y, 1e-9 * a.force.length());
+            assertEquals(a.force.x, serial.bodies.get(i).force.x);
+            assertEquals(a.force.y, serial.bodies.get(i).force.y);
+        }
+    }
+
+    @Test
+    public void coincidentBodiesStayFinite() {
+        GravitySolver[] solvers = {new DirectGravity(16, true), new BarnesHutGravity(0.5, false), new BarnesHutGravity(0, false)};
+        for (GravitySolver solver : solvers) {
+            World world = createCluster(300);
+            world.addBody(new Body(new Circle(1.0), 500, 500));
+            world.addBody(new Body(new Circle(1.0), 500, 500));
+            world.addBody(new Body(new Circle(1.0), 500, 500));
+            world.setGravitySolver(solver);
+            world.gravityBetweenObj();
+            for (Body b : world.bodies) {
+                assertFalse(Double.isNaN(b.force.x) || Double.isInfinite(b.force.x));
+                assertFalse(Double.isNaN(b.force.y) || Double.isInfinite(b.force.y));
+            }
+            Body last = world.bodies.get(world.bodies.size() - 1);
+            assertTrue(last.force.length() > 0);
+        }
+    }
+
+    @Test
+    public void adaptiveGravityCrossover() {
+        AdaptiveGravity gravity = new AdaptiveGravity(new DirectGravity(), new BarnesHutGravity(), 100);
+        assertTrue(gravity.select(99) instanceof DirectGravity);
+        assertTrue(gravity.select(100) instanceof BarnesHutGravity);
+        assertTrue(new World().getGravitySolver() instanceof AdaptiveGravity);
+    }
+
+    @Test
+    public void collisionFiltering() {
+        World world = new World();
+        Body a = world.addBody(new Body(new Circle(5.0), 0, 0));
+        Body b = world.addBody(new Body(new Circle(5.0), 6, 0));
+        world.step(1.0 / 60.0);
+        assertEquals(1, world.contacts.size());
+
+        a.collisionCategory = 2;
+        b.collisionCategory = 2;
+        b.collisionMask = ~2;
+        world.step(1.0 / 60.0);
+        assertEquals(0, world.contacts.size());
+
+        a.collisionGroup = 3;
+        b.collisionGroup = 3;
+        world.step(1.0 / 60.0);
+        assertEquals(1, world.contacts.size());
+
+        b.collisionMask = -1;
+        a.collisionGroup = -3;
+        b.collisionGroup = -3;
+        world.step(1.0 / 60.0);
+        assertEquals(0, world.contacts.size());
+    }
+
+    @Test
+    public void staticCollisionFiltering() {
+        World world = new World();
+        Body floor = world.addBody(new Body(new Polygon(50.0, 5.0), 0, 0));
+        floor.setDensity(0);
+        Body ball = world.addBody(new Body(new Circle(2.0), 0, 6));
+        world.step(1.0 / 60.0);
+        assertEquals(1, world.contacts.size());
+
+        ball.collisionCategory = 2;
+        ball.collisionMask = ~1;
+        world.step(1.0 / 60.0);
+        assertEquals(0, world.contacts.size());
+
+        floor.collisionGroup = 4;
+        ball.collisionGroup = 4;
+        world.step(1.0 / 60.0);
+        assertEquals(1, world.contacts.size());
+
+        ball.collisionGroup = 0;
+        ball.collisionMask = -1;
+        floor.collisionMask = ~2;
+        world.step(1.0 / 60.0);
+        assertEquals(0, world.contacts.size());
+    }
+
+    @Test
+    public void staticBodiesArePartitioned() {
+        World world = createScene();
+        assertEquals(1, world.getStaticBodies().size());
+        assertEquals(10, world.getDynamicBodies().size());
+
+        Body b = world.bodies.get(4);
+        b.setDensity(0);
+        assertEquals(2, world.getStaticBodies().size());
+        assertTrue(world.getStaticBodies().contains(b));
+
+        world.removeBody(b);
+        assertEquals(1, world.getStaticBodies().size());
+        assertEquals(9, world.getDynamicBodies().size());
+
+        Body falling = world.addBody(new Body(new Circle(2.0), 0, -14));
+        world.step(1.0 / 60.0);
+        boolean touchingFloor = false;
+        for (int i = 0; i < world.contacts.size(); i++) {
+            touchingFloor |= world.contacts.get(i).getA() == falling && world.contacts.get(i).getB() == world.bodies.get(0);
+        }
+        assertTrue(touchingFloor);
+    }
+
+    @Test
+    public void stableHandles() {
+        World world = createScene();
+        Body removed = world.bodies.get(3);
+        Body last = world.bodies.get(world.bodies.size() - 1);
+        long removedHandle = removed.getHandle();
+        long lastHandle = last.getHandle();
+
+        assertSame(removed, world.removeBody(removedHandle));
+        assertSame(last, world.bodies.get(3));
+        assertSame(last, world.getBody(lastHandle));
+        assertNull(world.getBody(removedHandle));
+        assertNull(world.removeBody(removedHandle));
+        assertEquals(-1, removed.getHandle());
+
+        Body added = world.addBody(new Body(new Circle(1.0), 0, 100));
+        assertFalse(added.getHandle() == removedHandle);
+        assertNull(world.getBody(removedHandle));
+        assertSame(added, world.getBody(added.getHandle()));
+        assertEquals(10, world.getDynamicBodies().size());
+
+        Joint joint = world.joints.get(0);
+        assertSame(joint, world.getJoint(joint.getHandle()));
+        world.removeJoint(joint);
+        assertNull(world.getJoint(joint.getHandle()));
+        assertTrue(world.joints.isEmpty());
+
+        world.bodies.add(new Body(new Circle(1.0), 0, 200));
+        world.step(1.0 / 60.0);
+        Body appended = world.bodies.get(world.bodies.size() - 1);
+        assertSame(appended, world.getBody(appended.getHandle()));
+        assertSame(last, world.getBody(lastHandle));
+    }
+
+    @Test
+    public void staleHandlesSurviveSlotChurn() {
+        World world = new World();
+        Body kept = world.addBody(new Body(new Circle(1.0), 0, 0));
+        Body first = world.addBody(new Body(new Circle(1.0), 10, 0));
+        long staleHandle = first.getHandle();
+        world.removeBody(first);
+        for (int i = 0; i < 2000; i++) {
+            Body b = world.addBody(new Body(new Circle(1.0), 10, 0));
+            assertNull(world.getBody(staleHandle));
+            assertSame(b, world.getBody(b.getHandle()));
+            world.removeBody(b.getHandle());
+        }
+        assertNull(world.removeBody(staleHandle));
+        assertSame(kept, world.getBody(kept.getHandle()));
+        assertEquals(1, world.bodies.size());
+    }
+
+    @Test
+    public void removesBodiesAddedToTheList() {
+        World world = createScene();
+        Body direct = new Body(new Circle(1.0), 0, 300);
+        world.bodies.add(direct);
+        world.removeBody(direct);
+        assertFalse(world.bodies.contains(direct));
+        assertEquals(11, world.bodies.size());
+        assertEquals(10, world.getDynamicBodies().size());
+    }
+
+    @Test
+    public void replacingBodiesInTheListGivesThemHandles() {
+        World world = createScene();
+        Body replaced = world.bodies.get(5);
+        long replacedHandle = replaced.getHandle();
+        Body other = new Body(new Circle(1.0), 0, 300);
+        world.bodies.set(5, other);
+        world.invalidatePartitions();
+
+        assertTrue(world.getDynamicBodies().contains(other));
+        assertSame(other, world.getBody(other.getHandle()));
+        assertNull(world.getBody(replacedHandle));
+        world.removeBody(other);
+        assertFalse(world.bodies.contains(other));
+        assertEquals(10, world.bodies.size());
+    }
+
+    @Test
+    public void commandsAreProfiledApartFromBroadPhase() {
+        World world = createScene();
+        StepProfiler profiler = new StepProfiler();
+        world.setProfiler(profiler);
+        for (int i = 0; i < 2000; i++) {
+            world.getCommandBuffer().addBody(new Body(new Circle(1.0), i * 3, 5000));
+        }
+        world.step(1.0 / 60.0);
+        StepStats stats = profiler.getLastStep();
+        assertTrue(stats.getPhaseNanos(StepPhase.COMMANDS) > 0);
+        long phases = 0;
+        for (StepPhase phase : StepPhase.values()) {
+            phases += stats.getPhaseNanos(phase);
+        }
+        assertTrue(phases <= stats.getTotalNanos());
+    }
+
+    @Test
+    public void commandBufferAppliesAtStep() throws InterruptedException {
+        World world = createScene();
+        Body first = world.bodies.get(1);
+        Body floor = world.bodies.get(0);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                world.getCommandBuffer().addBody(new Body(new Circle(1.0), i * 3, 500));
+            }
+        });
+        producer.start();
+        producer.join();
+        world.getCommandBuffer().removeBody(first.getHandle());
+        world.getCommandBuffer().setTransform(floor, 0, -30, 0);
+        assertEquals(11, world.bodies.size());
+        assertEquals(102, world.getCommandBuffer().size());
+
+        world.step(1.0 / 60.0);
+        assertEquals(110, world.bodies.size());
+        assertEquals(0, world.getCommandBuffer().size());
+        assertNull(world.getBody(first.getHandle()));
+        assertEquals(-30.0, floor.position.y);
+
+        Body temporary = new Body(new Circle(1.0), 0, 0);
+        world.getCommandBuffer().addBody(temporary);
+        world.getCommandBuffer().removeBody(temporary);
+        assertEquals(2, world.flushCommands());
+        assertEquals(110, world.bodies.size());
+    }
+
+    @Test
+    public void circleQueryUsesShapeExtents() {
+        World world = new World();
+        Body box = world.addBody(new Body(new Polygon(10.0, 10.0), 0, 0));
+        box.setOrientation(Math.PI / 4);
+        Body ball = world.addBody(new Body(new Circle(5.0), 40, 0));
+        ball.setDensity(0);
+
+        ProximityExplosion explosion = new ProximityExplosion(new Vectors2D(17, 0), 3);
+        explosion.update(world);
+        assertEquals(1, explosion.bodiesEffected.size());
+        assertSame(box, explosion.bodiesEffected.get(0));
+
+        explosion.setEpicentre(new Vectors2D(17, 8));
+        explosion.update(world);
+        assertEquals(0, explosion.bodiesEffected.size());
+
+        //Dynamic bodies come first, then static ones
+        ProximityExplosion wide = new ProximityExplosion(new Vectors2D(25, 0), 12);
+        wide.update(world);
+        assertEquals(2, wide.bodiesEffected.size());
+        assertSame(box, wide.bodiesEffected.get(0));
+        assertSame(ball, wide.bodiesEffected.get(1));
+
+        //Matches a scan of every body on a larger scene
+        Random random = new Random(4);
+        for (int i = 0; i < 300; i++) {
+            Body b = world.addBody(new Body(i % 2 == 0 ? new Circle(1 + random.nextDouble() * 8) : new Polygon(1 + random.nextDouble() * 8, 3 + i % 5),
+                    random.nextDouble() * 600 - 300, random.nextDouble() * 600 - 300));
+            b.setOrientation(random.nextDouble() * 6);
+            if (i % 3 == 0) {
+                b.setDensity(0);
+            }
+        }
+        ArrayList<Body> indexed = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Vectors2D centre = new Vectors2D(random.nextDouble() * 600 - 300, random.nextDouble() * 600 - 300);
+            int radius = 10 + random.nextInt(80);
+            world.queryCircle(centre.x, centre.y, radius, indexed);
+            ProximityExplosion scan = new ProximityExplosion(centre, radius);
+            scan.update(world.bodies);
+            assertEquals(scan.bodiesEffected.size(), indexed.size());
+            assertEquals(new HashSet<>(scan.bodiesEffected), new HashSet<>(indexed));
+        }
+    }
+
+    @Test
+    public void spawnedBodiesMatchConstructedOnes() {
+        World world = new World(new Vectors2D(0, -9.81));
+        Vectors2D[] hexagon = new Polygon(3, 6).vertices.clone();
+        Body prototype = new Body(new Polygon(hexagon), 0, 0);
+        prototype.setDensity(2.0);
+        prototype.setOrientation(0.4);
+        prototype.restitution = 0.3;
+        prototype.collisionMask = 6;
+        prototype.velocity.set(1, 2);
+
+        int count = 500;
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = (i % 25) * 8;
+            y[i] = (i / 25) * 8;
+        }
+        List<Body> spawned = world.spawnBodies(prototype, x, y, count);
+        assertEquals(count, world.bodies.size());
+        assertEquals(count, world.getDynamicBodies().size());
+        assertEquals(-1, prototype.getHandle());
+
+        Body reference = new Body(new Polygon(hexagon), 0, 0);
+        reference.setDensity(2.0);
+        reference.setOrientation(0.4);
+        for (int i = 0; i < count; i++) {
+            Body b = spawned.get(i);
+            assertSame(b, world.getBody(b.getHandle()));
+            assertSame(((Polygon) spawned.get(0).shape).getGeometry(), ((Polygon) b.shape).getGeometry());
+            assertEquals(x[i], b.position.x, 0.0);
+            assertEquals(y[i], b.position.y, 0.0);
+            assertEquals(reference.mass, b.mass, 1e-9);
+            assertEquals(reference.I, b.I, 1e-9);
+            assertEquals(reference.aabb.getMin().x, b.aabb.getMin().x, 1e-9);
+            assertEquals(reference.aabb.getMax().y, b.aabb.getMax().y, 1e-9);
+            assertEquals(0.3, b.restitution, 0.0);
+            assertEquals(6, b.collisionMask);
+            assertEquals(2.0, b.velocity.y, 0.0);
+        }
+        spawned.get(0).velocity.set(0, 0);
+        assertEquals(1.0, spawned.get(1).velocity.x, 0.0);
+
+        //Static prototypes land in the static index
+        Body ground = new Body(new Circle(2.0), 0, 0);
+        ground.setDensity(0);
+        List<Body> posts = world.spawnBodies(ground, new double[]{-50, 300}, new double[]{-20, -20}, 2);
+        assertEquals(2, world.getStaticBodies().size());
+        ArrayList<Body> found = new ArrayList<>();
+        world.queryCircle(300, -20, 1, found);
+        assertEquals(1, found.size());
+        assertSame(posts.get(1), found.get(0));
+        world.step(1.0 / 60.0);
+    }
+}